@@ -1,38 +1,114 @@
 package wordle;
 
+import java.io.IOException;
+
 /**
- * Represents an instance of a Wordle game. Parent of {@code BasicGame} and {@code BlindGame}
- * classes. <p>
+ * Console front end for a Wordle game, played on top of a {@code GameSession} which holds the
+ * state and rules of the game. Parent of {@code BasicGame}, {@code BlindGame} and
+ * {@code AdversarialGame} classes. <p>
  * Has the following methods: <p>
+ * > - {@code play()} runs the game on the terminal until it is won or lost. <p>
+ * > - {@code getSession()} returns the {@code GameSession} the game is played on. <p>
  * > - {@code getSolution()} returns the solution of the game. <p>
  * > - {@code getGuessCount()} returns the order number of the guess, starting from 1. <p>
- * > - {@code incrementGuessCount()} increments the guess count (order number of the guess) by 1. <p>
  * > - {@code getGuessMax()} returns the maximum number of guesses that can be made this game. <p>
  * > - {@code isMixedLength()} returns whether or not the game plays with the mixed length rule. <p>
  * > - {@code getExplanation()} returns the flavour text for the solution. <p>
  * > - {@code makeGuess()} prompts the player to enter a guess, then returning a {@code String} 
- * of the guess. <p>
+ * of the guess. Entering {@code HINT_COMMAND} instead gives a hint with {@code giveHint()}. A
+ * guess breaking the hard mode rule, if in play, is rejected with the rule it breaks. <p>
  * > - {@code isValidGuess()} checks and returns whether a guess is valid by the rules of the game.<p>
- * > - {@code generateClue()} returns a {@code Clue} object for a guess. <p>
- * > - {@code giveClue()} is {@code abstract} and prints (on the terminal) an interpretation 
+ * > - {@code logGuess()} narrows down the possible solutions after a guess. <p>
+ * > - {@code getCandidates()} returns the possible solutions given the clues so far. <p>
+ * > - {@code giveHint()} prints (on the terminal) a recommended next guess. <p>
+ * > - {@code showUsedLetters()} writes the letters not used in any guess to the turn output. <p>
+ * > - {@code giveWinMessage()} prints (on the terminal) the message for winning the game. <p>
+ * > - {@code recordStats()} records the game in the statistics once it is over. <p>
+ * > - {@code giveClue()} is {@code abstract} and writes to the turn output an interpretation 
  * of a {@code Clue} object based on the rules of the game. <p>
+ * > - {@code flushTurn()} prints (on the terminal) the turn output in one write. <p>
+ * The clue and the used letters of a turn are built in one {@code StringBuilder}, reused every
+ * turn, and printed with a single write instead of a write per character.
  * @see BasicGame
  * @see BlindGame
+ * @see AdversarialGame
+ * @see GameSession
  * @see Clue
  */
 abstract class AbstractGame {
-    String solution, guess, explanation;
-    int guessCount = 1;
-    int guessMax;
-    boolean mixedLength;
-    boolean[] isLetterUsed = new boolean[26];
-    
+    static final String HINT_COMMAND = "!hint";
+    static final String NEWLINE = System.lineSeparator();
+
+    final StringBuilder turnOutput = new StringBuilder(256);
+    GameSession session;
+    String guess;
+    CandidateSet candidates;
+
+    /**
+     * Runs the game on the terminal. The game takes the following steps: <p>
+     * > 1. The player is prompted to make a guess. <p>
+     * > 2. The guess is submitted to the {@code GameSession}, which generates its clue. <p>
+     * > 3. If the guess matches the solution exactly, inform the player that the game is won. <p>
+     * > 4. If not, give the clue with {@code giveClue()}, and show the unused letters, printed
+     * together with {@code flushTurn()}. <p>
+     * > 5. Repeat from step 1 until the player either wins by matching the solution with a guess, 
+     * or loses by running out of guesses (has made guesses equal to the maximum number of guesses 
+     * allowed). <p>
+     * All output is printed on the terminal, and nothing is returned.
+     * @see GameSession
+     */
+    void play() {
+        System.out.println();
+        System.out.println("--------------------- GAME START ---------------------");
+        System.out.println("Enter " + HINT_COMMAND + " instead of a guess for a hint.");
+        System.out.println();
+        while (!session.isOver()) {
+            System.out.println("Guess " + getGuessCount() + " of " + getGuessMax());
+            guess = makeGuess();
+            GuessResult result = session.submitGuess(guess);
+            Clue clue = result.getClue();
+            logGuess(guess, clue);
+            if (result.isWon()) {
+                recordStats();
+                giveWinMessage();
+                System.out.println(getExplanation());
+                System.out.println("You got it in " + result.getGuessNumber() + " guesses.");
+                System.out.println();
+                System.out.println("--------------------- GAME OVER ---------------------");
+                System.out.println();
+                return;
+            } else {
+                long start = Metrics.start();
+                giveClue(clue);
+                showUsedLetters();
+                turnOutput.append(NEWLINE);
+                flushTurn();
+                Metrics.stop(Metrics.Stage.RENDER, start);
+            }
+        }
+        recordStats();
+        System.out.println("You ran out of guesses! Better luck next time.");
+        System.out.println("The solution is " + getSolution() + ".");
+        System.out.println(getExplanation());
+        System.out.println();
+        System.out.println("--------------------- GAME OVER ---------------------");
+        System.out.println();
+    }
+
+    /**
+     * Returns the {@code GameSession} the game is played on.
+     * @return the session of the game
+     */
+    GameSession getSession() {
+        return this.session;
+    }
+
     /**
      * Returns the solution of the game.
      * @return the solution of the game
      */
     String getSolution() {
-        return this.solution;
+        return session.getSolution();
     }
 
     /**
@@ -41,14 +117,7 @@ abstract class AbstractGame {
      * @return the order number of the guess
      */
     int getGuessCount() {
-        return this.guessCount;
-    }
-
-    /**
-     * Increments the guess count (order number of the guess) by 1. Done after giving each clue.
-     */
-    void incrementGuessCount() {
-        this.guessCount++;
+        return session.getGuessCount();
     }
 
     /**
@@ -56,7 +125,7 @@ abstract class AbstractGame {
      * @return the max number of guesses this game
      */
     int getGuessMax() {
-        return this.guessMax;
+        return session.getGuessMax();
     }
 
     /**
@@ -64,11 +133,11 @@ abstract class AbstractGame {
      * @return whether the game plays with the mixed length rule
      */
     boolean isMixedLength() {
-        return this.mixedLength;
+        return session.isMixedLength();
     }
 
     String getExplanation() {
-        return this.explanation;
+        return session.getExplanation();
     }
 
     /**
@@ -79,10 +148,19 @@ abstract class AbstractGame {
         String guess = "";
         while (!isValidGuess(guess)) {
             guess = Keyboard.getInput("Enter your guess:                   ");
-            if (!isValidGuess(guess)) {
+            if (guess.equals(HINT_COMMAND)) {
+                giveHint();
+                guess = "";
+            } else if (session.getHardModeViolation(guess) != null) {
+                System.out.println("The guess breaks the hard mode rule: "
+                                + session.getHardModeViolation(guess) + ".");
+            } else if (!isValidGuess(guess)) {
                 System.out.println("The guess is invalid.");
                 System.out.println("Check if the input is of the correct length "
                                 + "and of only alphabetical characters.");
+                if (session.getDictionary() != null) {
+                    System.out.println("Guesses must also be words from the dictionary.");
+                }
             }
         }
         guess = guess.toUpperCase();
@@ -93,53 +171,108 @@ abstract class AbstractGame {
      * Checks and returns whether the guess made is valid by the rules of the game. <p>
      * A guess is valid when all characters are alphabetical characters, and the guess is either 
      * the same length as the solution of the game or if it is between 4 and 6 if the game plays 
-     * by the mixed length rule.
+     * by the mixed length rule. With a dictionary, the guess must also be one of its words.
      * @param guess the guess made
      * @return whether the guess is valid
+     * @see GameSession
      */
     boolean isValidGuess(String guess) {
-        if ((guess.length() == getSolution().length()) 
-        || (isMixedLength() && (4 <= guess.length()) && (guess.length() <= 6))) {
-            for (int pos = 0; pos < guess.length(); pos++) {
-                if (!('a' <= guess.charAt(pos) && guess.charAt(pos) <= 'z')
-                && !('A' <= guess.charAt(pos) && guess.charAt(pos) <= 'Z')) {
-                    return false;
-                }
-            }
-            return true;
-        } else return false;
+        return session.isValidGuess(guess);
     }
 
-    void logUsedLetters(String guess) {
-        for (int pos = 0; pos < guess.length(); pos++) {
-            isLetterUsed[(int)guess.charAt(pos) - 65] = true;
+    /**
+     * Writes to the turn output the letters that have not been used in any guess so far, with a
+     * dash in place of every used letter.
+     */
+    void showUsedLetters() {
+        turnOutput.append("Remaining usused letters:           ");
+        for (int i = 0; i < 26; i++) {
+            turnOutput.append(session.isLetterUsed(i) ? '-' : (char) (i + 97));
         }
+        turnOutput.append(NEWLINE);
     }
 
-    void showUsedLetters() {
-        System.out.print("Remaining usused letters:           ");
-        for (int i = 0; i < 26; i++) {
-            if (!isLetterUsed[i]) {
-                System.out.print((char) (i+97));
-            } else {
-                System.out.print('-');
+    /**
+     * Prints (on the terminal) the turn output in one write, and empties it for the next turn.
+     */
+    void flushTurn() {
+        System.out.append(turnOutput);
+        System.out.flush();
+        turnOutput.setLength(0);
+    }
+
+    /**
+     * Records the game, once over, in the shared {@code GameStats}.
+     */
+    void recordStats() {
+        GameStats.shared().record(session);
+    }
+
+    /**
+     * Prints (on the terminal) the message for winning the game.
+     */
+    void giveWinMessage() {
+        System.out.println("That is correct! Well done!");
+    }
+
+    /**
+     * Narrows down the possible solutions with the clue of a guess just played, if they are being
+     * tracked. The guess itself is recorded by the {@code GameSession}.
+     * @param guess the guess made
+     * @param clue the {@code Clue} object generated by the guess
+     * @see CandidateSet
+     */
+    void logGuess(String guess, Clue clue) {
+        if (candidates != null) candidates.apply(guess, clue.getCode());
+    }
+
+    /**
+     * Returns the possible solutions given the clues so far. They are only tracked from the first
+     * time this is called, which replays the history of the game, and then narrowed down by
+     * {@code logGuess()} after each guess.
+     * @return the possible solutions given the clues so far
+     * @throws IOException if the file {@code bank} cannot be read
+     * @see CandidateSet
+     */
+    CandidateSet getCandidates() throws IOException {
+        if (candidates == null) {
+            candidates = new CandidateSet(CandidateIndex.shared(), getSolution().length(),
+                                          isMixedLength());
+            for (int turn = 0; turn < session.getGuessesMade(); turn++) {
+                candidates.apply(session.getGuess(turn), session.getClueCode(turn));
             }
         }
-        System.out.println();
+        return candidates;
     }
 
     /**
-     * Returns a {@code Clue} object for a guess.
-     * @param guess the guess made
-     * @return the {@code Clue} object for the guess
-     * @see Clue
+     * Prints (on the terminal) a recommended next guess, worked out by {@code Solver} from the
+     * history of the game, along with how many solutions are still possible. With the hard mode
+     * rule, a recommendation breaking it is replaced by a possible solution, which never does.
+     * @see Solver
      */
-    Clue generateClue(String guess) {
-        return new Clue(guess, getSolution());
+    void giveHint() {
+        try {
+            CandidateSet candidateSet = getCandidates();
+            Solver solver = new Solver(candidateSet.getIndex().getMatrix());
+            int[] candidates = candidateSet.toArray();
+            int hint = solver.recommend(candidates, getSolution().length(), isMixedLength(),
+                                        Solver.DEFAULT_BUDGET_MILLIS);
+            String word = hint < 0 ? null : solver.getMatrix().getWord(hint);
+            if (word != null && session.getHardModeViolation(word) != null) hint = candidates[0];
+            if (hint < 0) {
+                System.out.println("No word in the word bank fits the clues so far.");
+            } else {
+                System.out.println("Hint: try " + solver.getMatrix().getWord(hint) + " ("
+                                + candidates.length + " possible solutions left)");
+            }
+        } catch (IOException e) {
+            System.out.println("Hints are unavailable: " + e.getMessage());
+        }
     }
 
     /**
-     * Abstract. Prints (on the terminal) an interpretation of a {@code Clue} object based on
+     * Abstract. Writes to the turn output an interpretation of a {@code Clue} object based on
      * the rules of the game.
      * @param clue the {@code Clue} object to be interpreted
      * @see BasicGame
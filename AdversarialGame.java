@@ -0,0 +1,213 @@
+package wordle;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Represents an adversarial game of Wordle, which never commits to a solution up front (as in
+ * Absurdle). Inherits from {@code AbstractGame}. <p>
+ * The game keeps every bank word that is still consistent with the clues given. On each guess,
+ * it partitions those words by the clue the guess would give against each of them, and keeps the
+ * largest bucket; ties go to a bucket that does not win the game, then to the lowest feedback
+ * code. The solution of the {@code GameSession} is then revised to a word of that bucket, so the
+ * guess is scored and shown as usual. The player only wins once every word left gives the winning
+ * clue, that is when a single word is left and it is guessed. <p>
+ * Works with the other rules the same way: with the mixed length rule the words of every length
+ * are kept, and with blind clues the words are partitioned by blind code, the only clue the
+ * player sees. <p>
+ * Partitioning is the hot path. Every clue between bank words is read from the
+ * {@code FeedbackMatrix} (guesses outside the bank are scored on packed words), counted into a
+ * histogram array reused every turn, and for large banks the words are split into one chunk per
+ * thread, each counted into a histogram of its own and added up. <p>
+ * Overrides five methods: <p>
+ * > - {@code makeGuess()} partitions the words left by the guess and revises the solution. <p>
+ * > - {@code giveClue()} writes the clue, normal or blind depending on the rules. <p>
+ * > - {@code giveWinMessage()} prints a message for cornering the solution. <p>
+ * > - {@code giveHint()} gives a hint worked out from the words left. <p>
+ * > - {@code recordStats()} records nothing, as the solution was never fixed.
+ * @see AbstractGame
+ * @see FeedbackMatrix
+ */
+class AdversarialGame extends AbstractGame {
+    static final int PARALLEL_THRESHOLD = 4096;
+
+    private final FeedbackMatrix matrix;
+    private final boolean blind;
+    private final int[] candidates;
+    private final short[] codes;
+    private final int[] histogram = new int[ClueCode.CODE_SPACE];
+    private int[][] chunkHistograms;
+    private long[] packedWords;
+    private int count;
+
+    /**
+     * Runs an adversarial game of Wordle on the terminal, played on the specified
+     * {@code GameSession}, whose solution is only a starting point and is revised after every
+     * guess. See {@code play()} for the steps of the game.
+     * @param session the session to play the game on
+     * @throws IOException if the feedback matrix of the bank cannot be loaded
+     * @see GameSession
+     */
+    AdversarialGame(GameSession session) throws IOException {
+        this.session = session;
+        this.matrix = FeedbackMatrix.shared();
+        this.blind = session.isBlind();
+        int length = session.getSolution().length();
+        int start = isMixedLength() ? matrix.startIndex(4) : matrix.startIndex(length);
+        int end = isMixedLength() ? matrix.endIndex(6) : matrix.endIndex(length);
+        this.candidates = IntStream.range(start, end).toArray();
+        this.codes = new short[candidates.length];
+        this.count = candidates.length;
+        play();
+    }
+
+    /**
+     * Prompts the player to make a guess, then keeps the largest bucket of words by the clue of
+     * the guess, and revises the solution to a word of that bucket.
+     * @return the guess made
+     */
+    @Override
+    String makeGuess() {
+        String guess = super.makeGuess();
+        int word = candidates[0];
+        if (count > 0) {
+            int kept = partition(guess);
+            word = candidates[0];
+            count = kept;
+        }
+        String solution = matrix.getWord(word);
+        session.reviseSolution(solution, explanationOf(solution));
+        return guess;
+    }
+
+    /**
+     * Partitions the words left by the clue of the guess, and moves the words of the largest
+     * bucket to the front of {@code candidates}.
+     * @return the number of words in the bucket kept
+     */
+    int partition(String guess) {
+        int guessIndex = matrix.indexOf(guess);
+        long packedGuess = guessIndex < 0 ? PackedWord.pack(guess) : 0;
+        if (guessIndex < 0 && packedWords == null) {
+            packedWords = new long[matrix.size()];
+            for (int i = 0; i < packedWords.length; i++) {
+                packedWords[i] = PackedWord.pack(matrix.getWord(i));
+            }
+        }
+
+        Arrays.fill(histogram, 0);
+        if (count < PARALLEL_THRESHOLD) {
+            count(guessIndex, packedGuess, 0, count, histogram);
+        } else {
+            int chunks = ForkJoinPool.getCommonPoolParallelism() + 1;
+            if (chunkHistograms == null) chunkHistograms = new int[chunks][ClueCode.CODE_SPACE];
+            int size = (count + chunks - 1) / chunks;
+            IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                int[] local = chunkHistograms[chunk];
+                Arrays.fill(local, 0);
+                count(guessIndex, packedGuess, chunk * size, Math.min(count, (chunk + 1) * size),
+                      local);
+            });
+            for (int[] local : chunkHistograms) {
+                for (int code = 0; code < histogram.length; code++) histogram[code] += local[code];
+            }
+        }
+
+        int winCode = ClueCode.score(guess, guess);
+        if (blind) winCode = ClueCode.blindCode(winCode);
+        int best = -1;
+        for (int code = 0; code < histogram.length; code++) {
+            if (histogram[code] == 0) continue;
+            if (best < 0 || histogram[code] > histogram[best]
+                || (histogram[code] == histogram[best] && best == winCode)) {
+                best = code;
+            }
+        }
+
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (codes[i] == best) candidates[kept++] = candidates[i];
+        }
+        return kept;
+    }
+
+    /**
+     * Counts the clue of the guess against the words left from {@code from} to {@code to} into
+     * the histogram, keeping the clue of each word in {@code codes}.
+     */
+    private void count(int guessIndex, long packedGuess, int from, int to, int[] counts) {
+        for (int i = from; i < to; i++) {
+            int code = guessIndex >= 0 ? matrix.code(guessIndex, candidates[i])
+                                       : ClueCode.score(packedGuess, packedWords[candidates[i]]);
+            if (blind) code = ClueCode.blindCode(code);
+            codes[i] = (short) code;
+            counts[code]++;
+        }
+    }
+
+    private static String explanationOf(String solution) {
+        try {
+            return BankSnapshot.current().getExplanation(solution);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the number of words still consistent with every clue given.
+     * @return the number of words left
+     */
+    int getCandidateCount() {
+        return this.count;
+    }
+
+    /**
+     * Writes to the turn output the clue of the guess, normal or blind depending on the rules.
+     * @param clue the {@code Clue} object generated by the guess
+     */
+    @Override
+    void giveClue(Clue clue) {
+        if (blind) BlindGame.writeClue(turnOutput, guess, clue, isMixedLength());
+        else BasicGame.writeClue(turnOutput, guess, clue, isMixedLength());
+    }
+
+    /**
+     * Prints (on the terminal) the message for winning an adversarial game.
+     */
+    @Override
+    void giveWinMessage() {
+        System.out.println("That is correct! You cornered the solution!");
+    }
+
+    /**
+     * Prints (on the terminal) a recommended next guess, worked out by {@code Solver} from the
+     * words left, along with how many of them there are.
+     * @see Solver
+     */
+    @Override
+    void giveHint() {
+        int[] left = Arrays.copyOf(candidates, count);
+        Solver solver = new Solver(matrix, blind);
+        int hint = solver.recommend(left, getSolution().length(), isMixedLength(),
+                                    Solver.DEFAULT_BUDGET_MILLIS);
+        if (hint >= 0 && session.getHardModeViolation(matrix.getWord(hint)) != null) {
+            hint = left[0];
+        }
+        if (hint < 0) {
+            System.out.println("No word in the word bank fits the clues so far.");
+        } else {
+            System.out.println("Hint: try " + matrix.getWord(hint) + " (" + count
+                               + " possible solutions left)");
+        }
+    }
+
+    /**
+     * Records nothing, as the solution of an adversarial game says nothing about how hard the
+     * word is.
+     */
+    @Override
+    void recordStats() {
+    }
+}
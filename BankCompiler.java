@@ -0,0 +1,166 @@
+package wordle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Compiles a word bank from the text format described in {@code WordBank} into a compact binary
+ * file, which {@code BankSnapshot.load()} memory-maps instead of parsing. Only the words are read
+ * into memory when a compiled bank is loaded; explanations stay in the file until
+ * {@code getExplanation()} asks for one, so large themed banks start quickly and take little
+ * memory. <p>
+ * A compiled bank is laid out as follows, in big-endian order: <p>
+ * > - a header of {@code HEADER_SIZE} bytes: the magic number, {@code VERSION}, the hash of the
+ * text bank it was compiled from, then the number of words of each length from 0 to
+ * {@code ClueCode.MAX_LENGTH} <p>
+ * > - every word packed into a {@code long} (see {@code PackedWord}), grouped by length in
+ * increasing order <p>
+ * > - one {@code int} offset per word into the explanation region, plus the end offset <p>
+ * > - the explanation region, every explanation in UTF-8, one after the other <p>
+ * Words that cannot be packed (anything other than the letters A to Z) are left out. Run
+ * {@code main()} with the text bank and the compiled bank to write.
+ * @see BankSnapshot
+ * @see PackedWord
+ */
+public class BankCompiler {
+    static final int MAGIC = 0x5357424B;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 48;
+
+    /**
+     * Returns whether the contents start like a compiled bank.
+     * @param contents the first bytes of a file, at least 4 of them
+     * @return whether the file is a compiled bank
+     */
+    static boolean isCompiled(ByteBuffer contents) {
+        return contents.remaining() >= 4 && contents.getInt(contents.position()) == MAGIC;
+    }
+
+    /**
+     * Compiles a bank snapshot into a binary bank, through a temporary file so that a concurrent
+     * reader never sees a partially written bank.
+     * @param snapshot the snapshot of the text bank
+     * @param target the compiled bank to write
+     * @return the number of words written
+     * @throws IOException if the compiled bank cannot be written
+     */
+    static int compile(BankSnapshot snapshot, Path target) throws IOException {
+        int[] counts = new int[ClueCode.MAX_LENGTH + 1];
+        long[] packedWords = new long[snapshot.getAllWords().size()];
+        byte[][] explanations = new byte[packedWords.length][];
+        int size = 0;
+        long explanationBytes = 0;
+        for (String word : snapshot.getAllWords()) {
+            long packed = PackedWord.pack(word);
+            if (packed == PackedWord.INVALID) continue;
+            counts[word.length()]++;
+            packedWords[size] = packed;
+            explanations[size] = snapshot.getExplanation(word).getBytes(StandardCharsets.UTF_8);
+            explanationBytes += explanations[size].length;
+            size++;
+        }
+        if (explanationBytes > Integer.MAX_VALUE - HEADER_SIZE - 12L * (size + 1)) {
+            throw new IOException("too many explanations for a compiled bank");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(
+                (int) (HEADER_SIZE + 12L * size + 4 + explanationBytes));
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(snapshot.getHash());
+        for (int count : counts) buffer.putInt(count);
+        buffer.position(HEADER_SIZE);
+        for (int i = 0; i < size; i++) buffer.putLong(packedWords[i]);
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(offset);
+            offset += explanations[i].length;
+        }
+        buffer.putInt(offset);
+        for (int i = 0; i < size; i++) buffer.put(explanations[i]);
+        buffer.flip();
+
+        Path tempPath = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+        Files.move(tempPath, target, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        return size;
+    }
+
+    /**
+     * Reads the words of a compiled bank, mapped into memory, in the order they were written.
+     * @param file the whole compiled bank, mapped into memory
+     * @param words the list to add the words to
+     * @return the hash of the text bank it was compiled from
+     * @throws IOException if the file is not a valid compiled bank
+     */
+    static long readWords(ByteBuffer file, List<String> words) throws IOException {
+        if (file.capacity() < HEADER_SIZE || file.getInt(0) != MAGIC) {
+            throw new IOException("not a compiled bank");
+        }
+        if (file.getInt(4) != VERSION) {
+            throw new IOException("compiled bank version " + file.getInt(4) + ", expected "
+                                  + VERSION + ", compile it again");
+        }
+        long size = 0;
+        for (int length = 0; length <= ClueCode.MAX_LENGTH; length++) {
+            size += file.getInt(16 + 4 * length);
+        }
+        if (size < 0 || HEADER_SIZE + 12 * size + 4 > file.capacity()
+        || explanationStart((int) size) + file.getInt(offsetPosition((int) size, (int) size))
+           != file.capacity()) {
+            throw new IOException("compiled bank is truncated");
+        }
+        for (int i = 0; i < size; i++) {
+            words.add(PackedWord.unpack(file.getLong(HEADER_SIZE + 8 * i)));
+        }
+        return file.getLong(8);
+    }
+
+    /**
+     * Decodes the explanation of the word at index {@code index} of a compiled bank.
+     * @param file the whole compiled bank, mapped into memory
+     * @param size the number of words of the bank
+     * @param index the index of the word
+     * @return the explanation of the word
+     */
+    static String readExplanation(ByteBuffer file, int size, int index) {
+        int start = file.getInt(offsetPosition(size, index));
+        int end = file.getInt(offsetPosition(size, index + 1));
+        byte[] bytes = new byte[end - start];
+        file.duplicate().position(explanationStart(size) + start).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int offsetPosition(int size, int index) {
+        return HEADER_SIZE + 8 * size + 4 * index;
+    }
+
+    private static int explanationStart(int size) {
+        return HEADER_SIZE + 12 * size + 4;
+    }
+
+    /**
+     * Compiles a text bank into a binary bank. Arguments: the text bank ({@code bank} by
+     * default), then the compiled bank to write (the text bank with {@code .bin} added by
+     * default).
+     * @param args the text bank and the compiled bank, both optional
+     * @throws IOException if the text bank cannot be read or the compiled bank written
+     */
+    public static void main(String[] args) throws IOException {
+        Path source = Paths.get(args.length > 0 ? args[0] : WordBank.BANK_PATH);
+        Path target = Paths.get(args.length > 1 ? args[1] : source + ".bin");
+        int size = compile(BankSnapshot.load(source), target);
+        System.out.println("Compiled " + size + " words from " + source + " into " + target
+                           + " (" + Files.size(target) + " bytes)");
+    }
+}
@@ -0,0 +1,199 @@
+package wordle;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+
+/**
+ * An immutable, parsed copy of a word bank file, shared by every game and thread. The file is
+ * parsed once into a list of every word (grouped by length) and the explanation of each word;
+ * {@code WordBank} then only keeps the per-game draw state on top of a snapshot. <p>
+ * The file format is the one described in {@code WordBank}: one {@code WORD : explanation} per
+ * line, other lines are ignored. The file may also be a bank compiled by {@code BankCompiler}, in
+ * which case explanations are left in the memory-mapped file until asked for. <p>
+ * Has the following methods: <p>
+ * > - {@code current()} returns the snapshot of {@code bank} currently in use, loading it on the
+ * first call. <p>
+ * > - {@code reload()} parses {@code bank} again and atomically swaps in the new snapshot if the
+ * contents changed. Games already started keep the snapshot they were started with. <p>
+ * > - {@code load()} parses any bank file into a snapshot, without making it current. <p>
+ * > - {@code getWords()}, {@code getAllWords()}, {@code getExplanation()} read the snapshot. <p>
+ * > - {@code getHash()} returns a hash of the contents of the file, used to key caches. <p>
+ * @see WordBank
+ * @see BankWatcher
+ * @see BankCompiler
+ */
+final class BankSnapshot {
+    private static final AtomicReference<BankSnapshot> current =
+            new AtomicReference<BankSnapshot>();
+
+    private final Path path;
+    private final long hash;
+    private final List<String> allWords;
+    private final int[] lengthStart = new int[ClueCode.MAX_LENGTH + 2];
+    private final Map<String,Integer> wordIndex = new HashMap<String,Integer>();
+    private final IntFunction<String> explanations;
+
+    private BankSnapshot(Path path, long hash, List<String> allWords,
+                         IntFunction<String> explanations) {
+        this.path = path;
+        this.hash = hash;
+        this.allWords = Collections.unmodifiableList(allWords);
+        this.explanations = explanations;
+        for (int i = 0; i < allWords.size(); i++) {
+            wordIndex.put(allWords.get(i), i);
+        }
+        for (int length = 0; length < lengthStart.length; length++) {
+            int start = 0;
+            while (start < allWords.size() && allWords.get(start).length() < length) start++;
+            lengthStart[length] = start;
+        }
+    }
+
+    /**
+     * Loads a bank file into a snapshot, either a text bank or a bank compiled by
+     * {@code BankCompiler}. In a text bank, each word and its explanation must take up one line,
+     * with the word (of length 4, 5 or 6) preceding its explanation, separated by " : ". Lines
+     * that do not follow this format are ignored. A compiled bank is memory-mapped, and its
+     * explanations are only decoded when asked for.
+     * @param path the bank file
+     * @return the snapshot of the file
+     * @throws FileNotFoundException if the file cannot be read, or is not a valid compiled bank
+     */
+    static BankSnapshot load(Path path) throws FileNotFoundException {
+        long start = Metrics.start();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (BankCompiler.isCompiled(file)) return loadCompiled(path, file);
+            byte[] contents = new byte[file.capacity()];
+            file.get(contents);
+            return parse(path, contents);
+        } catch (IOException e) {
+            FileNotFoundException notFound = new FileNotFoundException(path + " (" + e + ")");
+            notFound.initCause(e);
+            throw notFound;
+        } finally {
+            Metrics.stop(Metrics.Stage.BANK_LOAD, start);
+        }
+    }
+
+    private static BankSnapshot loadCompiled(Path path, ByteBuffer file) throws IOException {
+        List<String> allWords = new ArrayList<String>();
+        long hash = BankCompiler.readWords(file, allWords);
+        int size = allWords.size();
+        return new BankSnapshot(path, hash, allWords,
+                                index -> BankCompiler.readExplanation(file, size, index));
+    }
+
+    private static BankSnapshot parse(Path path, byte[] contents) {
+        List<List<String>> byLength = new ArrayList<List<String>>();
+        for (int length = 0; length <= ClueCode.MAX_LENGTH; length++) {
+            byLength.add(new ArrayList<String>());
+        }
+        List<List<String>> explanationsByLength = new ArrayList<List<String>>();
+        for (int length = 0; length <= ClueCode.MAX_LENGTH; length++) {
+            explanationsByLength.add(new ArrayList<String>());
+        }
+        for (String text : new String(contents, StandardCharsets.UTF_8).split("\r?\n")) {
+            String[] line = text.split(" : ");
+            if (line.length == 2 && 4 <= line[0].length() && line[0].length() <= 6) {
+                String word = line[0].toUpperCase();
+                byLength.get(word.length()).add(word);
+                explanationsByLength.get(word.length()).add(line[1]);
+            }
+        }
+        List<String> allWords = new ArrayList<String>();
+        List<String> explanations = new ArrayList<String>();
+        for (int length = 0; length <= ClueCode.MAX_LENGTH; length++) {
+            allWords.addAll(byLength.get(length));
+            explanations.addAll(explanationsByLength.get(length));
+        }
+        return new BankSnapshot(path, FeedbackMatrix.hash(contents), allWords, explanations::get);
+    }
+
+    /**
+     * Returns the snapshot of {@code bank} currently in use, loading it the first time this is
+     * called.
+     * @return the current snapshot
+     * @throws FileNotFoundException if the file {@code bank} cannot be read
+     */
+    static BankSnapshot current() throws FileNotFoundException {
+        BankSnapshot snapshot = current.get();
+        if (snapshot == null) {
+            current.compareAndSet(null, load(Paths.get(WordBank.BANK_PATH)));
+            snapshot = current.get();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Parses {@code bank} again and, if its contents changed, atomically makes the new snapshot
+     * the current one. Games in progress are not affected, since they hold on to the snapshot
+     * they were started with.
+     * @return whether a new snapshot was swapped in
+     * @throws FileNotFoundException if the file {@code bank} cannot be read
+     */
+    static boolean reload() throws FileNotFoundException {
+        BankSnapshot snapshot = load(Paths.get(WordBank.BANK_PATH));
+        BankSnapshot previous = current.get();
+        if (previous != null && previous.hash == snapshot.hash) return false;
+        return current.compareAndSet(previous, snapshot);
+    }
+
+    /**
+     * Returns the file the snapshot was parsed from.
+     * @return the bank file
+     */
+    Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Returns a 64 bit hash of the contents of the bank file, see {@code FeedbackMatrix.hash()}.
+     * @return the hash of the bank file
+     */
+    long getHash() {
+        return this.hash;
+    }
+
+    /**
+     * Returns every word of the bank, grouped by length (all length 4 words, then length 5, then
+     * length 6) and otherwise in the order they appear in the file.
+     * @return an unmodifiable list of every word
+     */
+    List<String> getAllWords() {
+        return this.allWords;
+    }
+
+    /**
+     * Returns every word of the bank of the specified length, in the order they appear in the
+     * file.
+     * @param length the word length
+     * @return an unmodifiable list of the words of the length
+     */
+    List<String> getWords(int length) {
+        return allWords.subList(lengthStart[length], lengthStart[length + 1]);
+    }
+
+    /**
+     * Returns the flavour text for the word, or {@code null} if it is not in the bank.
+     * @param word the word, in uppercase
+     * @return the flavour text for the word
+     */
+    String getExplanation(String word) {
+        Integer index = wordIndex.get(word);
+        return index == null ? null : explanations.apply(index);
+    }
+}
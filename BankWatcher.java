@@ -0,0 +1,75 @@
+package wordle;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Watches the file {@code bank} and reloads the shared {@code BankSnapshot} when it is modified,
+ * so that words can be added or fixed without restarting. Runs on a single daemon thread that
+ * blocks on a {@code WatchService} for the directory of {@code bank}, so it costs nothing while the
+ * file is left alone. <p>
+ * If the modified file cannot be read, the current snapshot stays in use and the error is printed;
+ * the next modification is tried again. Games already started are not affected by a reload.
+ * @see BankSnapshot
+ */
+final class BankWatcher implements Runnable {
+    private static Thread thread;
+
+    private final WatchService watchService;
+    private final Path bankFile;
+
+    private BankWatcher(WatchService watchService, Path bankFile) {
+        this.watchService = watchService;
+        this.bankFile = bankFile;
+    }
+
+    /**
+     * Starts watching {@code bank} on a daemon thread, unless it is already being watched. Failing
+     * to watch the file is not an error, the bank is then only loaded once.
+     */
+    static synchronized void start() {
+        if (thread != null) return;
+        Path bankPath = Paths.get(WordBank.BANK_PATH).toAbsolutePath();
+        try {
+            WatchService watchService = FileSystems.getDefault().newWatchService();
+            bankPath.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                                          StandardWatchEventKinds.ENTRY_MODIFY);
+            thread = new Thread(new BankWatcher(watchService, bankPath.getFileName()),
+                                "bank-watcher");
+            thread.setDaemon(true);
+            thread.start();
+        } catch (IOException | UnsupportedOperationException e) {
+            System.err.println("Not watching " + WordBank.BANK_PATH + " for changes: " + e);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (bankFile.equals(event.context())) changed = true;
+                }
+                if (changed) {
+                    try {
+                        BankSnapshot.reload();
+                    } catch (IOException e) {
+                        System.err.println("Keeping the current word bank: " + e);
+                    }
+                }
+                if (!key.reset()) return;
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            return;
+        }
+    }
+}
@@ -2,74 +2,44 @@ package wordle;
 
 /**
  * Represents a standard game of Wordle. Inherits from {@code AbstractGame}. <p>
- * Aside from all methods in {@code AbstractGame}, has one constructor: <p>
- * > - {@code BasicGame()} runs a game of Wordle. All output is printed on the terminal, returns 
- * nothing. <p>
+ * Aside from all methods in {@code AbstractGame}, has two constructors: <p>
+ * > - {@code BasicGame()} runs a game of Wordle, either with the specified rules or on an existing
+ * {@code GameSession}. All output is printed on the terminal, returns nothing. The player may ask
+ * for a hint instead of making a guess. <p>
  * Overrides one method: <p>
- * > - {@code giveClue()} prints an interpretation of the {@code Clue} object generated by a guess
- * on the terminal.
+ * > - {@code giveClue()} writes an interpretation of the {@code Clue} object generated by a guess
+ * to the turn output.
  * @see AbstractGame
  */
 class BasicGame extends AbstractGame {
 
     /**
      * Runs a game of Wordle, with the specified solution, maximum guesses allowed and presence
-     * of the mixed length rule. The game takes the following steps: <p>
-     * > 1. The player is prompted to make a guess. <p>
-     * > 2. The guess is stored and used to generate a {@code Clue} object. <p>
-     * > 3. If the guess matches the solution exactly, inform the player that the game is won. <p>
-     * > 4. If not, give the clue, by showing which characters are of correct letter and 
-     * positions, and which are of correct letter but in incorrect positions. <p>
-     * > 5. Repeat from step 1 until the player either wins by matching the solution with a guess, 
-     * or loses by running out of guesses (has made guesses equal to the maximum number of guesses 
-     * allowed). <p>
-     * All output is printed on the terminal, and nothing is returned.
+     * of the mixed length rule, on the terminal. See {@code play()} for the steps of the game. All
+     * output is printed on the terminal, and nothing is returned.
      * @param solution the solution to the game
      * @param guessMax the maximum number of guesses allowed this game
      * @param mixedLength whether or not the mixed length rule is in play
      * @param explanation the flavour text for the solution
-     * @see Clue
+     * @see GameSession
      */
     BasicGame(String solution, int guessMax, boolean mixedLength, String explanation) {
-        this.solution = solution;
-        this.guessMax = guessMax;
-        this.mixedLength = mixedLength;
-        this.explanation = explanation;
-        Clue clue;
+        this(new GameSession(solution, guessMax, mixedLength, false, explanation));
+    }
 
-        System.out.println();
-        System.out.println("--------------------- GAME START ---------------------");
-        System.out.println();
-        while (getGuessCount() <= getGuessMax()) {
-            System.out.println("Guess " + getGuessCount() + " of " + getGuessMax());
-            guess = makeGuess();
-            logUsedLetters(guess);
-            clue = generateClue(guess);
-            if (clue.isExactMatch()) {
-                System.out.println("That is correct! Well done!");
-                System.out.println(getExplanation());
-                System.out.println("You got it in " + getGuessCount() + " guesses.");
-                System.out.println();
-                System.out.println("--------------------- GAME OVER ---------------------");
-                System.out.println();
-                return;
-            } else {
-                giveClue(clue);
-                incrementGuessCount();
-                showUsedLetters();
-                System.out.println();
-            }
-        }
-        System.out.println("You ran out of guesses! Better luck next time.");
-        System.out.println("The solution is " + getSolution() + ".");
-        System.out.println(getExplanation());
-        System.out.println();
-        System.out.println("--------------------- GAME OVER ---------------------");
-        System.out.println();
+    /**
+     * Runs a game of Wordle on the terminal, played on the specified {@code GameSession}. See
+     * {@code play()} for the steps of the game.
+     * @param session the session to play the game on
+     * @see GameSession
+     */
+    BasicGame(GameSession session) {
+        this.session = session;
+        play();
     }
 
     /**
-     * Prints on the terminal an interpretation of the {@code Clue} object provided. Has
+     * Writes to the turn output an interpretation of the {@code Clue} object provided. Has
      * the following components: <p>
      * > - if the game plays by the mixed length rule, show if the guess is of the correct length <p>
      * > - show the characters that are of the correct letter and positions <p>
@@ -78,33 +48,37 @@ class BasicGame extends AbstractGame {
      */
     @Override
     void giveClue(Clue clue) {
-        if (isMixedLength()) {
-            System.out.print("Guess length:                       ");
+        writeClue(turnOutput, guess, clue, isMixedLength());
+    }
+
+    /**
+     * Writes the interpretation of a normal clue, as {@code giveClue()} does, for any game with
+     * normal clues.
+     * @param out where to write
+     * @param guess the guess made, in uppercase
+     * @param clue the clue of the guess
+     * @param mixedLength whether the mixed length rule is in play
+     */
+    static void writeClue(StringBuilder out, String guess, Clue clue, boolean mixedLength) {
+        if (mixedLength) {
+            out.append("Guess length:                       ");
             if (clue.isCorrectLength()) {
-                System.out.println(guess.length() + " is correct!");
+                out.append(guess.length()).append(" is correct!").append(NEWLINE);
             } else {
-                System.out.println("is not " + guess.length());
+                out.append("is not ").append(guess.length()).append(NEWLINE);
             }
         }
 
-        System.out.print("Correct letter and position:        ");
+        out.append("Correct letter and position:        ");
         for (int pos = 0; pos < guess.length(); pos++) {
-            if (clue.isCorrectChar()[pos]) {
-                System.out.print((char) (guess.charAt(pos)));
-            } else {
-                System.out.print('-');
-            }
+            out.append(clue.isCorrectChar(pos) ? guess.charAt(pos) : '-');
         }
-        System.out.println();
+        out.append(NEWLINE);
 
-        System.out.print("Correct letter, incorrect position: ");
+        out.append("Correct letter, incorrect position: ");
         for (int pos = 0; pos < guess.length(); pos++) {
-            if (clue.hasChar()[pos]) {
-                System.out.print((char) (guess.charAt(pos) + 32));
-            } else {
-                System.out.print('-');
-            }
+            out.append(clue.hasChar(pos) ? (char) (guess.charAt(pos) + 32) : '-');
         }
-        System.out.println();
+        out.append(NEWLINE);
     }
 }
@@ -0,0 +1,248 @@
+package wordle;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays a stream of games given as JSON lines, and writes the result of each as a JSON line, for
+ * regression tests and analysis of bulk replays. Each input line is a game: <p>
+ * {@code {"id": "any", "solution": "SPLAT", "mixedLength": false, "blind": false,
+ * "hardMode": false, "guesses": ["SQUID", "SPLAT"]}} <p>
+ * where only {@code solution} and {@code guesses} are required, and {@code id} is echoed back.
+ * Every guess is played on a {@code GameSession} by the same rules as a console game, with the
+ * dictionary if there is one. Each output line holds the line number, the id, the solution, the
+ * rules, every guess (with {@code valid} false and a reason for an invalid guess, or one made after
+ * the game is over, and otherwise its clue as {@code GameServer} writes it), the status and the
+ * number of guesses made. The reason for a guess breaking the hard mode rule names the rule. A
+ * line that is not a valid game gives {@code {"line": n, "error": "..."}}, and blank lines are
+ * skipped. <p>
+ * The games run as a pipeline: a reader thread cuts the input into chunks of
+ * {@code CHUNK_LINES} lines and hands each to a pool of threads, and the results are written in
+ * input order. At most {@code CHUNKS_PER_THREAD} chunks per thread are in flight, so the reader
+ * waits on a slow writer (back-pressure) and memory stays flat however large the input is. <p>
+ * Run {@code main()} with the input file and the output file, each optional or {@code -} for the
+ * standard input and output.
+ * @see GameSession
+ * @see GameServer
+ */
+public class BatchRunner {
+    static final int CHUNK_LINES = 1024;
+    static final int CHUNKS_PER_THREAD = 2;
+
+    /**
+     * Plays every game of the input and writes their results to the output, in order.
+     * @param in the games, one JSON object per line
+     * @param out where the results are written, one JSON object per line
+     * @param threads the number of threads playing games
+     * @param dictionary the words accepted as guesses, or {@code null} to accept any letters
+     * @return the number of lines written
+     * @throws IOException if reading or writing fails
+     * @throws InterruptedException if interrupted while waiting on the pipeline
+     */
+    static long run(Reader in, Writer out, int threads, GuessDictionary dictionary)
+            throws IOException, InterruptedException {
+        BufferedReader reader = new BufferedReader(in);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        BlockingQueue<Future<List<StringBuilder>>> chunks =
+                new ArrayBlockingQueue<Future<List<StringBuilder>>>(threads * CHUNKS_PER_THREAD);
+        Thread readerThread = new Thread(() -> read(reader, pool, chunks, dictionary),
+                                         "batch-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+        long written = 0;
+        try {
+            while (true) {
+                List<StringBuilder> results = chunks.take().get();
+                if (results == null) break;
+                for (StringBuilder result : results) {
+                    out.append(result).append('\n');
+                    written++;
+                }
+            }
+            out.flush();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            readerThread.interrupt();
+            pool.shutdownNow();
+        }
+        return written;
+    }
+
+    /**
+     * Reads the input in chunks, submitting each chunk to the pool and queueing its result in
+     * order, then queues {@code null} at the end of the input, or the failure of the reader.
+     */
+    private static void read(BufferedReader reader, ExecutorService pool,
+                             BlockingQueue<Future<List<StringBuilder>>> chunks,
+                             GuessDictionary dictionary) {
+        try {
+            long lineNumber = 0;
+            while (true) {
+                List<String> lines = new ArrayList<String>(CHUNK_LINES);
+                long firstLine = lineNumber + 1;
+                String line;
+                while (lines.size() < CHUNK_LINES && (line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+                lineNumber += lines.size();
+                if (lines.isEmpty()) {
+                    chunks.put(CompletableFuture.completedFuture(null));
+                    return;
+                }
+                chunks.put(pool.submit(() -> playChunk(lines, firstLine, dictionary)));
+            }
+        } catch (IOException e) {
+            try {
+                // waits for room like any chunk, or the writer would wait for it forever
+                chunks.put(CompletableFuture.failedFuture(new UncheckedIOException(e)));
+            } catch (InterruptedException stopped) {
+                // the writer stopped
+            }
+        } catch (InterruptedException e) {
+            // the writer stopped
+        }
+    }
+
+    private static List<StringBuilder> playChunk(List<String> lines, long firstLine,
+                                                 GuessDictionary dictionary) {
+        List<StringBuilder> results = new ArrayList<StringBuilder>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).trim().isEmpty()) continue;
+            results.add(play(lines.get(i), firstLine + i, dictionary));
+        }
+        return results;
+    }
+
+    /**
+     * Plays the game of one input line and returns its result, as described in the class comment.
+     * @param line the game, as a JSON object
+     * @param lineNumber the number of the line in the input, starting from 1
+     * @param dictionary the words accepted as guesses, or {@code null} to accept any letters
+     * @return the result, as a JSON object
+     */
+    static StringBuilder play(String line, long lineNumber, GuessDictionary dictionary) {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"line\":").append(lineNumber);
+        try {
+            Map<String,Object> game = Json.parseObject(line);
+            Object solution = game.get("solution");
+            Object guesses = game.get("guesses");
+            if (!(solution instanceof String) || !(guesses instanceof List)) {
+                throw new IllegalArgumentException("a game needs a solution and guesses");
+            }
+            String word = ((String) solution).toUpperCase();
+            if (PackedWord.pack(word) == PackedWord.INVALID) {
+                throw new IllegalArgumentException("bad solution");
+            }
+            GameConfig config = GameConfig.DEFAULT.withLength(word.length())
+                    .withBlind(flag(game, "blind"));
+            if (flag(game, "mixedLength")) config = config.withMixedLength();
+            if (flag(game, "hardMode")) config = config.withHardMode(true);
+            GameSession session = new GameSession(config, word, null, dictionary);
+
+            if (game.containsKey("id")) {
+                json.append(",\"id\":");
+                Object id = game.get("id");
+                if (id instanceof String) Json.quote(json, (String) id);
+                else json.append(id instanceof Long || id instanceof Double ? id : null);
+            }
+            json.append(",\"solution\":");
+            Json.quote(json, word);
+            json.append(",\"rules\":{\"mixedLength\":").append(config.isMixedLength())
+                .append(",\"blind\":").append(config.isBlind())
+                .append(",\"hardMode\":").append(config.isHardMode())
+                .append(",\"guessMax\":").append(config.getGuessMax()).append('}');
+            json.append(",\"guesses\":[");
+            List<?> list = (List<?>) guesses;
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0) json.append(',');
+                if (!(list.get(i) instanceof String)) {
+                    throw new IllegalArgumentException("guess " + (i + 1) + " is not a string");
+                }
+                String guess = (String) list.get(i);
+                if (session.isOver()) {
+                    json.append("{\"guess\":");
+                    Json.quote(json, guess).append(",\"valid\":false,\"reason\":\"game over\"}");
+                    continue;
+                }
+                int code = session.play(guess);
+                if (code < 0) {
+                    String violation = session.getHardModeViolation(guess);
+                    json.append("{\"guess\":");
+                    Json.quote(json, guess).append(",\"valid\":false,\"reason\":");
+                    Json.quote(json, violation != null ? "hard mode: " + violation
+                                                       : "invalid guess").append('}');
+                } else {
+                    json.append('{');
+                    GameServer.clueFields(json, session.getGuess(session.getGuessesMade() - 1),
+                                          code, config.isBlind());
+                    json.append(",\"valid\":true}");
+                }
+            }
+            json.append("],\"status\":\"").append(session.getStatus())
+                .append("\",\"guessesMade\":").append(session.getGuessesMade());
+        } catch (IllegalArgumentException e) {
+            json.setLength(0);
+            json.append("{\"line\":").append(lineNumber).append(",\"error\":");
+            Json.quote(json, e.getMessage());
+        }
+        return json.append('}');
+    }
+
+    private static boolean flag(Map<String,Object> game, String key) {
+        Object value = game.get(key);
+        if (value != null && !(value instanceof Boolean)) {
+            throw new IllegalArgumentException("bad " + key);
+        }
+        return Boolean.TRUE.equals(value);
+    }
+
+    /**
+     * Plays a batch of games. Arguments: the input file and the output file, each {@code -} or
+     * left out for the standard input and output. Prints a summary to the standard error.
+     * @param args the input and output files, optional
+     * @throws IOException if reading or writing fails
+     * @throws InterruptedException if interrupted while waiting on the pipeline
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Reader in = args.length > 0 && !args[0].equals("-")
+                ? Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)
+                : new InputStreamReader(System.in, StandardCharsets.UTF_8);
+        Writer out = args.length > 1 && !args[1].equals("-")
+                ? Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8),
+                                     1 << 16);
+        GuessDictionary dictionary = GuessDictionary.shared();
+        long start = System.nanoTime();
+        long games;
+        try (Reader input = in; Writer output = out) {
+            games = run(input, output, Runtime.getRuntime().availableProcessors(), dictionary);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d games in %.2f s (%.0f games/s)%n", games, seconds, games / seconds);
+    }
+}
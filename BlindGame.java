@@ -1,78 +1,54 @@
 package wordle;
 
+import java.io.IOException;
+
 /**
  * Represents a blind game of Wordle (ie instead of clues specifying which characters are of
  * correct letters and positions, and which are of correct letters but in incorrect positions, 
  * clues now only give the respective amounts). Inherits from {@code AbstractGame}. <p>
- * Aside from all methods in {@code AbstractGame}, has one constructor: <p>
- * > - {@code BlindGame()} runs a game of Wordle with the blind clue system. All output is printed
- * on the terminal, returns nothing. <p>
- * Overrides one method: <p>
- * > - {@code giveClue()} prints an interpretation of the {@code Clue} object generated by a guess
- * on the terminal.
+ * Aside from all methods in {@code AbstractGame}, has two constructors: <p>
+ * > - {@code BlindGame()} runs a game of Wordle with the blind clue system, either with the
+ * specified rules or on an existing {@code GameSession}. All output is printed on the terminal,
+ * returns nothing. <p>
+ * Overrides four methods: <p>
+ * > - {@code giveClue()} writes an interpretation of the {@code Clue} object generated by a guess
+ * to the turn output. <p>
+ * > - {@code giveWinMessage()} prints a more enthusiastic message for winning. <p>
+ * > - {@code logGuess()} prunes the possible solutions with the blind clue. <p>
+ * > - {@code giveHint()} gives a hint worked out from the blind clues only.
  * @see AbstractGame
  */
 class BlindGame extends AbstractGame {
+    private BlindSolver blindSolver;
 
     /**
      * Runs a game of Wordle, with the specified solution, maximum guesses allowed, presence of
-     * the mixed length rule, as well as with the blind clue system. The game takes the following
-     * steps: <p>
-     * > 1. The player is prompted to make a guess. <p>
-     * > 2. The guess is stored and used to generate a {@code Clue} object. <p>
-     * > 3. If the guess matches the solution exactly, inform the player that the game is won. <p>
-     * > 4. If not, give the clue, by showing how many characters are of the correct letter and 
-     * positions, and how many are of the correct letter but in incorrect positions. <p>
-     * > 5. Repeat from step 1 until the player either wins by matching the solution with a guess,
-     * or loses by running out of guesses (has made guesses equal to the maximum number of guesses
-     * allowed). <p>
-     * All output is printed on the terminal, and nothing is returned.
+     * the mixed length rule, as well as with the blind clue system, on the terminal. See
+     * {@code play()} for the steps of the game. All output is printed on the terminal, and nothing
+     * is returned.
      * @param solution the solution to the game
      * @param guessMax the maximum number of guesses allowed this game
      * @param mixedLength whether or not the mixed length rule is in play
      * @param explanation the flavour text for the solution
-     * @see Clue
+     * @see GameSession
      */
     BlindGame(String solution, int guessMax, boolean mixedLength, String explanation) {
-        this.solution = solution;
-        this.guessMax = guessMax;
-        this.mixedLength = mixedLength;
-        this.explanation = explanation;
-        Clue clue;
+        this(new GameSession(solution, guessMax, mixedLength, true, explanation));
+    }
 
-        System.out.println();
-        System.out.println("--------------------- GAME START ---------------------");
-        System.out.println();
-        while (getGuessCount() <= getGuessMax()) {
-            System.out.println("Guess " + getGuessCount() + " of " + getGuessMax());
-            guess = makeGuess();
-            logUsedLetters(guess);
-            clue = generateClue(guess);
-            if (clue.isExactMatch()) {
-                System.out.println("That is correct! Amazing!!!");
-                System.out.println(getExplanation());
-                System.out.println("You got it in " + getGuessCount() + " guesses.");
-                System.out.println();
-                System.out.println("--------------------- GAME OVER ---------------------");
-                System.out.println();
-                return;
-            } else {
-                giveClue(clue);
-                incrementGuessCount();
-                showUsedLetters();
-                System.out.println();
-            }
-        }
-        System.out.println("You ran out of guesses! Better luck next time.");
-        System.out.println("The solution is " + getSolution() + ".");
-        System.out.println(getExplanation());
-        System.out.println();
-        System.out.println("--------------------- GAME OVER ---------------------");
-        System.out.println();
+    /**
+     * Runs a game of Wordle on the terminal, played on the specified {@code GameSession}. See
+     * {@code play()} for the steps of the game.
+     * @param session the session to play the game on
+     * @see GameSession
+     */
+    BlindGame(GameSession session) {
+        this.session = session;
+        play();
     }
 
     /**
-     * Prints on the terminal an interpretation of the {@code Clue} object provided. Has the
+     * Writes to the turn output an interpretation of the {@code Clue} object provided. Has the
      * following components: <p>
      * > - if the game plays by the mixed length rule, show if the guess is of the correct length <p>
      * > - show how many characters are of the correct letter and positions <p>
@@ -80,20 +56,77 @@ class BlindGame extends AbstractGame {
      */
     @Override
     void giveClue(Clue clue) {
-        if (isMixedLength()) {
-            System.out.print("Guess length of " + guess.length() + " is ");
-            if (!clue.isCorrectLength()) System.out.print("not");
-            System.out.print(" correct.");
-        }
+        writeClue(turnOutput, guess, clue, isMixedLength());
+    }
 
-        int countCorrectChar = 0;
-        int countHasChar = 0;
-        for (int pos = 0; pos < guess.length(); pos++) {
-            if (clue.isCorrectChar()[pos]) countCorrectChar++;
-            if (clue.hasChar()[pos]) countHasChar++;
+    /**
+     * Writes the interpretation of a blind clue, as {@code giveClue()} does, for any game with
+     * blind clues.
+     * @param out where to write
+     * @param guess the guess made, in uppercase
+     * @param clue the clue of the guess
+     * @param mixedLength whether the mixed length rule is in play
+     */
+    static void writeClue(StringBuilder out, String guess, Clue clue, boolean mixedLength) {
+        if (mixedLength) {
+            out.append("Guess length of ").append(guess.length()).append(" is ");
+            if (!clue.isCorrectLength()) out.append("not");
+            out.append(" correct.");
         }
-        System.out.println(countCorrectChar + " are of the correct letter and positions.");
-        System.out.println(countHasChar + " are of the correct letter but in incorrect positions.");
+
+        out.append(clue.countCorrectChar())
+           .append(" are of the correct letter and positions.").append(NEWLINE);
+        out.append(clue.countHasChar())
+           .append(" are of the correct letter but in incorrect positions.").append(NEWLINE);
+    }
+
+    /**
+     * Prints (on the terminal) the message for winning a blind game.
+     */
+    @Override
+    void giveWinMessage() {
+        System.out.println("That is correct! Amazing!!!");
+    }
+
+    /**
+     * Prunes the possible solutions with the blind clue of a guess just played, if they are being
+     * tracked.
+     * @param guess the guess made
+     * @param clue the {@code Clue} object generated by the guess
+     * @see BlindSolver
+     */
+    @Override
+    void logGuess(String guess, Clue clue) {
+        super.logGuess(guess, clue);
+        if (blindSolver != null) blindSolver.apply(guess, ClueCode.blindCode(clue.getCode()));
     }
 
+    /**
+     * Prints (on the terminal) a recommended next guess, worked out by {@code BlindSolver} from the
+     * blind clues of the game only, along with how many solutions are still possible. The possible
+     * solutions are only tracked from the first hint, which replays the history of the game.
+     * @see BlindSolver
+     */
+    @Override
+    void giveHint() {
+        try {
+            if (blindSolver == null) {
+                blindSolver = new BlindSolver(FeedbackMatrix.shared(), getSolution().length(),
+                                              isMixedLength());
+                for (int turn = 0; turn < session.getGuessesMade(); turn++) {
+                    blindSolver.apply(session.getGuess(turn),
+                                      ClueCode.blindCode(session.getClueCode(turn)));
+                }
+            }
+            int hint = blindSolver.recommend(Solver.DEFAULT_BUDGET_MILLIS);
+            if (hint < 0) {
+                System.out.println("No word in the word bank fits the clues so far.");
+            } else {
+                System.out.println("Hint: try " + blindSolver.getMatrix().getWord(hint) + " ("
+                                + blindSolver.size() + " possible solutions left)");
+            }
+        } catch (IOException e) {
+            System.out.println("Hints are unavailable: " + e.getMessage());
+        }
+    }
 }
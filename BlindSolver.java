@@ -0,0 +1,121 @@
+package wordle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Keeps track of the possible solutions of a blind game, where clues only give how many letters
+ * are correct and how many are present (see {@code ClueCode.blindCode()}). Such clues cannot be
+ * split up by position the way {@code CandidateSet} does, so consistency is checked on the counts
+ * as a whole. <p>
+ * For each guess made, the blind code it gives against every bank word is computed once (with the
+ * feedback matrix, in parallel for large banks) and kept in the history. The surviving candidates
+ * are then pruned to the words whose blind code matches the clue received, so every past guess is
+ * checked exactly once per word rather than being replayed on every turn. <p>
+ * Has the following methods: <p>
+ * > - {@code apply()} records a guess and its blind code, and prunes the candidates. <p>
+ * > - {@code candidates()} returns the indices of the remaining candidates. <p>
+ * > - {@code blindCodeOf()} returns the precomputed blind code of a past guess against a word. <p>
+ * > - {@code recommend()} returns the guess that best splits the candidates into blind code
+ * buckets, found by {@code Solver} in blind mode.
+ * @see Solver
+ * @see ClueCode
+ */
+final class BlindSolver {
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private final FeedbackMatrix matrix;
+    private final int length;
+    private final boolean mixedLength;
+    private final ArrayList<byte[]> history = new ArrayList<byte[]>();
+    private int[] candidates;
+    private int candidateCount;
+
+    /**
+     * Constructor for {@code BlindSolver}, starting with every word of the solution length, or
+     * every word between length 4 and 6 with the mixed length rule.
+     * @param matrix the feedback matrix of the word bank
+     * @param length the length of the solution, ignored with the mixed length rule
+     * @param mixedLength whether the mixed length rule is in play
+     */
+    BlindSolver(FeedbackMatrix matrix, int length, boolean mixedLength) {
+        this.matrix = matrix;
+        this.length = length;
+        this.mixedLength = mixedLength;
+        int start = mixedLength ? matrix.startIndex(4) : matrix.startIndex(length);
+        int end = mixedLength ? matrix.endIndex(6) : matrix.endIndex(length);
+        this.candidates = IntStream.range(start, end).toArray();
+        this.candidateCount = candidates.length;
+    }
+
+    /**
+     * Returns the feedback matrix the solver is built on.
+     * @return the feedback matrix
+     */
+    FeedbackMatrix getMatrix() {
+        return this.matrix;
+    }
+
+    /**
+     * Records the guess and the blind code received for it, then prunes the candidates down to the
+     * words that would have given the same blind code.
+     * @param guess the guess made, in uppercase
+     * @param blindCode the blind code received for the guess
+     * @see ClueCode
+     */
+    void apply(String guess, int blindCode) {
+        int guessIndex = matrix.indexOf(guess);
+        byte[] row = new byte[matrix.size()];
+        IntStream words = IntStream.range(0, row.length);
+        if (row.length >= PARALLEL_THRESHOLD) words = words.parallel();
+        words.forEach(word -> {
+            int code = (guessIndex < 0) ? ClueCode.score(guess, matrix.getWord(word))
+                                        : matrix.code(guessIndex, word);
+            row[word] = (byte) ClueCode.blindCode(code);
+        });
+        history.add(row);
+
+        IntStream survivors = Arrays.stream(candidates, 0, candidateCount);
+        if (candidateCount >= PARALLEL_THRESHOLD) survivors = survivors.parallel();
+        candidates = survivors.filter(word -> row[word] == blindCode).toArray();
+        candidateCount = candidates.length;
+    }
+
+    /**
+     * Returns the blind code the guess made on the specified turn gives against the word.
+     * @param turn the turn of the guess, starting from 0
+     * @param word the index of the word
+     * @return the blind code of the guess against the word
+     */
+    int blindCodeOf(int turn, int word) {
+        return history.get(turn)[word];
+    }
+
+    /**
+     * Returns the indices of the words that are still possible solutions, in increasing order.
+     * @return the indices of the candidates
+     */
+    int[] candidates() {
+        return Arrays.copyOf(candidates, candidateCount);
+    }
+
+    /**
+     * Returns the number of words that are still possible solutions.
+     * @return the number of candidates
+     */
+    int size() {
+        return this.candidateCount;
+    }
+
+    /**
+     * Returns the index of the guess that best splits the candidates into blind code buckets (ie
+     * with the most expected information), or -1 if there are no candidates left.
+     * @param budgetMillis the time budget for the recommendation, in milliseconds
+     * @return the index of the recommended guess, or -1
+     * @see Solver
+     */
+    int recommend(long budgetMillis) {
+        return new Solver(matrix, true).recommend(candidates(), length, mixedLength, budgetMillis);
+    }
+}
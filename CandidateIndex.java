@@ -0,0 +1,134 @@
+package wordle;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Bitmask index over the words of the word bank, used by {@code CandidateSet} to narrow down the
+ * possible solutions of a game with a few {@code long[]} operations per clue. Bit {@code i} of
+ * every mask stands for the word at index {@code i} (the same indices as {@code FeedbackMatrix}).
+ * <p>
+ * Holds the following masks, built once and never modified: <p>
+ * > - {@code lengthMask(length)} the words of each length <p>
+ * > - {@code positionMask(pos, letter)} the words with the letter at the position <p>
+ * > - {@code countMask(letter, count)} the words with at least {@code count} copies of the letter
+ * <p>
+ * A {@code null} mask stands for no words at all, so that letters which never appear in a position
+ * take no memory.
+ * @see CandidateSet
+ * @see FeedbackMatrix
+ */
+final class CandidateIndex {
+    private static CandidateIndex shared;
+
+    private final FeedbackMatrix matrix;
+    private final List<String> words;
+    private final int blocks;
+    private final long[][] lengthMasks = new long[ClueCode.MAX_LENGTH + 1][];
+    private final long[][][] positionMasks = new long[ClueCode.MAX_LENGTH][26][];
+    private final long[][][] countMasks = new long[26][ClueCode.MAX_LENGTH + 1][];
+
+    /**
+     * Constructor for {@code CandidateIndex}, building every mask for the words of the matrix.
+     * @param matrix the feedback matrix whose words to index
+     */
+    CandidateIndex(FeedbackMatrix matrix) {
+        this.matrix = matrix;
+        this.words = matrix.getWords();
+        this.blocks = (words.size() + 63) >>> 6;
+        int[] letterCount = new int[26];
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            set(lengthMasks, word.length(), i);
+            for (int pos = 0; pos < word.length(); pos++) {
+                int letter = word.charAt(pos) - 'A';
+                set(positionMasks[pos], letter, i);
+                letterCount[letter]++;
+                set(countMasks[letter], letterCount[letter], i);
+            }
+            for (int pos = 0; pos < word.length(); pos++) {
+                letterCount[word.charAt(pos) - 'A'] = 0;
+            }
+        }
+    }
+
+    private void set(long[][] masks, int key, int i) {
+        if (masks[key] == null) masks[key] = new long[blocks];
+        masks[key][i >>> 6] |= 1L << i;
+    }
+
+    /**
+     * Returns the candidate index over the words of the shared {@code FeedbackMatrix}, built the
+     * first time this is called and shared by every later caller, until the shared matrix changes.
+     * @return the shared candidate index
+     * @throws IOException if the file {@code bank} cannot be read
+     */
+    static synchronized CandidateIndex shared() throws IOException {
+        FeedbackMatrix matrix = FeedbackMatrix.shared();
+        if (shared == null || shared.matrix != matrix) shared = new CandidateIndex(matrix);
+        return shared;
+    }
+
+    /**
+     * Returns the feedback matrix whose words are indexed, with the same indices.
+     * @return the feedback matrix of the index
+     */
+    FeedbackMatrix getMatrix() {
+        return this.matrix;
+    }
+
+    /**
+     * Returns the number of {@code long}s in every mask.
+     * @return the number of blocks per mask
+     */
+    int blocks() {
+        return this.blocks;
+    }
+
+    /**
+     * Returns the number of words in the index.
+     * @return the number of words
+     */
+    int size() {
+        return words.size();
+    }
+
+    /**
+     * Returns the word at the index.
+     * @param index the index of the word
+     * @return the word at the index
+     */
+    String getWord(int index) {
+        return words.get(index);
+    }
+
+    /**
+     * Returns the mask of words of the specified length, or {@code null} if there are none.
+     * @param length the word length
+     * @return the mask of words of the length
+     */
+    long[] lengthMask(int length) {
+        return length < lengthMasks.length ? lengthMasks[length] : null;
+    }
+
+    /**
+     * Returns the mask of words with the letter at the position, or {@code null} if there are none.
+     * @param pos the position, starting from 0
+     * @param letter the letter, from 0 for A to 25 for Z
+     * @return the mask of words with the letter at the position
+     */
+    long[] positionMask(int pos, int letter) {
+        return positionMasks[pos][letter];
+    }
+
+    /**
+     * Returns the mask of words with at least {@code count} copies of the letter, or {@code null}
+     * if there are none. {@code count} must be at least 1.
+     * @param letter the letter, from 0 for A to 25 for Z
+     * @param count the minimum number of copies
+     * @return the mask of words with at least that many copies of the letter
+     */
+    long[] countMask(int letter, int count) {
+        return count <= ClueCode.MAX_LENGTH ? countMasks[letter][count] : null;
+    }
+}
@@ -0,0 +1,172 @@
+package wordle;
+
+import java.util.Arrays;
+
+/**
+ * The set of bank words that are still possible solutions of a game, narrowed down as clues arrive.
+ * Backed by the masks of a {@code CandidateIndex}: applying a clue is a handful of {@code long[]}
+ * AND operations, with no rescanning of the word list. <p>
+ * Besides the set itself, keeps the letter counts the clues so far have revealed: <p>
+ * > - {@code minCount(letter)} the solution has at least this many copies of the letter <p>
+ * > - {@code maxCount(letter)} the solution has at most this many copies of the letter <p>
+ * A clue narrows the set as follows: <p>
+ * > - if the guess is of the correct length, every word of another length is dropped, otherwise
+ * every word of the length of the guess is dropped <p>
+ * > - a letter marked correct must be at that position, any other letter must not be <p>
+ * > - a letter is in the solution at least as many times as it is marked correct or present, and
+ * exactly that many times if one of its copies in the guess is marked absent <p>
+ * These rules hold whether or not the guess is of the correct length, so they work with the mixed
+ * length rule too, and a word is kept exactly when it would have given the same clues.
+ * @see CandidateIndex
+ * @see ClueCode
+ */
+final class CandidateSet {
+    private final CandidateIndex index;
+    private final long[] alive;
+    private final int[] minCount = new int[26];
+    private final int[] maxCount = new int[26];
+    private final int[] marked = new int[26];
+
+    /**
+     * Constructor for {@code CandidateSet}, starting with every word of the solution length, or
+     * every word between length 4 and 6 with the mixed length rule.
+     * @param index the candidate index of the word bank
+     * @param length the length of the solution, ignored with the mixed length rule
+     * @param mixedLength whether the mixed length rule is in play
+     */
+    CandidateSet(CandidateIndex index, int length, boolean mixedLength) {
+        this.index = index;
+        this.alive = new long[index.blocks()];
+        for (int wordLength = 4; wordLength <= 6; wordLength++) {
+            if (mixedLength || wordLength == length) or(index.lengthMask(wordLength));
+        }
+        Arrays.fill(maxCount, ClueCode.MAX_LENGTH);
+    }
+
+    /**
+     * Narrows the set down to the words that would have given the feedback code for the guess.
+     * @param guess the guess made, in uppercase
+     * @param code the feedback code received for the guess
+     * @see ClueCode
+     */
+    void apply(String guess, int code) {
+        if (ClueCode.isCorrectLength(code)) {
+            and(index.lengthMask(guess.length()));
+        } else {
+            andNot(index.lengthMask(guess.length()));
+        }
+
+        int absentLetters = 0;
+        for (int pos = 0; pos < guess.length(); pos++) {
+            int letter = guess.charAt(pos) - 'A';
+            int mark = ClueCode.markAt(code, pos);
+            if (mark == ClueCode.CORRECT) {
+                and(index.positionMask(pos, letter));
+            } else {
+                andNot(index.positionMask(pos, letter));
+            }
+            if (mark == ClueCode.ABSENT) {
+                absentLetters |= 1 << letter;
+            } else {
+                marked[letter]++;
+            }
+        }
+
+        for (int pos = 0; pos < guess.length(); pos++) {
+            int letter = guess.charAt(pos) - 'A';
+            if (marked[letter] < 0) continue; // already handled
+            if (marked[letter] > minCount[letter]) {
+                minCount[letter] = marked[letter];
+                and(index.countMask(letter, minCount[letter]));
+            }
+            if ((absentLetters & (1 << letter)) != 0 && marked[letter] < maxCount[letter]) {
+                maxCount[letter] = marked[letter];
+                andNot(index.countMask(letter, maxCount[letter] + 1));
+            }
+            marked[letter] = -1;
+        }
+        for (int pos = 0; pos < guess.length(); pos++) {
+            marked[guess.charAt(pos) - 'A'] = 0;
+        }
+    }
+
+    /**
+     * Returns the candidate index the set is backed by.
+     * @return the candidate index of the set
+     */
+    CandidateIndex getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Returns the minimum number of copies of the letter in the solution, given the clues so far.
+     * @param letter the letter, from 0 for A to 25 for Z
+     * @return the minimum number of copies of the letter
+     */
+    int minCount(int letter) {
+        return minCount[letter];
+    }
+
+    /**
+     * Returns the maximum number of copies of the letter in the solution, given the clues so far.
+     * @param letter the letter, from 0 for A to 25 for Z
+     * @return the maximum number of copies of the letter
+     */
+    int maxCount(int letter) {
+        return maxCount[letter];
+    }
+
+    /**
+     * Returns whether the word at the index is still a possible solution.
+     * @param i the index of the word
+     * @return whether the word is still a possible solution
+     */
+    boolean contains(int i) {
+        return (alive[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * Returns the number of words that are still possible solutions.
+     * @return the number of candidates
+     */
+    int size() {
+        int size = 0;
+        for (long block : alive) size += Long.bitCount(block);
+        return size;
+    }
+
+    /**
+     * Returns the indices of the words that are still possible solutions, in increasing order.
+     * @return the indices of the candidates
+     */
+    int[] toArray() {
+        int[] candidates = new int[size()];
+        int count = 0;
+        for (int block = 0; block < alive.length; block++) {
+            long bits = alive[block];
+            while (bits != 0) {
+                candidates[count++] = (block << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return candidates;
+    }
+
+    private void or(long[] mask) {
+        if (mask == null) return;
+        for (int i = 0; i < alive.length; i++) alive[i] |= mask[i];
+    }
+
+    private void and(long[] mask) {
+        if (mask == null) {
+            Arrays.fill(alive, 0);
+            return;
+        }
+        for (int i = 0; i < alive.length; i++) alive[i] &= mask[i];
+    }
+
+    private void andNot(long[] mask) {
+        if (mask == null) return;
+        for (int i = 0; i < alive.length; i++) alive[i] &= ~mask[i];
+    }
+}
@@ -0,0 +1,101 @@
+package wordle;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The possible solutions of every game a {@code Strategy} is playing, kept per game and narrowed
+ * by the clue of each new guess only, so a turn costs one clue rather than a replay of the whole
+ * history. Blind games are tracked with a {@code BlindSolver}, the others with a
+ * {@code CandidateSet}. <p>
+ * Games are held weakly, so a game is forgotten once nothing else refers to it, and one tracker
+ * can follow many games at once on different threads, as long as each game is played by one
+ * thread at a time.
+ * @see EntropyStrategy
+ * @see RandomStrategy
+ */
+final class CandidateTracker {
+    private final FeedbackMatrix matrix;
+    private final CandidateIndex index;
+    private final Map<GameSession,Game> games =
+            Collections.synchronizedMap(new WeakHashMap<GameSession,Game>());
+
+    private static final class Game {
+        final String solution;
+        final BlindSolver blindSolver;
+        final CandidateSet candidates;
+        int turns;
+
+        Game(String solution, BlindSolver blindSolver, CandidateSet candidates) {
+            this.solution = solution;
+            this.blindSolver = blindSolver;
+            this.candidates = candidates;
+        }
+    }
+
+    /**
+     * Constructor for {@code CandidateTracker}.
+     * @param matrix the feedback matrix of the word bank
+     * @param index the candidate index over the same words as the matrix
+     */
+    CandidateTracker(FeedbackMatrix matrix, CandidateIndex index) {
+        this.matrix = matrix;
+        this.index = index;
+    }
+
+    /**
+     * Returns the indices of the words that are still possible solutions of the game, in
+     * increasing order.
+     * @param session the game being played
+     * @return the indices of the candidates
+     */
+    int[] candidates(GameSession session) {
+        Game game = track(session);
+        return session.isBlind() ? game.blindSolver.candidates() : game.candidates.toArray();
+    }
+
+    /**
+     * Returns the index of the guess with the most expected information over the possible
+     * solutions of the game, or -1 if there are none left.
+     * @param session the game being played
+     * @param budgetMillis the time budget for the recommendation, or {@code Solver.NO_BUDGET}
+     * @return the index of the recommended guess, or -1
+     * @see Solver
+     */
+    int recommend(GameSession session, long budgetMillis) {
+        Game game = track(session);
+        if (session.isBlind()) return game.blindSolver.recommend(budgetMillis);
+        return new Solver(matrix).recommend(game.candidates.toArray(),
+                session.getSolution().length(), session.isMixedLength(), budgetMillis);
+    }
+
+    /**
+     * Returns the tracked state of the game, narrowed by the guesses made since it was last
+     * tracked. A game started again with {@code GameSession.reset()} is tracked from scratch.
+     */
+    private Game track(GameSession session) {
+        Game game = games.get(session);
+        if (game == null || game.turns > session.getGuessesMade()
+            || !game.solution.equals(session.getSolution())) {
+            int length = session.getSolution().length();
+            boolean mixedLength = session.isMixedLength();
+            game = session.isBlind()
+                    ? new Game(session.getSolution(),
+                               new BlindSolver(matrix, length, mixedLength), null)
+                    : new Game(session.getSolution(), null,
+                               new CandidateSet(index, length, mixedLength));
+            games.put(session, game);
+        }
+        for (; game.turns < session.getGuessesMade(); game.turns++) {
+            if (game.blindSolver != null) {
+                game.blindSolver.apply(session.getGuess(game.turns),
+                                       ClueCode.blindCode(session.getClueCode(game.turns)));
+            } else {
+                game.candidates.apply(session.getGuess(game.turns),
+                                      session.getClueCode(game.turns));
+            }
+        }
+        return game;
+    }
+}
@@ -1,71 +1,70 @@
 package wordle;
 
 /**
- * Represents a clue given in a Wordle game. The clue is generated upon declaration of the object
- * with the constructor {@code Clue()}, and can be obtained by these methods: <p>
-     * > - {@code isExactMatch()} returns whether the guess exactly matches the solution, thus 
+ * Represents a clue given in a Wordle game. The clue is a thin view over a feedback code from
+ * {@code ClueCode}, generated upon declaration of the object with the constructor {@code Clue()},
+ * and can be obtained by these methods: <p>
+     * > - {@code isExactMatch()} returns whether the guess exactly matches the solution, thus
      * winning the game. <p>
      * > - {@code isCorrectLength()} returns whether the guess has the same length as the solution.
      * This is always true when the mixed length rule is not in play (since a guess otherwise is
      * invalid and would not be allowed to be made). <p>
-     * > - {@code isCorrectChar()} returns an array of booleans (of size equal to the length of the 
-     * guess), where for each letter in the guess, whether it is the correct letter and in the 
-     * correct position. For example, if the guess is "SPILL" and the solution is "SPLAT", this 
+     * > - {@code isCorrectChar()} returns an array of booleans (of size equal to the length of the
+     * guess), where for each letter in the guess, whether it is the correct letter and in the
+     * correct position. For example, if the guess is "SPILL" and the solution is "SPLAT", this
      * returns {@code [true, true, false, false, false]} <p>
      * > - {@code hasChar()} returns an array of booleans (of size equal to the length of the guess),
-     * where for each letter in the guess, whether it is the correct letter but not in the correct 
+     * where for each letter in the guess, whether it is the correct letter but not in the correct
      * position. Note each letter in the solution can only contribute to one {@code true} clue for
-     * each letter in the guess. For example, if the guess is "SPILL" and the solution is "SPLAT", 
-     * this returns {@code [false, false, false, true, false]}
+     * each letter in the guess. For example, if the guess is "SPILL" and the solution is "SPLAT",
+     * this returns {@code [false, false, false, true, false]} <p>
+     * > - {@code isCorrectChar(pos)}, {@code hasChar(pos)}, {@code countCorrectChar()} and
+     * {@code countHasChar()} read the same information without allocating arrays. <p>
+     * > - {@code getCode()} returns the underlying feedback code.
+ * @see ClueCode
  */
 class Clue {
 
-    private boolean isExactMatch, isCorrectLength;
-    private boolean[] isCorrectChar, hasChar;
+    private final int code;
+    private final int length;
 
     /**
-     * Constructor for the {@code Clue} class. The clue is generated here, and can be obtained
-     * by the other methods in the class: <p>
-     * > - {@code isExactMatch()} returns whether the guess exactly matches the solution, thus 
-     * winning the game. <p>
-     * > - {@code isCorrectLength()} returns whether the guess has the same length as the solution.
-     * This is always true when the mixed length rule is not in play (since a guess otherwise is
-     * invalid and would not be allowed to be made). <p>
-     * > - {@code isCorrectChar()} returns an array of booleans (of size equal to the length of the 
-     * guess), where for each letter in the guess, whether it is the correct letter and in the 
-     * correct position. For example, if the guess is "SPILL" and the solution is "SPLAT", this 
-     * returns {@code [true, true, false, false, false]} <p>
-     * > - {@code hasChar()} returns an array of booleans (of size equal to the length of the guess),
-     * where for each letter in the guess, whether it is the correct letter but not in the correct 
-     * position. Note each letter in the solution can only contribute to one {@code true} clue for
-     * each letter in the guess. For example, if the guess is "SPILL" and the solution is "SPLAT", 
-     * this returns {@code [false, false, false, true, false]}
+     * Constructor for the {@code Clue} class. The guess is scored against the solution here with
+     * {@code ClueCode.score()}, and the clue can be obtained by the other methods in the class.
      * @param guess the guess to generate the clue from
      * @param solution the solution of the game
+     * @see ClueCode
      */
     Clue(String guess, String solution) {
-        this.isExactMatch = (guess.equals(solution));
-        this.isCorrectLength = (guess.length() == solution.length());
+        this(score(guess, solution), guess.length());
+    }
 
-        isCorrectChar = new boolean[guess.length()];
-        hasChar = new boolean[guess.length()];
-        boolean[] isCharTaken = new boolean[solution.length()]; 
+    private static int score(String guess, String solution) {
+        long start = Metrics.start();
+        int code = ClueCode.score(guess, solution);
+        Metrics.stop(Metrics.Stage.CLUE, start);
+        return code;
+    }
 
-        for (int posGuess = 0; posGuess<guess.length() && posGuess<solution.length(); posGuess++) {
-            isCorrectChar[posGuess] = (guess.charAt(posGuess) == solution.charAt(posGuess));
-            isCharTaken[posGuess] = isCorrectChar[posGuess];
-        }
+    /**
+     * Constructor for the {@code Clue} class, wrapping a feedback code that has already been
+     * computed (for example looked up from a precomputed table).
+     * @param code the feedback code
+     * @param length the length of the guess the code was generated from
+     * @see ClueCode
+     */
+    Clue(int code, int length) {
+        this.code = code;
+        this.length = length;
+    }
 
-        for (int posGuess = 0; posGuess < guess.length(); posGuess++) {
-            if (!isCorrectChar[posGuess]) {
-                for (int posSol = 0; posSol < solution.length(); posSol++) {
-                    if (!hasChar[posGuess] && !isCharTaken[posSol]) {
-                        hasChar[posGuess] = (guess.charAt(posGuess) == solution.charAt(posSol));
-                        isCharTaken[posSol] = (guess.charAt(posGuess) == solution.charAt(posSol));
-                    }
-                }
-            }
-        }
+    /**
+     * Returns the feedback code this clue is a view over.
+     * @return the feedback code
+     * @see ClueCode
+     */
+    int getCode() {
+        return this.code;
     }
 
     /**
@@ -73,7 +72,7 @@ class Clue {
      * @return whether the guess exactly matches the solution
      */
     boolean isExactMatch() {
-        return this.isExactMatch;
+        return ClueCode.isExactMatch(this.code, this.length);
     }
 
     /**
@@ -82,29 +81,75 @@ class Clue {
      * @return whether the guess is of the same length as the solution
      */
     boolean isCorrectLength() {
-        return this.isCorrectLength;
+        return ClueCode.isCorrectLength(this.code);
+    }
+
+    /**
+     * Returns whether the letter at the specified position of the guess is the correct letter and
+     * in the correct position.
+     * @param pos the position in the guess, starting from 0
+     * @return whether the letter is the correct letter and position
+     */
+    boolean isCorrectChar(int pos) {
+        return ClueCode.isCorrectChar(this.code, pos);
     }
 
     /**
-     * Returns an array of booleans (of size equal to the length of the guess), where for each 
-     * letter in the guess, whether it is the correct letter and in the correct position. For 
-     * example, if the guess is "SPILL" and the solution is "SPLAT", this returns 
-     * {@code [true, true, false, false, false]}
+     * Returns whether the letter at the specified position of the guess is the correct letter but
+     * not in the correct position.
+     * @param pos the position in the guess, starting from 0
+     * @return whether the letter is the correct letter but not the correct position
+     */
+    boolean hasChar(int pos) {
+        return ClueCode.hasChar(this.code, pos);
+    }
+
+    /**
+     * Returns how many letters of the guess are of the correct letter and position.
+     * @return the number of letters of the correct letter and position
+     */
+    int countCorrectChar() {
+        return ClueCode.countCorrectChar(this.code);
+    }
+
+    /**
+     * Returns how many letters of the guess are of the correct letter but in an incorrect position.
+     * @return the number of letters of the correct letter but incorrect position
+     */
+    int countHasChar() {
+        return ClueCode.countHasChar(this.code);
+    }
+
+    /**
+     * Returns an array of booleans (of size equal to the length of the guess), where for each
+     * letter in the guess, whether it is the correct letter and in the correct position. For
+     * example, if the guess is "SPILL" and the solution is "SPLAT", this returns
+     * {@code [true, true, false, false, false]} <p>
+     * A new array is built on every call, prefer {@code isCorrectChar(pos)} on hot paths.
      * @return whether each letter in the guess is the correct letter and position
      */
     boolean[] isCorrectChar() {
-        return this.isCorrectChar;
+        boolean[] isCorrectChar = new boolean[this.length];
+        for (int pos = 0; pos < this.length; pos++) {
+            isCorrectChar[pos] = isCorrectChar(pos);
+        }
+        return isCorrectChar;
     }
 
     /**
-     * Returns an array of booleans (of size equal to the length of the guess), where for each 
+     * Returns an array of booleans (of size equal to the length of the guess), where for each
      * letter in the guess, whether it is the correct letter but not in the correct position. Note
-     * each letter in the solution can only contribute to one {@code true} clue for each letter in 
-     * the guess. For example, if the guess is "SPILL" and the solution is "SPLAT", this returns 
-     * {@code [false, false, false, true, false]}
+     * each letter in the solution can only contribute to one {@code true} clue for each letter in
+     * the guess. For example, if the guess is "SPILL" and the solution is "SPLAT", this returns
+     * {@code [false, false, false, true, false]} <p>
+     * A new array is built on every call, prefer {@code hasChar(pos)} on hot paths.
      * @return whether each letter in the guess is the correct letter but not the correct position
      */
     boolean[] hasChar() {
-        return this.hasChar;
+        boolean[] hasChar = new boolean[this.length];
+        for (int pos = 0; pos < this.length; pos++) {
+            hasChar[pos] = hasChar(pos);
+        }
+        return hasChar;
     }
 }
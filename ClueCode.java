@@ -0,0 +1,354 @@
+package wordle;
+
+/**
+ * Scores a guess against a solution into a single packed {@code int}, called a feedback code,
+ * without allocating any objects. {@code Clue} is a thin view over one of these codes. <p>
+ * A feedback code is laid out as follows: <p>
+ * > - each position of the guess holds one base-3 digit: {@code ABSENT} (0), {@code PRESENT} (1)
+ * or {@code CORRECT} (2), with the first letter of the guess as the least significant digit <p>
+ * > - {@code TRIT_SPACE} (3 to the power of 6) is added if the guess is of the same length as
+ * the solution <p>
+ * Every code therefore lies between 0 and {@code CODE_SPACE - 1}, so codes can be used directly
+ * as array indices, for example to count how many solutions give each clue. <p>
+ * Blind games only reveal how many letters are correct and present, so a feedback code can be
+ * reduced to a blind code with {@code blindCode()}: the number of correct letters times 7, plus the
+ * number of present letters, plus {@code BLIND_TRIT_SPACE} (49) if the guess is of the correct
+ * length. Every blind code lies between 0 and {@code BLIND_CODE_SPACE - 1}. <p>
+ * Guesses and solutions must be uppercase alphabetical words of at most {@code MAX_LENGTH}
+ * letters, which is always the case for words accepted by {@code AbstractGame.isValidGuess()} and
+ * words drawn from {@code WordBank}.
+ * @see Clue
+ */
+final class ClueCode {
+    static final int MAX_LENGTH = 6;
+    static final int ABSENT = 0;
+    static final int PRESENT = 1;
+    static final int CORRECT = 2;
+    static final int TRIT_SPACE = 729;
+    static final int CODE_SPACE = 2 * TRIT_SPACE;
+    static final int BLIND_TRIT_SPACE = 49;
+    static final int BLIND_CODE_SPACE = 2 * BLIND_TRIT_SPACE;
+
+    private static final int[] POW3 = {1, 3, 9, 27, 81, 243, 729};
+    private static final byte[] CORRECT_COUNT = new byte[TRIT_SPACE];
+    private static final byte[] PRESENT_COUNT = new byte[TRIT_SPACE];
+    private static final byte[] BLIND_CODE = new byte[CODE_SPACE];
+
+    static {
+        for (int trits = 0; trits < TRIT_SPACE; trits++) {
+            int rest = trits;
+            for (int pos = 0; pos < MAX_LENGTH; pos++) {
+                if (rest % 3 == CORRECT) CORRECT_COUNT[trits]++;
+                if (rest % 3 == PRESENT) PRESENT_COUNT[trits]++;
+                rest /= 3;
+            }
+            BLIND_CODE[trits] = (byte) blindCode(CORRECT_COUNT[trits],
+                                                 PRESENT_COUNT[trits], false);
+            BLIND_CODE[TRIT_SPACE + trits] = (byte) blindCode(CORRECT_COUNT[trits],
+                                                              PRESENT_COUNT[trits], true);
+        }
+    }
+
+    private ClueCode() {
+    }
+
+    /**
+     * Scores the guess against the solution and returns the feedback code. Follows the same rules
+     * as the original {@code Clue} constructor: letters in the correct position are marked first,
+     * then going through the guess from left to right, each remaining letter is marked as present
+     * only if the solution still has an unmatched copy of that letter. For example, if the guess is
+     * "SPILL" and the solution is "SPLAT", only the first "L" is marked as present. <p>
+     * Instead of scanning the solution for every letter of the guess, the unmatched letters of the
+     * solution are tallied into a per-letter count table, packed 4 bits per letter into two
+     * {@code long}s (letters A-P in one, Q-Z in the other).
+     * @param guess the guess made, in uppercase
+     * @param solution the solution of the game, in uppercase
+     * @return the feedback code of the guess
+     */
+    static int score(CharSequence guess, CharSequence solution) {
+        int guessLength = guess.length();
+        int solutionLength = solution.length();
+        int overlap = Math.min(guessLength, solutionLength);
+        long countsLow = 0, countsHigh = 0;
+        int correctMask = 0;
+        int code = 0;
+
+        for (int pos = 0; pos < overlap; pos++) {
+            char guessChar = guess.charAt(pos);
+            char solutionChar = solution.charAt(pos);
+            if (guessChar == solutionChar) {
+                code += CORRECT * POW3[pos];
+                correctMask |= 1 << pos;
+            } else {
+                int letter = solutionChar - 'A';
+                if (letter < 16) countsLow += 1L << (letter << 2);
+                else countsHigh += 1L << ((letter - 16) << 2);
+            }
+        }
+        for (int pos = overlap; pos < solutionLength; pos++) {
+            int letter = solution.charAt(pos) - 'A';
+            if (letter < 16) countsLow += 1L << (letter << 2);
+            else countsHigh += 1L << ((letter - 16) << 2);
+        }
+
+        for (int pos = 0; pos < guessLength; pos++) {
+            if ((correctMask & (1 << pos)) != 0) continue;
+            int letter = guess.charAt(pos) - 'A';
+            if (letter < 16) {
+                long one = 1L << (letter << 2);
+                if ((countsLow & (0xFL * one)) != 0) {
+                    countsLow -= one;
+                    code += PRESENT * POW3[pos];
+                }
+            } else {
+                long one = 1L << ((letter - 16) << 2);
+                if ((countsHigh & (0xFL * one)) != 0) {
+                    countsHigh -= one;
+                    code += PRESENT * POW3[pos];
+                }
+            }
+        }
+
+        if (guessLength == solutionLength) code += TRIT_SPACE;
+        return code;
+    }
+
+    /**
+     * Scores a guess against a solution, both packed with {@code PackedWord}, and returns the same
+     * feedback code as {@code score(CharSequence, CharSequence)}. The correct letters are found
+     * for every position at once from the {@code XOR} of the two words (see
+     * {@code PackedWord.equalLanes()}), and only the remaining letters go through the per-letter
+     * count table.
+     * @param guess the guess made, packed
+     * @param solution the solution of the game, packed
+     * @return the feedback code of the guess
+     */
+    static int score(long guess, long solution) {
+        long guessLanes = PackedWord.letterLanes(guess);
+        long solutionLanes = PackedWord.letterLanes(solution);
+        long correctLanes = PackedWord.equalLanes(guess, solution) & guessLanes;
+
+        // the letters of the solution left once the correct ones are cleared
+        long countsLow = 0, countsHigh = 0;
+        for (long rest = solution & ~(correctLanes * 0x1F); rest != 0; rest >>>= 5) {
+            int letter = (int) (rest & 0x1F) - 1;
+            if (letter < 0) continue;
+            if (letter < 16) countsLow += 1L << (letter << 2);
+            else countsHigh += 1L << ((letter - 16) << 2);
+        }
+
+        int code = 0;
+        long correct = correctLanes;
+        for (int pos = 0; guess != 0; pos++, guess >>>= 5, correct >>>= 5) {
+            if ((correct & 1) != 0) {
+                code += CORRECT * POW3[pos];
+                continue;
+            }
+            int letter = (int) (guess & 0x1F) - 1;
+            if (letter < 16) {
+                long one = 1L << (letter << 2);
+                if ((countsLow & (0xFL * one)) != 0) {
+                    countsLow -= one;
+                    code += PRESENT * POW3[pos];
+                }
+            } else {
+                long one = 1L << ((letter - 16) << 2);
+                if ((countsHigh & (0xFL * one)) != 0) {
+                    countsHigh -= one;
+                    code += PRESENT * POW3[pos];
+                }
+            }
+        }
+
+        if (Long.bitCount(guessLanes) == Long.bitCount(solutionLanes)) code += TRIT_SPACE;
+        return code;
+    }
+
+    /**
+     * Returns the letter counts of packed words, in the layout of the count table used by
+     * {@code score()}: two {@code long}s per word (letters A-P, then Q-Z), 4 bits per letter. Used
+     * by {@code scoreAll()}, which then only needs to take the correct letters off the counts of
+     * each solution.
+     * @param words the packed words
+     * @return the letter counts of every word, two {@code long}s per word
+     */
+    static long[] letterCounts(long[] words) {
+        long[] counts = new long[2 * words.length];
+        for (int i = 0; i < words.length; i++) {
+            for (long rest = words[i]; rest != 0; rest >>>= 5) {
+                int letter = (int) (rest & 0x1F) - 1;
+                if (letter < 16) counts[2 * i] += 1L << (letter << 2);
+                else counts[2 * i + 1] += 1L << ((letter - 16) << 2);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Scores one packed guess against a range of packed solutions, writing the feedback codes to
+     * {@code codes} from {@code offset} on. Gives the same codes as calling
+     * {@code score(long, long)} for every solution, but the letters of the guess are decoded only
+     * once, and the count table of each solution starts from its precomputed letter counts rather
+     * than being tallied letter by letter. This is the inner loop of building a
+     * {@code FeedbackMatrix}. <p>
+     * The JDK Vector API would allow scoring several solutions per instruction here, but it is
+     * still an incubator module that needs extra flags to compile and run, so this is the scalar
+     * version of the kernel.
+     * @param guess the guess made, packed
+     * @param solutions the packed solutions
+     * @param counts the letter counts of the solutions, from {@code letterCounts()}
+     * @param from the index of the first solution to score
+     * @param to the index after the last solution to score
+     * @param codes the array to write the feedback codes to
+     * @param offset the index in {@code codes} of the code of the first solution
+     */
+    static void scoreAll(long guess, long[] solutions, long[] counts, int from, int to,
+                         short[] codes, int offset) {
+        long guessLanes = PackedWord.letterLanes(guess);
+        int guessLength = Long.bitCount(guessLanes);
+        // the count table entry of every letter of the guess, and which half it is in
+        long[] ones = new long[guessLength];
+        boolean[] high = new boolean[guessLength];
+        for (int pos = 0; pos < guessLength; pos++) {
+            int letter = PackedWord.letterAt(guess, pos);
+            high[pos] = letter >= 16;
+            ones[pos] = 1L << ((letter & 0xF) << 2);
+        }
+
+        for (int solution = from; solution < to; solution++) {
+            long solutionPacked = solutions[solution];
+            long solutionLanes = PackedWord.letterLanes(solutionPacked);
+            long correctLanes = PackedWord.equalLanes(guess, solutionPacked) & guessLanes;
+            long countsLow = counts[2 * solution];
+            long countsHigh = counts[2 * solution + 1];
+            int code = (guessLength == Long.bitCount(solutionLanes)) ? TRIT_SPACE : 0;
+
+            long correct = correctLanes;
+            for (int pos = 0; correct != 0; pos++, correct >>>= 5) {
+                if ((correct & 1) == 0) continue;
+                code += CORRECT * POW3[pos];
+                if (high[pos]) countsHigh -= ones[pos];
+                else countsLow -= ones[pos];
+            }
+            correct = correctLanes;
+            for (int pos = 0; pos < guessLength; pos++, correct >>>= 5) {
+                if ((correct & 1) != 0) continue;
+                long one = ones[pos];
+                if (high[pos]) {
+                    if ((countsHigh & (0xFL * one)) != 0) {
+                        countsHigh -= one;
+                        code += PRESENT * POW3[pos];
+                    }
+                } else if ((countsLow & (0xFL * one)) != 0) {
+                    countsLow -= one;
+                    code += PRESENT * POW3[pos];
+                }
+            }
+            codes[offset + solution - from] = (short) code;
+        }
+    }
+
+    /**
+     * Returns the feedback code given when a guess of the specified length exactly matches the
+     * solution, ie every letter is correct and the length is correct.
+     * @param length the length of the guess
+     * @return the feedback code of an exact match
+     */
+    static int exactMatch(int length) {
+        return TRIT_SPACE + POW3[length] - 1;
+    }
+
+    /**
+     * Returns whether the feedback code is of a guess exactly matching the solution.
+     * @param code the feedback code
+     * @param length the length of the guess
+     * @return whether the guess exactly matches the solution
+     */
+    static boolean isExactMatch(int code, int length) {
+        return code == exactMatch(length);
+    }
+
+    /**
+     * Returns whether the feedback code is of a guess of the same length as the solution.
+     * @param code the feedback code
+     * @return whether the guess is of the same length as the solution
+     */
+    static boolean isCorrectLength(int code) {
+        return code >= TRIT_SPACE;
+    }
+
+    /**
+     * Returns the mark ({@code ABSENT}, {@code PRESENT} or {@code CORRECT}) given to the letter at
+     * the specified position of the guess.
+     * @param code the feedback code
+     * @param pos the position in the guess, starting from 0
+     * @return the mark given to the letter
+     */
+    static int markAt(int code, int pos) {
+        return (code % TRIT_SPACE) / POW3[pos] % 3;
+    }
+
+    /**
+     * Returns whether the letter at the specified position of the guess is the correct letter and
+     * in the correct position.
+     * @param code the feedback code
+     * @param pos the position in the guess, starting from 0
+     * @return whether the letter is correct
+     */
+    static boolean isCorrectChar(int code, int pos) {
+        return markAt(code, pos) == CORRECT;
+    }
+
+    /**
+     * Returns whether the letter at the specified position of the guess is the correct letter but
+     * not in the correct position.
+     * @param code the feedback code
+     * @param pos the position in the guess, starting from 0
+     * @return whether the letter is present elsewhere in the solution
+     */
+    static boolean hasChar(int code, int pos) {
+        return markAt(code, pos) == PRESENT;
+    }
+
+    /**
+     * Returns how many letters of the guess are of the correct letter and position. Looked up from
+     * a precomputed table.
+     * @param code the feedback code
+     * @return the number of correct letters
+     */
+    static int countCorrectChar(int code) {
+        return CORRECT_COUNT[code % TRIT_SPACE];
+    }
+
+    /**
+     * Returns how many letters of the guess are of the correct letter but in an incorrect position.
+     * Looked up from a precomputed table.
+     * @param code the feedback code
+     * @return the number of present letters
+     */
+    static int countHasChar(int code) {
+        return PRESENT_COUNT[code % TRIT_SPACE];
+    }
+
+    /**
+     * Reduces a feedback code to the blind code of the same clue, keeping only the number of
+     * correct and present letters and whether the length is correct. Looked up from a precomputed
+     * table.
+     * @param code the feedback code
+     * @return the blind code of the clue
+     */
+    static int blindCode(int code) {
+        return BLIND_CODE[code];
+    }
+
+    /**
+     * Returns the blind code of a clue with the specified counts.
+     * @param countCorrectChar the number of correct letters
+     * @param countHasChar the number of present letters
+     * @param isCorrectLength whether the guess is of the correct length
+     * @return the blind code of the clue
+     */
+    static int blindCode(int countCorrectChar, int countHasChar, boolean isCorrectLength) {
+        return countCorrectChar * 7 + countHasChar + (isCorrectLength ? BLIND_TRIT_SPACE : 0);
+    }
+}
@@ -0,0 +1,367 @@
+package wordle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * A calendar of daily puzzles: one solution per day for every mode of {@code GameStats} (each
+ * word length or the mixed length rule, with normal or blind clues), the same for every player.
+ * Days follow the UTC calendar. <p>
+ * The calendar is decided by a seed and the contents of the bank. Every mode deals the words of
+ * its length (or of every length) in cycles, shuffled with a {@code Deck}: no word is repeated
+ * until every word has been dealt, and the first word of a cycle is never the last word of the
+ * one before. {@code create()} computes the calendar for years ahead. <p>
+ * The calendar is stored as a compact index file next to {@code bank}: a header, a table of every
+ * word dealt (packed with {@code PackedWord}), then a 2 byte index into the table per day and
+ * mode, whose top bit marks the first day of a cycle. The file is memory-mapped, so looking up
+ * any day reads two values at a computed offset, and needs no scan of the bank. <p>
+ * {@code extend()} recomputes the calendar from a day on, keeping every day before it: when the
+ * bank is edited, {@code shared()} recomputes from tomorrow on with the new words, carrying on the
+ * cycle in progress, so past days (and today) stay as they were; and when fewer than
+ * {@code MIN_YEARS_AHEAD} years are left, the calendar is extended from its end.
+ * @see GameMaster
+ * @see WordBank
+ */
+final class DailySchedule {
+    static final String SCHEDULE_PATH = WordBank.BANK_PATH + ".daily";
+    static final long DEFAULT_SEED = 0x53504C4154L;
+    static final int YEARS_AHEAD = 5;
+    static final int MIN_YEARS_AHEAD = 1;
+    static final int MODES = GameStats.MODES;
+    static final int MAX_WORDS = 0x7FFF;
+
+    private static final char CYCLE_START = 0x8000;
+    private static final int MAGIC = 0x53574453;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+
+    private static DailySchedule shared;
+
+    private final long seed;
+    private final long bankHash;
+    private final long startDay;
+    private final int days;
+    private final LongBuffer words;
+    private final CharBuffer index;
+
+    private DailySchedule(long seed, long bankHash, long startDay, int days, LongBuffer words,
+                          CharBuffer index) {
+        this.seed = seed;
+        this.bankHash = bankHash;
+        this.startDay = startDay;
+        this.days = days;
+        this.words = words;
+        this.index = index;
+    }
+
+    /**
+     * Computes a calendar from the words of a bank snapshot.
+     * @param snapshot the snapshot of the bank
+     * @param seed the seed deciding the calendar
+     * @param start the first day of the calendar
+     * @param end the day after the last day of the calendar
+     * @return the calendar
+     * @throws IllegalArgumentException if the calendar has no day, or the bank has a mode with no
+     * word
+     */
+    static DailySchedule create(BankSnapshot snapshot, long seed, LocalDate start, LocalDate end) {
+        return compute(null, snapshot, seed, start.toEpochDay(), 0,
+                       (int) (end.toEpochDay() - start.toEpochDay()));
+    }
+
+    /**
+     * Recomputes the calendar from a day on with the words of a bank snapshot, keeping every day
+     * before it. The cycle in progress on that day is carried on: the words it already dealt are
+     * not dealt again until the next cycle.
+     * @param snapshot the snapshot of the bank
+     * @param from the first day to recompute, at most the day after the end of the calendar
+     * @param end the day after the last day of the new calendar
+     * @return the new calendar
+     * @throws IllegalArgumentException if {@code from} is after the end of the calendar, or the
+     * bank has a mode with no word
+     */
+    DailySchedule extend(BankSnapshot snapshot, LocalDate from, LocalDate end) {
+        int keep = (int) Math.max(0, from.toEpochDay() - startDay);
+        if (keep > days) throw new IllegalArgumentException("the calendar ends before " + from);
+        return compute(this, snapshot, seed, startDay, keep,
+                       (int) Math.max(end.toEpochDay() - startDay, keep));
+    }
+
+    private static DailySchedule compute(DailySchedule previous, BankSnapshot snapshot, long seed,
+                                         long startDay, int keep, int days) {
+        if (days <= 0) throw new IllegalArgumentException("the calendar has no day");
+        List<Long> table = new ArrayList<Long>();
+        Map<Long,Integer> tableIndex = new HashMap<Long,Integer>();
+        char[] index = new char[MODES * days];
+
+        for (int mode = 0; mode < MODES; mode++) {
+            List<Long> pool = new ArrayList<Long>();
+            for (int length = 4; length <= 6; length++) {
+                if (mode % 4 != 3 && length != mode % 4 + 4) continue;
+                for (String word : snapshot.getWords(length)) pool.add(PackedWord.pack(word));
+            }
+            if (pool.isEmpty()) {
+                throw new IllegalArgumentException("no word for " + GameStats.modeName(mode));
+            }
+
+            // the days kept, and the words dealt in the cycle in progress
+            Set<Long> dealt = new HashSet<Long>();
+            long last = PackedWord.INVALID;
+            for (int day = 0; day < keep; day++) {
+                char entry = previous.index.get(mode * previous.days + day);
+                long word = previous.words.get(entry & MAX_WORDS);
+                if ((entry & CYCLE_START) != 0) dealt.clear();
+                dealt.add(word);
+                last = word;
+                index[mode * days + day] =
+                        (char) ((entry & CYCLE_START) | id(word, table, tableIndex));
+            }
+
+            List<Long> cycle = new ArrayList<Long>();
+            for (long word : pool) {
+                if (!dealt.contains(word)) cycle.add(word);
+            }
+            boolean cycleStart = false;
+            // the last word of the cycle before, if the new one drew it first
+            long held = PackedWord.INVALID;
+            Deck deck = new Deck(cycle.size(), deckSeed(seed, mode, keep));
+            for (int day = keep; day < days; day++) {
+                if (deck.remaining() == 0 && held == PackedWord.INVALID) {
+                    cycle.clear();
+                    cycle.addAll(pool);
+                    deck = new Deck(cycle.size(), deckSeed(seed, mode, day));
+                    cycleStart = true;
+                }
+                long word;
+                try {
+                    if (held != PackedWord.INVALID) {
+                        word = held;
+                        held = PackedWord.INVALID;
+                    } else {
+                        word = cycle.get(deck.draw());
+                        if (cycleStart && word == last && deck.remaining() > 0) {
+                            // dealt on the second day of the cycle instead of the first
+                            held = word;
+                            word = cycle.get(deck.draw());
+                        }
+                    }
+                } catch (EmptyWordBankException e) {
+                    throw new IllegalStateException(e); // unreachable, the deck was just checked
+                }
+                index[mode * days + day] = (char) ((cycleStart || day == 0 ? CYCLE_START : 0)
+                                                   | id(word, table, tableIndex));
+                cycleStart = false;
+                last = word;
+            }
+        }
+
+        long[] packed = new long[table.size()];
+        for (int i = 0; i < packed.length; i++) packed[i] = table.get(i);
+        return new DailySchedule(seed, snapshot.getHash(), startDay, days, LongBuffer.wrap(packed),
+                                 CharBuffer.wrap(index));
+    }
+
+    private static int id(long word, List<Long> table, Map<Long,Integer> tableIndex) {
+        Integer id = tableIndex.get(word);
+        if (id == null) {
+            if (table.size() == MAX_WORDS) {
+                throw new IllegalArgumentException("more than " + MAX_WORDS + " words dealt");
+            }
+            id = table.size();
+            table.add(word);
+            tableIndex.put(word, id);
+        }
+        return id;
+    }
+
+    private static long deckSeed(long seed, int mode, int day) {
+        return new SplittableRandom(seed + mode * 0x100000000L + day).nextLong();
+    }
+
+    /**
+     * Memory-maps a calendar saved with {@code save()}.
+     * @param path the file the calendar was saved to
+     * @return the calendar
+     * @throws IOException if the file cannot be read or is not a calendar
+     */
+    static DailySchedule load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.size() < HEADER_SIZE ? null
+                    : channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header == null || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("not a daily schedule: " + path);
+            }
+            long seed = header.getLong();
+            long bankHash = header.getLong();
+            long startDay = header.getLong();
+            int days = header.getInt();
+            int wordCount = header.getInt();
+            long size = HEADER_SIZE + 8L * wordCount + 2L * MODES * days;
+            if (days <= 0 || wordCount < 0 || channel.size() != size) {
+                throw new IOException("corrupt daily schedule: " + path);
+            }
+            ByteBuffer body = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE,
+                                          size - HEADER_SIZE);
+            LongBuffer words = body.slice().limit(8 * wordCount).asLongBuffer();
+            CharBuffer index = body.position(8 * wordCount).slice().asCharBuffer();
+            return new DailySchedule(seed, bankHash, startDay, days, words, index);
+        }
+    }
+
+    /**
+     * Saves the calendar to a file, through a temporary file so that a concurrent reader never
+     * sees a partially written calendar.
+     * @param path the file to save the calendar to
+     * @throws IOException if the file cannot be written
+     */
+    void save(Path path) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 8 * words.limit()
+                                                    + 2 * index.limit());
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(seed).putLong(bankHash).putLong(startDay)
+                  .putInt(days).putInt(words.limit());
+            for (int i = 0; i < words.limit(); i++) buffer.putLong(words.get(i));
+            for (int i = 0; i < index.limit(); i++) buffer.putChar(index.get(i));
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the calendar saved next to {@code bank}, loaded the first time this is called. If
+     * there is none, one is created from today for {@code YEARS_AHEAD} years. If the bank was
+     * edited since, it is recomputed from tomorrow on, and if fewer than {@code MIN_YEARS_AHEAD}
+     * years are left, it is extended from its end; either way it is saved again. Failing to save
+     * is not an error, the calendar is returned regardless, and recomputed the same way next time.
+     * @return the shared calendar
+     * @throws IOException if the file {@code bank} or the saved calendar cannot be read
+     */
+    static synchronized DailySchedule shared() throws IOException {
+        BankSnapshot snapshot = BankSnapshot.current();
+        LocalDate today = today();
+        DailySchedule schedule = shared;
+        Path path = Paths.get(SCHEDULE_PATH);
+        if (schedule == null && Files.isRegularFile(path)) schedule = load(path);
+
+        DailySchedule updated = schedule;
+        if (schedule == null) {
+            updated = create(snapshot, DEFAULT_SEED, today, today.plusYears(YEARS_AHEAD));
+        } else if (schedule.bankHash != snapshot.getHash()) {
+            LocalDate end = schedule.getEnd().isAfter(today.plusYears(YEARS_AHEAD))
+                    ? schedule.getEnd() : today.plusYears(YEARS_AHEAD);
+            LocalDate from = today.plusDays(1).isAfter(schedule.getEnd())
+                    ? schedule.getEnd() : today.plusDays(1);
+            updated = schedule.extend(snapshot, from, end);
+        } else if (schedule.getEnd().isBefore(today.plusYears(MIN_YEARS_AHEAD))) {
+            updated = schedule.extend(snapshot, schedule.getEnd(), today.plusYears(YEARS_AHEAD));
+        }
+        if (updated != schedule) {
+            try {
+                updated.save(path);
+            } catch (IOException e) {
+                // the calendar is computed the same way from the same bank next time
+            }
+        }
+        shared = updated;
+        return shared;
+    }
+
+    /**
+     * Returns today's date in UTC, the calendar every player shares.
+     * @return today's date
+     */
+    static LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+
+    /**
+     * Returns the solution of the day for the rules, or {@code null} if the day is not in the
+     * calendar. Only the word length (or mixed length rule) and whether clues are blind pick the
+     * solution.
+     * @param date the day
+     * @param config the rules of the game
+     * @return the solution of the day, in uppercase, or {@code null}
+     */
+    String getSolution(LocalDate date, GameConfig config) {
+        long day = date.toEpochDay() - startDay;
+        if (day < 0 || day >= days) return null;
+        int mode = GameStats.mode(config.getLength(), config.isMixedLength(), config.isBlind());
+        char entry = index.get(mode * days + (int) day);
+        return PackedWord.unpack(words.get(entry & MAX_WORDS));
+    }
+
+    /**
+     * Returns the number of the puzzle of the day, 1 for the first day of the calendar.
+     * @param date the day
+     * @return the number of the puzzle of the day
+     */
+    long getNumber(LocalDate date) {
+        return date.toEpochDay() - startDay + 1;
+    }
+
+    /**
+     * Returns the first day of the calendar.
+     * @return the first day
+     */
+    LocalDate getStart() {
+        return LocalDate.ofEpochDay(startDay);
+    }
+
+    /**
+     * Returns the day after the last day of the calendar.
+     * @return the end of the calendar
+     */
+    LocalDate getEnd() {
+        return LocalDate.ofEpochDay(startDay + days);
+    }
+
+    /**
+     * Returns the hash of the bank contents the calendar was last computed from.
+     * @return the hash of the bank
+     */
+    long getBankHash() {
+        return this.bankHash;
+    }
+
+    /**
+     * Prints the solution of every mode on a day. Arguments: the day, as {@code 2024-01-31},
+     * today if left out.
+     * @param args the day, optional
+     * @throws IOException if the file {@code bank} or the saved calendar cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        DailySchedule schedule = shared();
+        LocalDate date = args.length > 0 ? LocalDate.parse(args[0]) : today();
+        System.out.println("Daily puzzle #" + schedule.getNumber(date) + " of " + date
+                           + " (calendar " + schedule.getStart() + " to " + schedule.getEnd()
+                           + ")");
+        for (int mode = 0; mode < MODES; mode++) {
+            boolean mixed = mode % 4 == 3;
+            GameConfig config = (mixed ? GameConfig.DEFAULT.withMixedLength()
+                    : GameConfig.DEFAULT.withLength(mode % 4 + 4)).withBlind(mode >= 4);
+            System.out.println(GameStats.modeName(mode) + ": "
+                               + schedule.getSolution(date, config));
+        }
+    }
+}
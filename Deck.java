@@ -0,0 +1,96 @@
+package wordle;
+
+import java.util.HashMap;
+import java.util.SplittableRandom;
+
+/**
+ * A shuffled deck of the indices {@code 0} to {@code size - 1}, dealt one at a time without
+ * repeats. The shuffle is a Fisher-Yates shuffle done lazily, one step per draw: drawing swaps a
+ * random index from the undealt part of the deck to the cursor and deals it, so every draw takes
+ * constant time. <p>
+ * The deck is never stored as an array. Only the positions that hold something other than their
+ * own index (at most one per draw) are kept in a map, so a deck takes memory in proportion to how
+ * much of it was dealt, and thousands of decks over a large bank stay cheap. <p>
+ * The order of the deck is decided by its seed alone, so a deck is saved as its seed and cursor,
+ * and {@code Deck(size, seed, cursor)} deals the rest of it exactly as the original would have.
+ * @see WordBank
+ */
+final class Deck {
+    private final int size;
+    private final long seed;
+    private final SplittableRandom random;
+    private final HashMap<Integer,Integer> displaced = new HashMap<Integer,Integer>();
+    private int cursor;
+
+    /**
+     * Constructor for {@code Deck}, with nothing dealt yet.
+     * @param size the number of indices in the deck
+     * @param seed the seed deciding the order of the deck
+     */
+    Deck(int size, long seed) {
+        this.size = size;
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Constructor for {@code Deck}, resuming a deck of the same size and seed after
+     * {@code cursor} draws, by replaying them.
+     * @param size the number of indices in the deck
+     * @param seed the seed deciding the order of the deck
+     * @param cursor the number of indices already dealt
+     */
+    Deck(int size, long seed, int cursor) {
+        this(size, seed);
+        for (int i = 0; i < Math.min(cursor, size); i++) deal();
+    }
+
+    /**
+     * Deals the next index of the deck. Throws {@code EmptyWordBankException} instead if every
+     * index has been dealt.
+     * @return the next index
+     * @throws EmptyWordBankException if the deck is empty
+     */
+    int draw() throws EmptyWordBankException {
+        if (cursor == size) throw new EmptyWordBankException();
+        return deal();
+    }
+
+    private int deal() {
+        int pick = cursor + random.nextInt(size - cursor);
+        int dealt = valueAt(pick);
+        if (pick != cursor) displaced.put(pick, valueAt(cursor));
+        displaced.remove(cursor);
+        cursor++;
+        return dealt;
+    }
+
+    private int valueAt(int pos) {
+        Integer value = displaced.get(pos);
+        return value == null ? pos : value;
+    }
+
+    /**
+     * Returns the number of indices not dealt yet.
+     * @return the number of indices left
+     */
+    int remaining() {
+        return size - cursor;
+    }
+
+    /**
+     * Returns the number of indices dealt so far.
+     * @return the cursor of the deck
+     */
+    int getCursor() {
+        return this.cursor;
+    }
+
+    /**
+     * Returns the seed deciding the order of the deck.
+     * @return the seed of the deck
+     */
+    long getSeed() {
+        return this.seed;
+    }
+}
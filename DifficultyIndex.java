@@ -0,0 +1,335 @@
+package wordle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * A precomputed difficulty rating of every word in the bank, for every mode of {@code GameStats}
+ * (each word length or the mixed length rule, with normal or blind clues), so that solutions can
+ * be dealt by difficulty. A word is rated in a mode on: <p>
+ * > - the guesses the reference solver needs to find it, ie {@code EntropyStrategy} with
+ * {@code Solver.NO_BUDGET}, which is deterministic, or the guesses allowed plus one if it loses.
+ * <p>
+ * > - the rarity of its letters: the average information (in bits) of its letters over every
+ * letter of the bank, plus {@code REPEAT_BITS} for each repeated letter, as a repeated letter
+ * reveals nothing new. <p>
+ * The score is the guesses plus {@code RARITY_WEIGHT} times the rarity, so the rarity mostly
+ * orders the words the solver finds in the same number of guesses. The words of each mode are
+ * then split into thirds by score: {@code EASY}, {@code MEDIUM} and {@code HARD}. <p>
+ * Rating is an offline job, run with {@code main()}: the games are played in parallel on the
+ * fork-join common pool, and only the words missing from the index saved before are played, so
+ * editing the bank only rates the new words. The words kept are not played again, although the
+ * solver might now need a different number of guesses with other words around them; the rarity
+ * and the thirds are always worked out again, as they take no game. {@code --full} plays every
+ * word. <p>
+ * The index is saved as a sidecar file next to {@code bank}: a header, then a fixed size entry
+ * per word (the word packed with {@code PackedWord}, its rarity, then its guesses and level in
+ * every mode). Dealing a solution only reads the levels, nothing is computed at draw time.
+ * @see WordBank
+ * @see EntropyStrategy
+ * @see Simulator
+ */
+public final class DifficultyIndex {
+    /**
+     * The difficulty of a word in a mode, or {@code ANY} for no difficulty.
+     */
+    enum Level { ANY, EASY, MEDIUM, HARD }
+
+    static final String INDEX_PATH = WordBank.BANK_PATH + ".difficulty";
+    static final int MODES = GameStats.MODES;
+    static final double RARITY_WEIGHT = 0.1;
+    static final double REPEAT_BITS = 1;
+
+    private static final int MAGIC = 0x53574449;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int ENTRY_SIZE = 12 + 2 * MODES;
+
+    private static DifficultyIndex shared;
+
+    private final long bankHash;
+    private final long[] words;
+    private final float[] rarity;
+    // per word and mode (word * MODES + mode): the guesses needed, or 0 if not in the mode
+    private final byte[] guesses;
+    private final byte[] levels;
+    private final Map<Long,Integer> rows;
+    private final int played;
+
+    private DifficultyIndex(long bankHash, long[] words, float[] rarity, byte[] guesses,
+                            byte[] levels, int played) {
+        this.bankHash = bankHash;
+        this.words = words;
+        this.rarity = rarity;
+        this.guesses = guesses;
+        this.levels = levels;
+        this.played = played;
+        this.rows = new HashMap<Long,Integer>(2 * words.length);
+        for (int row = 0; row < words.length; row++) rows.put(words[row], row);
+    }
+
+    /**
+     * Rates every word of the bank in every mode it can be the solution of, playing only the
+     * words the previous index has no rating for.
+     * @param candidates the candidate index over the words of the bank
+     * @param bankHash the hash of the bank contents the words were read from
+     * @param previous the index saved before, or {@code null} to play every word
+     * @return the index
+     */
+    static DifficultyIndex build(CandidateIndex candidates, long bankHash,
+                                 DifficultyIndex previous) {
+        FeedbackMatrix matrix = candidates.getMatrix();
+        int count = matrix.size();
+        long[] words = new long[count];
+        byte[] guesses = new byte[count * MODES];
+        List<Integer> jobs = new ArrayList<Integer>();
+        for (int word = 0; word < count; word++) {
+            words[word] = PackedWord.pack(matrix.getWord(word));
+            Integer row = previous == null ? null : previous.rows.get(words[word]);
+            for (int mode = 0; mode < MODES; mode++) {
+                if (!inMode(matrix.getWord(word).length(), mode)) continue;
+                if (row != null && previous.guesses[row * MODES + mode] != 0) {
+                    guesses[word * MODES + mode] = previous.guesses[row * MODES + mode];
+                } else {
+                    jobs.add(word * MODES + mode);
+                }
+            }
+        }
+
+        Strategy strategy = new EntropyStrategy(matrix, candidates, Solver.NO_BUDGET);
+        IntStream.range(0, jobs.size()).parallel().forEach(i -> {
+            int job = jobs.get(i);
+            guesses[job] = (byte) play(config(job % MODES), matrix.getWord(job / MODES), strategy);
+        });
+
+        float[] rarity = rarity(matrix);
+        byte[] levels = new byte[count * MODES];
+        for (int mode = 0; mode < MODES; mode++) {
+            List<Integer> pool = new ArrayList<Integer>();
+            for (int word = 0; word < count; word++) {
+                if (guesses[word * MODES + mode] != 0) pool.add(word);
+            }
+            final int m = mode;
+            pool.sort(Comparator.comparingDouble((Integer word) -> score(guesses[word * MODES + m],
+                                                                          rarity[word]))
+                                .thenComparing(word -> matrix.getWord(word)));
+            for (int rank = 0; rank < pool.size(); rank++) {
+                int level = Level.EASY.ordinal() + 3 * rank / pool.size();
+                levels[pool.get(rank) * MODES + mode] = (byte) level;
+            }
+        }
+        return new DifficultyIndex(bankHash, words, rarity, guesses, levels, jobs.size());
+    }
+
+    private static boolean inMode(int length, int mode) {
+        return mode % 4 == 3 || length == mode % 4 + 4;
+    }
+
+    private static GameConfig config(int mode) {
+        boolean mixed = mode % 4 == 3;
+        return (mixed ? GameConfig.DEFAULT.withMixedLength()
+                : GameConfig.DEFAULT.withLength(mode % 4 + 4)).withBlind(mode >= 4);
+    }
+
+    private static int play(GameConfig config, String solution, Strategy strategy) {
+        GameSession session = new GameSession(config, solution, null, null);
+        // unused by a deterministic strategy, but kept fixed all the same
+        SplittableRandom random = new SplittableRandom(solution.hashCode());
+        while (!session.isOver()) {
+            if (session.play(strategy.nextGuess(session, random)) < 0) {
+                throw new IllegalStateException(strategy.getName()
+                        + " made an invalid guess against " + solution);
+            }
+        }
+        return session.getStatus() == GameSession.Status.WON ? session.getGuessesMade()
+                                                             : config.getGuessMax() + 1;
+    }
+
+    private static float[] rarity(FeedbackMatrix matrix) {
+        int[] letterCounts = new int[26];
+        int total = 0;
+        for (int word = 0; word < matrix.size(); word++) {
+            String text = matrix.getWord(word);
+            for (int pos = 0; pos < text.length(); pos++) letterCounts[text.charAt(pos) - 'A']++;
+            total += text.length();
+        }
+        float[] rarity = new float[matrix.size()];
+        for (int word = 0; word < matrix.size(); word++) {
+            String text = matrix.getWord(word);
+            double bits = 0;
+            int letters = 0;
+            int repeats = 0;
+            for (int pos = 0; pos < text.length(); pos++) {
+                int letter = text.charAt(pos) - 'A';
+                bits -= Math.log((double) letterCounts[letter] / total) / Math.log(2);
+                if ((letters & (1 << letter)) != 0) repeats++;
+                letters |= 1 << letter;
+            }
+            rarity[word] = (float) (bits / text.length() + REPEAT_BITS * repeats);
+        }
+        return rarity;
+    }
+
+    private static double score(int guesses, float rarity) {
+        return guesses + RARITY_WEIGHT * rarity;
+    }
+
+    /**
+     * Reads an index saved with {@code save()}.
+     * @param path the file the index was saved to
+     * @return the index
+     * @throws IOException if the file cannot be read or is not an index
+     */
+    static DifficultyIndex load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.size() < HEADER_SIZE ? null
+                    : channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer == null || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("not a difficulty index: " + path);
+            }
+            long bankHash = buffer.getLong();
+            int count = buffer.getInt();
+            buffer.getInt();
+            if (count < 0 || channel.size() != HEADER_SIZE + (long) ENTRY_SIZE * count) {
+                throw new IOException("corrupt difficulty index: " + path);
+            }
+            long[] words = new long[count];
+            float[] rarity = new float[count];
+            byte[] guesses = new byte[count * MODES];
+            byte[] levels = new byte[count * MODES];
+            for (int row = 0; row < count; row++) {
+                words[row] = buffer.getLong();
+                rarity[row] = buffer.getFloat();
+                buffer.get(guesses, row * MODES, MODES);
+                buffer.get(levels, row * MODES, MODES);
+            }
+            return new DifficultyIndex(bankHash, words, rarity, guesses, levels, 0);
+        }
+    }
+
+    /**
+     * Saves the index to a file, through a temporary file so that a concurrent reader never sees
+     * a partially written index.
+     * @param path the file to save the index to
+     * @throws IOException if the file cannot be written
+     */
+    void save(Path path) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + ENTRY_SIZE * words.length);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(bankHash).putInt(words.length).putInt(0);
+            for (int row = 0; row < words.length; row++) {
+                buffer.putLong(words[row]).putFloat(rarity[row]);
+                buffer.put(guesses, row * MODES, MODES).put(levels, row * MODES, MODES);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the index saved next to {@code bank}, read the first time this is called. The index
+     * is never rated here, see {@code main()}.
+     * @return the shared index
+     * @throws IOException if there is no saved index, or it cannot be read
+     */
+    static synchronized DifficultyIndex shared() throws IOException {
+        if (shared == null) shared = load(Paths.get(INDEX_PATH));
+        return shared;
+    }
+
+    /**
+     * Returns the difficulty of a word when it is the solution of a game with the rules, or
+     * {@code ANY} if the word was not rated. Only the word length (or mixed length rule) and
+     * whether clues are blind pick the mode.
+     * @param word the word, in uppercase
+     * @param config the rules of the game
+     * @return the difficulty of the word
+     */
+    Level getLevel(String word, GameConfig config) {
+        Integer row = rows.get(PackedWord.pack(word));
+        if (row == null) return Level.ANY;
+        int mode = GameStats.mode(config.getLength(), config.isMixedLength(), config.isBlind());
+        return Level.values()[levels[row * MODES + mode]];
+    }
+
+    /**
+     * Returns the hash of the bank contents the index was rated from.
+     * @return the hash of the bank
+     */
+    long getBankHash() {
+        return this.bankHash;
+    }
+
+    /**
+     * Returns the number of games played to build the index, 0 if it was read from a file.
+     * @return the number of games played
+     */
+    int getPlayed() {
+        return this.played;
+    }
+
+    /**
+     * Rates the words of the bank and saves the index next to {@code bank}, then prints the
+     * average guesses and rarity of each difficulty in every mode. Only the words the saved
+     * index has no rating for are played, unless the argument {@code --full} is given.
+     * @param args {@code --full} to play every word, optional
+     * @throws IOException if the file {@code bank} cannot be read, or the index cannot be saved
+     */
+    public static void main(String[] args) throws IOException {
+        BankSnapshot snapshot = BankSnapshot.current();
+        CandidateIndex candidates = CandidateIndex.shared();
+        Path path = Paths.get(INDEX_PATH);
+        DifficultyIndex previous = null;
+        if (!Arrays.asList(args).contains("--full") && Files.isRegularFile(path)) {
+            try {
+                previous = load(path);
+            } catch (IOException e) {
+                System.out.println("The saved index cannot be read, rating every word.");
+            }
+        }
+
+        long start = System.nanoTime();
+        DifficultyIndex index = build(candidates, snapshot.getHash(), previous);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        index.save(path);
+        System.out.printf("Rated %d words, played %d games in %.2f s%n", index.words.length,
+                          index.played, seconds);
+
+        for (int mode = 0; mode < MODES; mode++) {
+            StringBuilder line = new StringBuilder(GameStats.modeName(mode)).append(':');
+            for (int level = Level.EASY.ordinal(); level <= Level.HARD.ordinal(); level++) {
+                int words = 0;
+                double totalGuesses = 0, totalRarity = 0;
+                for (int row = 0; row < index.words.length; row++) {
+                    if (index.levels[row * MODES + mode] != level) continue;
+                    words++;
+                    totalGuesses += index.guesses[row * MODES + mode];
+                    totalRarity += index.rarity[row];
+                }
+                line.append(String.format(" %s %d words %.2f guesses %.2f bits;",
+                        Level.values()[level].name().toLowerCase(), words,
+                        words == 0 ? 0 : totalGuesses / words,
+                        words == 0 ? 0 : totalRarity / words));
+            }
+            System.out.println(line);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package wordle;
+
+import java.util.SplittableRandom;
+
+/**
+ * Plays the guess recommended by {@code Solver} (or {@code BlindSolver} in blind games), ie the
+ * one with the most expected information over the remaining candidates. The candidates of each
+ * game are kept by a {@code CandidateTracker}, and narrowed by the newest clue on every turn. With
+ * {@code Solver.NO_BUDGET} the strategy is deterministic.
+ * @see Solver
+ * @see CandidateTracker
+ */
+final class EntropyStrategy implements Strategy {
+    private final FeedbackMatrix matrix;
+    private final CandidateTracker tracker;
+    private final long budgetMillis;
+
+    /**
+     * Constructor for {@code EntropyStrategy}.
+     * @param matrix the feedback matrix of the word bank
+     * @param index the candidate index over the same words as the matrix
+     * @param budgetMillis the time budget for each recommendation, or {@code Solver.NO_BUDGET}
+     */
+    EntropyStrategy(FeedbackMatrix matrix, CandidateIndex index, long budgetMillis) {
+        this.matrix = matrix;
+        this.tracker = new CandidateTracker(matrix, index);
+        this.budgetMillis = budgetMillis;
+    }
+
+    @Override
+    public String nextGuess(GameSession session, SplittableRandom random) {
+        int guess = tracker.recommend(session, budgetMillis);
+        return guess < 0 ? Strategy.fallbackGuess(matrix, session.getSolution().length())
+                         : matrix.getWord(guess);
+    }
+
+    @Override
+    public String getName() {
+        return "entropy";
+    }
+}
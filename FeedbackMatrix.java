@@ -0,0 +1,283 @@
+package wordle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Precomputed feedback codes (see {@code ClueCode}) for every guess and solution pair of words in
+ * the word bank, including pairs of different lengths for the mixed length rule. Once loaded, every
+ * clue between two bank words is a single read from the matrix. <p>
+ * Words are indexed in the order of {@code BankSnapshot.getAllWords()}, so the words of each length
+ * take up one contiguous range of indices, given by {@code startIndex()} and {@code endIndex()}.
+ * <p>
+ * Has the following methods: <p>
+ * > - {@code load()} returns the matrix for a bank snapshot, memory-mapping the cache file next to
+ * the bank file if it is up to date, or building the matrix in parallel and writing the cache file
+ * otherwise. <p>
+ * > - {@code build()} builds the matrix in parallel without touching any files. <p>
+ * > - {@code code()} returns the feedback code for a pair of word indices. <p>
+ * > - {@code indexOf()}, {@code getWord()}, {@code getWords()}, {@code size()} map between words
+ * and indices.
+ * <p>
+ * The cache file holds a header (magic number, {@code VERSION}, a hash of the contents of
+ * {@code bank} and the number of words) followed by one {@code short} per pair, row by row. It is
+ * rebuilt whenever the version, the bank hash or the number of words do not match. <p>
+ * The codes are held in one array, or one mapping of the cache file, so a matrix holds at most
+ * {@code MAX_WORDS} words (2 GB of codes); a larger bank is refused before anything is built.
+ * @see ClueCode
+ * @see BankSnapshot
+ */
+final class FeedbackMatrix {
+    static final int VERSION = 1;
+    static final String CACHE_SUFFIX = ".matrix";
+    static final int MAX_WORDS = 32767;
+
+    private static final int MAGIC = 0x5357464D;
+    private static final int HEADER_SIZE = 24;
+
+    private static FeedbackMatrix shared;
+    private static BankSnapshot sharedSnapshot;
+
+    private final List<String> words;
+    private final HashMap<String,Integer> wordIndex = new HashMap<String,Integer>();
+    private final int[] lengthStart = new int[ClueCode.MAX_LENGTH + 2];
+    private final int size;
+    private final ShortBuffer codes;
+
+    private FeedbackMatrix(List<String> words, ShortBuffer codes) {
+        this.words = words;
+        this.size = words.size();
+        this.codes = codes;
+        for (int i = size - 1; i >= 0; i--) {
+            wordIndex.put(words.get(i), i);
+        }
+        for (int length = 0; length < lengthStart.length; length++) {
+            int start = 0;
+            while (start < size && words.get(start).length() < length) start++;
+            lengthStart[length] = start;
+        }
+    }
+
+    /**
+     * Returns the feedback matrix for the words of a bank snapshot. If the cache file next to the
+     * bank file was built from the same bank contents with the same {@code VERSION}, it is
+     * memory-mapped and nothing is computed. Otherwise the matrix is built in parallel and written
+     * to the cache file for the next run. Failing to write the cache file is not an error, the
+     * built matrix is returned regardless.
+     * @param snapshot the snapshot of the bank to build the matrix from
+     * @return the feedback matrix for the words of the bank
+     * @throws IOException if the cache file exists but cannot be read, or the bank has more than
+     * {@code MAX_WORDS} words
+     */
+    static FeedbackMatrix load(BankSnapshot snapshot) throws IOException {
+        Path cachePath = Paths.get(snapshot.getPath() + CACHE_SUFFIX);
+        List<String> words = snapshot.getAllWords();
+        long bankHash = snapshot.getHash();
+        if (words.size() > MAX_WORDS) throw new IOException(tooLarge(words.size()));
+
+        if (Files.isRegularFile(cachePath)) {
+            try (FileChannel channel = FileChannel.open(cachePath, StandardOpenOption.READ)) {
+                long expectedSize = HEADER_SIZE + 2L * words.size() * words.size();
+                if (channel.size() == expectedSize) {
+                    ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                    if (header.getInt() == MAGIC && header.getInt() == VERSION
+                    && header.getLong() == bankHash && header.getInt() == words.size()) {
+                        ShortBuffer codes = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE,
+                                expectedSize - HEADER_SIZE).asShortBuffer();
+                        return new FeedbackMatrix(words, codes);
+                    }
+                }
+            }
+        }
+
+        FeedbackMatrix matrix = build(words);
+        try {
+            matrix.write(cachePath, bankHash);
+        } catch (IOException e) {
+            // the cache is only an optimisation, the next run will try again
+        }
+        return matrix;
+    }
+
+    /**
+     * Returns the feedback matrix for the current snapshot of the word bank, loaded with
+     * {@code load()} the first time this is called and shared by every later caller, until the
+     * bank is reloaded (see {@code BankSnapshot.reload()}).
+     * @return the shared feedback matrix
+     * @throws IOException if the file {@code bank} cannot be read
+     */
+    static synchronized FeedbackMatrix shared() throws IOException {
+        BankSnapshot snapshot = BankSnapshot.current();
+        if (shared == null || sharedSnapshot != snapshot) {
+            shared = load(snapshot);
+            sharedSnapshot = snapshot;
+        }
+        return shared;
+    }
+
+    /**
+     * Builds the feedback matrix for the specified words, scoring the rows in parallel across all
+     * cores with {@code ClueCode.scoreAll()} on the packed words (see {@code PackedWord}), or one
+     * pair at a time if a word has anything other than the letters A to Z. Nothing is written to
+     * disk.
+     * @param words the words to build the matrix from, grouped by length in increasing order
+     * @return the feedback matrix for the words
+     * @throws IllegalArgumentException if there are more than {@code MAX_WORDS} words
+     */
+    static FeedbackMatrix build(List<String> words) {
+        int size = words.size();
+        if (size > MAX_WORDS) throw new IllegalArgumentException(tooLarge(size));
+        short[] codes = new short[(int) ((long) size * size)];
+        long[] packed = new long[size];
+        for (int i = 0; i < size; i++) packed[i] = PackedWord.pack(words.get(i));
+        if (Arrays.stream(packed).anyMatch(word -> word == PackedWord.INVALID)) {
+            IntStream.range(0, size).parallel().forEach(guess -> {
+                String guessWord = words.get(guess);
+                int row = (int) ((long) guess * size);
+                for (int solution = 0; solution < size; solution++) {
+                    codes[row + solution] = (short) ClueCode.score(guessWord, words.get(solution));
+                }
+            });
+        } else {
+            long[] counts = ClueCode.letterCounts(packed);
+            IntStream.range(0, size).parallel().forEach(guess ->
+                    ClueCode.scoreAll(packed[guess], packed, counts, 0, size, codes,
+                                      (int) ((long) guess * size)));
+        }
+        return new FeedbackMatrix(words, ShortBuffer.wrap(codes));
+    }
+
+    private static String tooLarge(int size) {
+        return "a feedback matrix holds at most " + MAX_WORDS + " words, the bank has " + size;
+    }
+
+    /**
+     * Writes the matrix to the cache file a row at a time, through a temporary file so that a
+     * concurrent reader never sees a partially written matrix.
+     */
+    private void write(Path cachePath, long bankHash) throws IOException {
+        Path tempPath = cachePath.resolveSibling(cachePath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.max(HEADER_SIZE, 2 * size));
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(bankHash).putInt(size).putInt(0);
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            for (int guess = 0; guess < size; guess++) {
+                buffer.clear();
+                ShortBuffer row = codes.duplicate();
+                row.position((int) ((long) guess * size)).limit((int) ((long) (guess + 1) * size));
+                buffer.asShortBuffer().put(row);
+                buffer.limit(2 * size);
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+        }
+        Files.move(tempPath, cachePath, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns a 64 bit hash of the contents of a file (the first 8 bytes of its SHA-256 digest).
+     * @param contents the contents of the file
+     * @return the hash of the contents
+     */
+    static long hash(byte[] contents) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(contents);
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is always available", e);
+        }
+    }
+
+    /**
+     * Returns the feedback code of the guess at index {@code guess} against the solution at index
+     * {@code solution}.
+     * @param guess the index of the guess
+     * @param solution the index of the solution
+     * @return the feedback code of the pair
+     * @see ClueCode
+     */
+    int code(int guess, int solution) {
+        return codes.get((int) ((long) guess * size + solution));
+    }
+
+    /**
+     * Returns the feedback code of any guess against the solution at index {@code solution}. Uses
+     * the matrix if the guess is a bank word, and scores the pair directly otherwise.
+     * @param guess the guess made, in uppercase
+     * @param solution the index of the solution
+     * @return the feedback code of the pair
+     */
+    int code(String guess, int solution) {
+        int guessIndex = indexOf(guess);
+        if (guessIndex < 0) return ClueCode.score(guess, words.get(solution));
+        return code(guessIndex, solution);
+    }
+
+    /**
+     * Returns the index of the word, or -1 if it is not in the bank.
+     * @param word the word, in uppercase
+     * @return the index of the word, or -1
+     */
+    int indexOf(String word) {
+        Integer index = wordIndex.get(word);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Returns every word of the matrix, in index order.
+     * @return the words of the matrix
+     */
+    List<String> getWords() {
+        return this.words;
+    }
+
+    /**
+     * Returns the word at the index.
+     * @param index the index of the word
+     * @return the word at the index
+     */
+    String getWord(int index) {
+        return words.get(index);
+    }
+
+    /**
+     * Returns the index of the first word of the specified length.
+     * @param length the word length
+     * @return the index of the first word of the length
+     */
+    int startIndex(int length) {
+        return lengthStart[length];
+    }
+
+    /**
+     * Returns the index after the last word of the specified length.
+     * @param length the word length
+     * @return the index after the last word of the length
+     */
+    int endIndex(int length) {
+        return lengthStart[length + 1];
+    }
+
+    /**
+     * Returns the number of words in the matrix.
+     * @return the number of words
+     */
+    int size() {
+        return this.size;
+    }
+}
@@ -0,0 +1,238 @@
+package wordle;
+
+/**
+ * The rules a game is played with: the word length (or the mixed length rule), whether clues
+ * are blind, whether the solution is adversarial (see {@code AdversarialGame}), the number of
+ * boards each guess is played on (see {@code MultiBoardGame}), whether the hard mode rule is in
+ * play (see {@code HardMode}), and the difficulty of the solutions dealt (see
+ * {@code DifficultyIndex}). The number of guesses allowed follows from them: 12 for blind
+ * games and 8 otherwise, regardless of word length, plus one more per board beyond the third. An
+ * adversarial game is played on a single board, and so is a game in hard mode: the rules refuse
+ * either with more than one board, and turning either on goes back to a single board. <p>
+ * A {@code GameConfig} is immutable, so one can be shared between threads and sessions freely;
+ * the {@code with...()} methods return a changed copy. {@code DEFAULT} is a normal game of length
+ * 5, and every other set of rules is built from it, for example
+ * {@code DEFAULT.withLength(6).withBlind(true)}.
+ * @see GameMaster
+ * @see GameSession
+ */
+final class GameConfig {
+    static final GameConfig DEFAULT = new GameConfig(5, false, false, false, 1, false,
+                                                     DifficultyIndex.Level.ANY);
+    static final int NORMAL_GUESS_MAX = 8;
+    static final int BLIND_GUESS_MAX = 12;
+    static final int MAX_BOARDS = 32;
+
+    private final int length;
+    private final boolean mixedLength;
+    private final boolean blind;
+    private final boolean adversarial;
+    private final int boards;
+    private final boolean hardMode;
+    private final DifficultyIndex.Level difficulty;
+
+    /**
+     * Constructor for {@code GameConfig}, with every rule. Only used for {@code DEFAULT} and by
+     * the {@code with...()} methods, which every other set of rules is built from.
+     * @param length the word length, between 4 and 6 (the length of the solution with the mixed
+     * length rule is random, but this is kept for when the rule is turned off)
+     * @param mixedLength whether the mixed length rule is in play
+     * @param blind whether the game gives blind clues
+     * @param adversarial whether the solution is only settled as late as possible, so as to keep
+     * as many words possible as the clues allow
+     * @param boards the number of solutions each guess is played against, between 1 and
+     * {@code MAX_BOARDS}
+     * @param hardMode whether every guess must reuse what the clues so far have revealed
+     * @param difficulty the difficulty of the solutions dealt, or {@code ANY}
+     * @throws IllegalArgumentException if the length is not between 4 and 6, the number of boards
+     * is out of range, or an adversarial game or a game in hard mode has more than one board
+     */
+    private GameConfig(int length, boolean mixedLength, boolean blind, boolean adversarial,
+                       int boards, boolean hardMode, DifficultyIndex.Level difficulty) {
+        if (length < 4 || length > 6) {
+            throw new IllegalArgumentException("word length must be between 4 and 6: " + length);
+        }
+        if (boards < 1 || boards > MAX_BOARDS) {
+            throw new IllegalArgumentException("boards must be between 1 and " + MAX_BOARDS + ": "
+                                               + boards);
+        }
+        if (adversarial && boards > 1) {
+            throw new IllegalArgumentException("an adversarial game has a single board");
+        }
+        if (hardMode && boards > 1) {
+            throw new IllegalArgumentException("a game in hard mode has a single board");
+        }
+        this.length = length;
+        this.mixedLength = mixedLength;
+        this.blind = blind;
+        this.adversarial = adversarial;
+        this.boards = boards;
+        this.hardMode = hardMode;
+        this.difficulty = difficulty;
+    }
+
+    /**
+     * Returns a copy of the rules with the specified word length, and the mixed length rule off.
+     * @param length the word length, between 4 and 6
+     * @return the changed rules
+     * @throws IllegalArgumentException if the length is not between 4 and 6
+     */
+    GameConfig withLength(int length) {
+        return new GameConfig(length, false, blind, adversarial, boards, hardMode, difficulty);
+    }
+
+    /**
+     * Returns a copy of the rules with the mixed length rule on.
+     * @return the changed rules
+     */
+    GameConfig withMixedLength() {
+        return new GameConfig(length, true, blind, adversarial, boards, hardMode, difficulty);
+    }
+
+    /**
+     * Returns a copy of the rules with blind clues on or off.
+     * @param blind whether the game gives blind clues
+     * @return the changed rules
+     */
+    GameConfig withBlind(boolean blind) {
+        return new GameConfig(length, mixedLength, blind, adversarial, boards, hardMode,
+                              difficulty);
+    }
+
+    /**
+     * Returns a copy of the rules with the adversarial solution on or off. Turning it on also
+     * goes back to a single board.
+     * @param adversarial whether the solution is adversarial
+     * @return the changed rules
+     */
+    GameConfig withAdversarial(boolean adversarial) {
+        return new GameConfig(length, mixedLength, blind, adversarial, adversarial ? 1 : boards,
+                              hardMode, difficulty);
+    }
+
+    /**
+     * Returns a copy of the rules with the specified number of boards. More than one board also
+     * turns the adversarial solution and hard mode off.
+     * @param boards the number of boards, between 1 and {@code MAX_BOARDS}
+     * @return the changed rules
+     * @throws IllegalArgumentException if the number of boards is out of range
+     */
+    GameConfig withBoards(int boards) {
+        return new GameConfig(length, mixedLength, blind, adversarial && boards == 1, boards,
+                              hardMode && boards == 1, difficulty);
+    }
+
+    /**
+     * Returns a copy of the rules with hard mode on or off. Turning it on also goes back to a
+     * single board.
+     * @param hardMode whether every guess must reuse what the clues so far have revealed
+     * @return the changed rules
+     */
+    GameConfig withHardMode(boolean hardMode) {
+        return new GameConfig(length, mixedLength, blind, adversarial, hardMode ? 1 : boards,
+                              hardMode, difficulty);
+    }
+
+    /**
+     * Returns a copy of the rules with solutions dealt of the specified difficulty.
+     * @param difficulty the difficulty of the solutions, or {@code ANY}
+     * @return the changed rules
+     */
+    GameConfig withDifficulty(DifficultyIndex.Level difficulty) {
+        return new GameConfig(length, mixedLength, blind, adversarial, boards, hardMode,
+                              difficulty);
+    }
+
+    /**
+     * Returns the word length, ignored with the mixed length rule.
+     * @return the word length
+     */
+    int getLength() {
+        return this.length;
+    }
+
+    /**
+     * Returns whether the mixed length rule is in play.
+     * @return whether the mixed length rule is in play
+     */
+    boolean isMixedLength() {
+        return this.mixedLength;
+    }
+
+    /**
+     * Returns whether the game gives blind clues.
+     * @return whether the game gives blind clues
+     */
+    boolean isBlind() {
+        return this.blind;
+    }
+
+    /**
+     * Returns whether the solution is adversarial.
+     * @return whether the solution is adversarial
+     */
+    boolean isAdversarial() {
+        return this.adversarial;
+    }
+
+    /**
+     * Returns whether the hard mode rule is in play.
+     * @return whether the hard mode rule is in play
+     */
+    boolean isHardMode() {
+        return this.hardMode;
+    }
+
+    /**
+     * Returns the difficulty of the solutions dealt, or {@code ANY}.
+     * @return the difficulty of the solutions
+     */
+    DifficultyIndex.Level getDifficulty() {
+        return this.difficulty;
+    }
+
+    /**
+     * Returns the number of boards each guess is played on.
+     * @return the number of boards
+     */
+    int getBoards() {
+        return this.boards;
+    }
+
+    /**
+     * Returns the number of guesses allowed: 12 for blind games and 8 otherwise, plus one per
+     * board beyond the third (9 guesses for 4 boards, 13 for 8, 21 for 16).
+     * @return the number of guesses allowed
+     */
+    int getGuessMax() {
+        return (blind ? BLIND_GUESS_MAX : NORMAL_GUESS_MAX) + Math.max(0, boards - 3);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof GameConfig)) return false;
+        GameConfig config = (GameConfig) other;
+        return length == config.length && mixedLength == config.mixedLength
+                && blind == config.blind && adversarial == config.adversarial
+                && boards == config.boards && hardMode == config.hardMode
+                && difficulty == config.difficulty;
+    }
+
+    @Override
+    public int hashCode() {
+        int flags = ((length * 2 + (mixedLength ? 1 : 0)) * 2 + (blind ? 1 : 0)) * 2
+                + (adversarial ? 1 : 0);
+        return ((flags * (MAX_BOARDS + 1) + boards) * 2 + (hardMode ? 1 : 0)) * 4
+                + difficulty.ordinal();
+    }
+
+    @Override
+    public String toString() {
+        return (hardMode ? "hard " : "") + (adversarial ? "adversarial " : "")
+                + (blind ? "blind" : "normal") + ", length "
+                + (mixedLength ? "mixed" : length) + (boards > 1 ? ", " + boards + " boards" : "")
+                + (difficulty != DifficultyIndex.Level.ANY
+                   ? ", " + difficulty.name().toLowerCase() + " words" : "")
+                + ", " + getGuessMax() + " guesses";
+    }
+}
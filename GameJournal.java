@@ -0,0 +1,525 @@
+package wordle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * An append-only journal of every game played: its start (rules and solution), each guess with
+ * its feedback code, and its end (won or lost). A reader streams the journal back, to rebuild the
+ * games in progress after a crash with {@code recover()}, or to replay every game for analysis
+ * with {@code replay()}. <p>
+ * The journal is a directory of numbered segment files of {@code SEGMENT_SIZE} bytes, each
+ * memory-mapped and filled with fixed-size records of {@code RECORD_SIZE} bytes: <p>
+ * > - the event type, and a detail byte (the maximum number of guesses, the turn, or the status)
+ * and the rule flags <p>
+ * > - a checksum of the record <p>
+ * > - the id of the game <p>
+ * > - a word packed with {@code PackedWord} (the solution, or the guess) <p>
+ * > - the feedback code of a guess, or the number of guesses made at the end <p>
+ * > - the time of the event, in seconds <p>
+ * An append claims its place in the segment with one atomic add and writes the record straight
+ * into the mapping, the event type last, so it never waits on a lock or on the disk. A committer
+ * thread forces the mapping to disk every {@code COMMIT_MILLIS} (group commit): a crash loses at
+ * most the events of that window, and the checksum lets the reader skip records torn by the crash.
+ * When a segment is full the next one, prepared ahead by the committer, takes over (rollover);
+ * the full one is forced one last time once the appends still writing into it are done. <p>
+ * A game that ends without being won or lost (evicted from a {@code SessionStore} before it was
+ * finished) gets an end event all the same, marked as abandoned, so compaction can drop it. <p>
+ * Once there are more than {@code MAX_SEGMENTS} segments, the oldest ones are compacted into one,
+ * keeping only the events of games still in progress; replay the journal before then to keep
+ * every game for analysis. A reader is idempotent, so a crash during compaction only leaves
+ * duplicate events behind. Run {@code main()} to print the journal.
+ * @see GameSession
+ * @see PackedWord
+ */
+final class GameJournal {
+    static final String JOURNAL_PATH = "src/wordle/journal";
+    static final int SEGMENT_SIZE = 8 << 20;
+    static final int RECORD_SIZE = 32;
+    static final long COMMIT_MILLIS = 10;
+    static final int MAX_SEGMENTS = 16;
+    static final int START = 1, GUESS = 2, END = 3;
+
+    private static final int MAGIC = 0x53574A4C;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = RECORD_SIZE;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int MIXED_LENGTH = 1, BLIND = 2, HARD_MODE = 4;
+
+    private static GameJournal shared;
+
+    /**
+     * An event read back from the journal.
+     */
+    static final class Event {
+        final int type;
+        final long game;
+        final String word;
+        final int detail;
+        final int flags;
+        final int value;
+        final long time;
+
+        private Event(int head, long game, long word, int value, int time) {
+            this.type = head & 0xFF;
+            this.detail = (head >>> 8) & 0xFF;
+            this.flags = (head >>> 16) & 0xFF;
+            this.game = game;
+            this.word = type == END ? null : PackedWord.unpack(word);
+            this.value = value;
+            this.time = Integer.toUnsignedLong(time);
+        }
+
+        /**
+         * Returns whether the game of a start event plays with the mixed length rule.
+         * @return whether the mixed length rule is in play
+         */
+        boolean isMixedLength() {
+            return (flags & MIXED_LENGTH) != 0;
+        }
+
+        /**
+         * Returns whether the game of a start event gives blind clues.
+         * @return whether the game gives blind clues
+         */
+        boolean isBlind() {
+            return (flags & BLIND) != 0;
+        }
+
+        @Override
+        public String toString() {
+            String time = Instant.ofEpochSecond(this.time).toString();
+            switch (type) {
+                case START:
+                    return time + " " + Long.toHexString(game) + " START " + word + " guessMax="
+                            + detail + ((flags & MIXED_LENGTH) != 0 ? " mixed" : "")
+                            + ((flags & BLIND) != 0 ? " blind" : "")
+                            + ((flags & HARD_MODE) != 0 ? " hard" : "");
+                case GUESS:
+                    return time + " " + Long.toHexString(game) + " GUESS " + (detail + 1) + " "
+                            + word + " code=" + value;
+                default:
+                    return time + " " + Long.toHexString(game) + " END "
+                            + (detail == GameSession.Status.IN_PROGRESS.ordinal() ? "ABANDONED"
+                               : GameSession.Status.values()[detail]) + " guesses=" + value;
+            }
+        }
+    }
+
+    private static final class Segment {
+        final long number;
+        final MappedByteBuffer buffer;
+        final AtomicInteger position = new AtomicInteger(HEADER_SIZE);
+        // appends between claiming their place and writing their record
+        final AtomicInteger writers = new AtomicInteger();
+        int committed = HEADER_SIZE;
+
+        Segment(long number, MappedByteBuffer buffer) {
+            this.number = number;
+            this.buffer = buffer;
+        }
+    }
+
+    private final Path directory;
+    private final AtomicLong nextGame = new AtomicLong(System.currentTimeMillis() << 12);
+    private final Thread committer;
+    private final Object compactLock = new Object();
+    private volatile Segment current;
+    private volatile boolean closed;
+    // guarded by this
+    private Segment previous, spare;
+    private int segments;
+
+    private GameJournal(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        List<Long> numbers = segmentNumbers(directory);
+        this.segments = numbers.size() + 1;
+        // never append to an old segment, whose end may have been torn by a crash
+        this.current = openSegment(numbers.isEmpty() ? 0 : numbers.get(numbers.size() - 1) + 1);
+        this.committer = new Thread(this::commitLoop, "journal-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * Returns the journal in {@code JOURNAL_PATH}, opened the first time this is called and
+     * shared by every later caller.
+     * @return the shared journal
+     * @throws IOException if the journal cannot be opened
+     */
+    static synchronized GameJournal shared() throws IOException {
+        if (shared == null) shared = open(Paths.get(JOURNAL_PATH));
+        return shared;
+    }
+
+    /**
+     * Opens the journal in the directory for appending, starting a new segment after the
+     * existing ones.
+     * @param directory the journal directory, created if missing
+     * @return the journal
+     * @throws IOException if the directory or the first segment cannot be created
+     */
+    static GameJournal open(Path directory) throws IOException {
+        return new GameJournal(directory);
+    }
+
+    /**
+     * Returns a new game id, unique within this journal.
+     * @return the id
+     */
+    long newGameId() {
+        return nextGame.getAndIncrement();
+    }
+
+    /**
+     * Appends the start of a game: its rules and solution.
+     * @param game the id of the game
+     * @param session the game, before any guess is made
+     */
+    void started(long game, GameSession session) {
+        int flags = (session.isMixedLength() ? MIXED_LENGTH : 0) | (session.isBlind() ? BLIND : 0)
+                | (session.isHardMode() ? HARD_MODE : 0);
+        append(START, session.getGuessMax(), flags, game, PackedWord.pack(session.getSolution()),
+               0);
+    }
+
+    /**
+     * Appends the last guess made in a game with its feedback code, and the end of the game if
+     * the guess ended it.
+     * @param game the id of the game
+     * @param session the game, right after the guess
+     */
+    void guessed(long game, GameSession session) {
+        int turn = session.getGuessesMade() - 1;
+        append(GUESS, turn, 0, game, PackedWord.pack(session.getGuess(turn)),
+               session.getClueCode(turn));
+        if (session.isOver()) {
+            append(END, session.getStatus().ordinal(), 0, game, 0, session.getGuessesMade());
+        }
+    }
+
+    /**
+     * Appends the end of a game left unfinished, such as a game evicted from a
+     * {@code SessionStore}, so that compaction drops its events.
+     * @param game the id of the game
+     * @param guessesMade the number of guesses made in the game
+     */
+    void abandoned(long game, int guessesMade) {
+        append(END, GameSession.Status.IN_PROGRESS.ordinal(), 0, game, 0, guessesMade);
+    }
+
+    private void append(int type, int detail, int flags, long game, long word, int value) {
+        if (closed) return;
+        int head = type | detail << 8 | flags << 16;
+        int time = (int) (System.currentTimeMillis() / 1000);
+        int checksum = checksum(head, game, word, value, time);
+        while (true) {
+            Segment segment = current;
+            segment.writers.incrementAndGet();
+            try {
+                int pos = segment.position.getAndAdd(RECORD_SIZE);
+                if (pos + RECORD_SIZE <= segment.buffer.capacity()) {
+                    MappedByteBuffer buffer = segment.buffer;
+                    buffer.putInt(pos + 4, checksum);
+                    buffer.putLong(pos + 8, game);
+                    buffer.putLong(pos + 16, word);
+                    buffer.putInt(pos + 24, value);
+                    buffer.putInt(pos + 28, time);
+                    buffer.putInt(pos, head);
+                    return;
+                }
+            } finally {
+                segment.writers.decrementAndGet();
+            }
+            try {
+                roll(segment);
+            } catch (IOException | UncheckedIOException e) {
+                // a game is never stopped by its journal, which stops instead
+                closed = true;
+                System.err.println("The game journal stopped: " + e);
+                return;
+            }
+        }
+    }
+
+    private synchronized void roll(Segment full) throws IOException {
+        if (current != full) return;
+        Segment next = spare != null ? spare : openSegment(full.number + 1);
+        spare = null;
+        previous = full;
+        current = next;
+        segments++;
+    }
+
+    private Segment openSegment(long number) throws IOException {
+        Path path = directory.resolve(segmentName(number));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+            buffer.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, number);
+            return new Segment(number, buffer);
+        }
+    }
+
+    private void commitLoop() {
+        while (!closed) {
+            LockSupport.parkNanos(COMMIT_MILLIS * 1_000_000);
+            try {
+                flush();
+                boolean compact;
+                synchronized (this) {
+                    if (spare == null && !closed) spare = openSegment(current.number + 1);
+                    compact = segments > MAX_SEGMENTS;
+                }
+                if (compact) compact();
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("The game journal could not be committed: " + e);
+            }
+        }
+    }
+
+    /**
+     * Forces every event appended so far to disk. Called by the committer thread every
+     * {@code COMMIT_MILLIS}, so it is only needed to commit at once.
+     */
+    synchronized void flush() {
+        // the previous segment may still receive appends that claimed their place before rollover;
+        // any later append finds it full, so once none is writing it is forced one last time
+        if (previous != null && previous.writers.get() == 0) {
+            commit(previous);
+            previous = null;
+        }
+        commit(current);
+    }
+
+    private static void commit(Segment segment) {
+        int end = Math.min(segment.position.get(), segment.buffer.capacity());
+        if (end > segment.committed) {
+            // a place is claimed after its writer is counted, so read the count after the end:
+            // with no writer left every record before the end is written, otherwise some may
+            // still be, and the same range is forced again at the next commit
+            boolean written = segment.writers.get() == 0;
+            segment.buffer.force();
+            if (written) segment.committed = end;
+        }
+    }
+
+    /**
+     * Stops appending, and forces every event appended so far to disk.
+     */
+    void close() {
+        closed = true;
+        committer.interrupt();
+        flush();
+    }
+
+    /**
+     * Compacts the segments older than the last two into one, keeping only the events of games
+     * still in progress. Called by the committer thread once there are more than
+     * {@code MAX_SEGMENTS} segments.
+     * @return the number of events dropped
+     * @throws IOException if a segment cannot be read or written
+     */
+    int compact() throws IOException {
+        synchronized (compactLock) {
+            return compactSealed();
+        }
+    }
+
+    private int compactSealed() throws IOException {
+        long limit;
+        synchronized (this) {
+            limit = previous != null ? previous.number : current.number;
+        }
+        List<Path> sealed = new ArrayList<Path>();
+        for (long number : segmentNumbers(directory)) {
+            if (number < limit) sealed.add(directory.resolve(segmentName(number)));
+        }
+        if (sealed.size() < 2) return 0;
+
+        Set<Long> over = new HashSet<Long>();
+        replay(directory, event -> {
+            if (event.type == END) over.add(event.game);
+        });
+        List<ByteBuffer> kept = new ArrayList<ByteBuffer>();
+        int dropped = 0;
+        for (Path path : sealed) {
+            ByteBuffer segment = map(path);
+            for (int pos = HEADER_SIZE; pos + RECORD_SIZE <= segment.limit(); pos += RECORD_SIZE) {
+                if (!isValid(segment, pos)) continue;
+                if (over.contains(segment.getLong(pos + 8))) {
+                    dropped++;
+                } else {
+                    kept.add(segment.duplicate().position(pos).limit(pos + RECORD_SIZE));
+                }
+            }
+        }
+
+        // replace the newest sealed segment, then delete the older ones
+        Path last = sealed.get(sealed.size() - 1);
+        Path tempPath = directory.resolve("compact.tmp");
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(segmentNumber(last)).rewind();
+            channel.write(header);
+            for (ByteBuffer record : kept) channel.write(record);
+            channel.force(true);
+        }
+        Files.move(tempPath, last, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        for (Path path : sealed) {
+            if (!path.equals(last)) Files.delete(path);
+        }
+        synchronized (this) {
+            segments -= sealed.size() - 1;
+        }
+        return dropped;
+    }
+
+    /**
+     * Streams every event of the journal in the directory to the consumer, oldest segment first.
+     * Records torn by a crash are skipped.
+     * @param directory the journal directory
+     * @param consumer what to do with each event
+     * @throws IOException if a segment cannot be read
+     */
+    static void replay(Path directory, Consumer<Event> consumer) throws IOException {
+        for (long number : segmentNumbers(directory)) {
+            ByteBuffer segment;
+            try {
+                segment = map(directory.resolve(segmentName(number)));
+            } catch (NoSuchFileException e) {
+                continue; // removed by a compaction since it was listed
+            }
+            for (int pos = HEADER_SIZE; pos + RECORD_SIZE <= segment.limit(); pos += RECORD_SIZE) {
+                if (!isValid(segment, pos)) continue;
+                consumer.accept(new Event(segment.getInt(pos), segment.getLong(pos + 8),
+                        segment.getLong(pos + 16), segment.getInt(pos + 24),
+                        segment.getInt(pos + 28)));
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the games in progress from the journal in the directory, as they were at the last
+     * commit. Duplicate events (left by a crash during compaction) are ignored.
+     * @param directory the journal directory
+     * @return the games in progress by id
+     * @throws IOException if a segment cannot be read
+     */
+    static Map<Long,GameSession> recover(Path directory) throws IOException {
+        Map<Long,GameSession> games = new HashMap<Long,GameSession>();
+        Set<Long> over = new HashSet<Long>();
+        GuessDictionary dictionary = null;
+        try {
+            dictionary = GuessDictionary.shared();
+        } catch (IOException e) {
+            // recover the games without a dictionary, as if there was none
+        }
+        GuessDictionary sessionDictionary = dictionary;
+        replay(directory, event -> {
+            if (over.contains(event.game)) return;
+            GameSession session = games.get(event.game);
+            if (event.type == START && session == null) {
+                String explanation = null;
+                try {
+                    explanation = BankSnapshot.current().getExplanation(event.word);
+                } catch (IOException e) {
+                    // keep the game without its explanation
+                }
+                games.put(event.game, new GameSession(event.word, event.detail,
+                        (event.flags & MIXED_LENGTH) != 0, (event.flags & BLIND) != 0,
+                        explanation, sessionDictionary, (event.flags & HARD_MODE) != 0));
+            } else if (event.type == GUESS && session != null
+                       && event.detail == session.getGuessesMade()) {
+                session.record(event.word, event.value);
+            } else if (event.type == END) {
+                over.add(event.game);
+                games.remove(event.game);
+            }
+        });
+        return games;
+    }
+
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (segment.limit() < HEADER_SIZE || segment.getInt(0) != MAGIC
+                || segment.getInt(4) != VERSION) {
+                throw new IOException(path + " is not a journal segment of this version");
+            }
+            return segment;
+        }
+    }
+
+    private static boolean isValid(ByteBuffer segment, int pos) {
+        int head = segment.getInt(pos);
+        return head != 0 && segment.getInt(pos + 4) == checksum(head, segment.getLong(pos + 8),
+                segment.getLong(pos + 16), segment.getInt(pos + 24), segment.getInt(pos + 28));
+    }
+
+    private static int checksum(int head, long game, long word, int value, int time) {
+        long hash = head * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ game) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ word) * 0x94D049BB133111EBL;
+        hash = (hash ^ ((long) value << 32 | Integer.toUnsignedLong(time))) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ hash >>> 32);
+    }
+
+    private static String segmentName(long number) {
+        return String.format("%s%012d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX);
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                                             name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static List<Long> segmentNumbers(Path directory) throws IOException {
+        List<Long> numbers = new ArrayList<Long>();
+        if (!Files.isDirectory(directory)) return numbers;
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : paths) numbers.add(segmentNumber(path));
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    /**
+     * Prints every event of the journal, one per line. Arguments: the journal directory
+     * ({@code JOURNAL_PATH} by default).
+     * @param args the journal directory, optional
+     * @throws IOException if the journal cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : JOURNAL_PATH);
+        replay(directory, System.out::println);
+        System.out.println(recover(directory).size() + " games in progress");
+    }
+}
@@ -1,33 +1,45 @@
 package wordle;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.time.LocalDate;
 
 /**
  * Host for the Wordle games. Allows you to configure the rules of the game, as well as starting 
  * one. All output is printed in the terminal, this returns nothing. <p>
- * This has three methods: <p>
+ * This has seven methods: <p>
  * > - {@code gameMaster()} the only public method (besides {@code Keyboard}) in the package. Call 
  * this to access the rest of the package. Gives prompts and allows the player to configure the 
  * rules of the game, as well as starting one. <p>
  * > - {@code startGame()} helper method - starts a game based on the configured rules. <p>
+ * > - {@code startDaily()} helper method - starts the daily puzzle of the configured rules. <p>
+ * > - {@code playGame()} helper method - journals and plays a single-board game. <p>
  * > - {@code configureGame()} helper method - gives prompts to configure the rules of the game.
+ * <p>
+ * > - {@code showMetrics()} helper method - prints the latency metrics of the game. <p>
+ * > - {@code switchMetrics()} helper method - turns the recording of the metrics on or off. <p>
+ * The rules are kept in a {@code GameConfig} local to each call of {@code gameMaster()}, rather
+ * than in static fields, so that they are not shared with any other player (see
+ * {@code GameServer}). Games can also be played in bulk without prompts, from a file of JSON
+ * lines, with {@code BatchRunner}.
  * @see BasicGame
  * @see BlindGame
+ * @see AdversarialGame
+ * @see MultiBoardGame
  * @see Clue
  * @see WordBank
+ * @see DailySchedule
+ * @see GameConfig
  */
 public class GameMaster {
-    static int length = 5;
-    static int guessMax;
-    static boolean isMixedLength = false;
-    static boolean isBlind = false;
-    static boolean exit = false;
+    static WordBank wordBank;
 
     /**
      * Host for the Wordle games. Gives prompts (on the terminal) and allows the player to 
      * configure the rules of the game, as well as starting one. <p>
      * This is the only public method in the package (besides {@code Keyboard}). Call this to
-     * access the rest of the package.
+     * access the rest of the package. Edits to the file {@code bank} are picked up by the next
+     * game started, see {@code BankWatcher}.
      * @throws FileNotFoundException if {@code WordBank} fails to find its files
      * @throws EmptyWordBankException if {@code WordBank} runs out of words in a list
      * @see BasicGame
@@ -36,81 +48,239 @@ public class GameMaster {
      * @see WordBank
      */
     public static void gameMaster() throws FileNotFoundException, EmptyWordBankException {
-        while (!exit) {
+        BankWatcher.start();
+        GameConfig config = GameConfig.DEFAULT;
+        while (true) {
             System.out.println();
             System.out.println("----- SPLATOON WORDLE -----");
             System.out.println();
 
             System.out.println("Current game settings:");
-            if (isMixedLength) {
+            if (config.isMixedLength()) {
                 System.out.println("Word length: mixed!");
             } else {
-                System.out.println("Word length: " + length);
+                System.out.println("Word length: " + config.getLength());
             }
-            if (isBlind) {
+            if (config.isBlind()) {
                 System.out.println("Clue system: blind!");
-                guessMax = 12;
             } else {
                 System.out.println("Clue system: normal");
-                guessMax = 8;
             }
-            System.out.println("Guesses allowed: " + guessMax);
+            if (config.isAdversarial()) {
+                System.out.println("Solution: adversarial!");
+            } else {
+                System.out.println("Solution: fixed");
+            }
+            if (config.getBoards() > 1) {
+                System.out.println("Boards: " + config.getBoards() + "!");
+            }
+            if (config.isHardMode()) {
+                System.out.println("Hard mode: on!");
+            }
+            if (config.getDifficulty() != DifficultyIndex.Level.ANY) {
+                System.out.println("Difficulty: " + config.getDifficulty().name().toLowerCase()
+                                   + " words!");
+            }
+            System.out.println("Guesses allowed: " + config.getGuessMax());
             System.out.println();
 
             System.out.println("What would you like to do?");
             System.out.println("Enter 1 to start the game!");
             System.out.println("Enter 2 to configure game");
+            System.out.println("Enter 3 to show metrics");
+            System.out.println("Enter 4 to turn " + (Metrics.isEnabled() ? "off" : "on")
+                               + " metrics");
+            System.out.println("Enter daily to play the puzzle of the day");
             switch (Keyboard.getInput("Enter anything else to exit: ")) {
                 case "1": 
-                    startGame();
+                    startGame(config);
                     continue;
                 case "2":
-                    configureGame();
+                    config = configureGame(config);
+                    continue;
+                case "3":
+                    showMetrics();
+                    continue;
+                case "4":
+                    switchMetrics();
+                    continue;
+                case "daily":
+                    startDaily(config);
                     continue;
                 default:
                     System.out.println("Goodbye!");
-                    exit = true;
                     return;
             }
         }
     }
 
     /**
-     * Starts a game based on the configured rules. 
+     * Starts a game based on the configured rules. Solutions are dealt from one {@code WordBank}
+     * kept across games, whose deal is saved after every game is started, so that no solution is
+     * repeated until every word has been played, even across restarts. Once every word of the
+     * configured length (and difficulty) has been played, only that deck is shuffled again, see
+     * {@code WordBank.getSolution()}. The game is appended to the
+     * {@code GameJournal}, unless it is adversarial, as its solution keeps changing. If the
+     * adversarial mode cannot load its {@code FeedbackMatrix}, the game is played normally. With
+     * more than one board, a distinct solution is dealt for each board, and the game is played
+     * with {@code MultiBoardGame}, also without the journal. With a difficulty, solutions are
+     * dealt from the words the {@code DifficultyIndex} saved next to the bank rates so; if there
+     * is no index, they are dealt from every word.
+     * @param config the rules of the game
      * @throws FileNotFoundException if {@code WordBank} fails to find its files
-     * @throws EmptyWordBankException if {@code WordBank} runs out of words in a list
+     * @throws EmptyWordBankException if {@code WordBank} has no words of the configured length
      */
-    static void startGame() throws FileNotFoundException, EmptyWordBankException {
-        WordBank wordBank = new WordBank();
-        String solution = null;
-
-        if (isMixedLength) {
-            solution = wordBank.getAny();
-        } else {
-            switch (length) {
-                case 4: 
-                    solution = wordBank.getLength4();
-                    break;
-                case 5: 
-                    solution = wordBank.getLength5();
-                    break;
-                case 6: 
-                    solution = wordBank.getLength6();
+    static void startGame(GameConfig config) throws FileNotFoundException, EmptyWordBankException {
+        if (wordBank == null || wordBank.getSnapshot() != BankSnapshot.current()) {
+            wordBank = WordBank.restore(WordBank.dealPath());
+        }
+        DifficultyIndex index = difficultyIndex(config);
+        String[] solutions = new String[config.getBoards()];
+        String[] explanations = new String[solutions.length];
+        int redeals = 0;
+        for (int board = 0; board < solutions.length; board++) {
+            solutions[board] = wordBank.getSolution(config, index);
+            for (int other = 0; other < board; other++) {
+                // the deck was shuffled again mid-game, deal another, unless it is too small
+                if (solutions[other].equals(solutions[board]) && redeals++ < 4 * solutions.length) {
+                    board--;
                     break;
+                }
+            }
+        }
+        try {
+            wordBank.save(WordBank.dealPath());
+        } catch (IOException e) {
+            // the next game tries again, at worst a restart repeats some solutions
+        }
+
+        GuessDictionary dictionary = dictionary();
+        if (solutions.length > 1) {
+            for (int board = 0; board < solutions.length; board++) {
+                explanations[board] = wordBank.getExplanation(solutions[board]);
+            }
+            new MultiBoardGame(new MultiBoardSession(config, solutions, explanations, dictionary));
+            return;
+        }
+        String solution = solutions[0];
+        GameSession session = new GameSession(config, solution, wordBank.getExplanation(solution),
+                                              dictionary);
+        if (config.isAdversarial()) {
+            try {
+                new AdversarialGame(session);
+                return;
+            } catch (IOException e) {
+                System.out.println("The adversarial mode is unavailable, playing a normal game.");
             }
         }
+        playGame(session);
+    }
+
+    /**
+     * Starts the puzzle of the day for the configured word length (or mixed length rule) and
+     * clue system, the same for every player, from the {@code DailySchedule}. The hard mode rule
+     * is kept, but a daily puzzle is always played on a single board with a fixed solution. The
+     * deal of the {@code WordBank} is left as it is.
+     * @param config the rules of the game
+     */
+    static void startDaily(GameConfig config) {
+        GameConfig daily = config.withBoards(1).withAdversarial(false);
+        LocalDate today = DailySchedule.today();
+        String solution, explanation;
+        long number;
+        try {
+            DailySchedule schedule = DailySchedule.shared();
+            solution = schedule.getSolution(today, daily);
+            number = schedule.getNumber(today);
+            explanation = BankSnapshot.current().getExplanation(solution);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("The daily puzzle is unavailable: " + e.getMessage());
+            return;
+        }
+        if (solution == null) {
+            System.out.println("There is no daily puzzle for " + today + ".");
+            return;
+        }
+        System.out.println();
+        System.out.println("Daily puzzle #" + number + " (" + today + ")");
+        playGame(new GameSession(daily, solution, explanation, dictionary()));
+    }
 
-        if (isBlind) {
-            new BlindGame(solution, guessMax, isMixedLength, wordBank.getExplanation(solution));
+    /**
+     * Plays a single-board game with a fixed solution, appended to the {@code GameJournal}.
+     * @param session the game, before any guess is made
+     */
+    static void playGame(GameSession session) {
+        try {
+            GameJournal journal = GameJournal.shared();
+            long game = journal.newGameId();
+            journal.started(game, session);
+            session.setJournal(journal, game);
+        } catch (IOException e) {
+            // the game is played all the same, only without a trace in the journal
+        }
+        if (session.isBlind()) {
+            new BlindGame(session);
         } else {
-            new BasicGame(solution, guessMax, isMixedLength, wordBank.getExplanation(solution));
+            new BasicGame(session);
+        }
+    }
+
+    private static GuessDictionary dictionary() {
+        try {
+            return GuessDictionary.shared();
+        } catch (IOException e) {
+            System.out.println("The dictionary could not be read, any word will be accepted.");
+            return null;
+        }
+    }
+
+    private static DifficultyIndex difficultyIndex(GameConfig config) {
+        if (config.getDifficulty() == DifficultyIndex.Level.ANY) return null;
+        try {
+            DifficultyIndex index = DifficultyIndex.shared();
+            if (index.getBankHash() != wordBank.getSnapshot().getHash()) {
+                System.out.println("The difficulty index is older than the bank, words added "
+                                   + "since are not dealt by difficulty.");
+            }
+            return index;
+        } catch (IOException e) {
+            System.out.println("There is no difficulty index (run DifficultyIndex to rate the "
+                               + "words), words of any difficulty are dealt.");
+            return null;
+        }
+    }
+
+    /**
+     * Prints (on the terminal) the latency {@code Metrics} of every stage of the game, as recorded
+     * so far. Metrics are only recorded once turned on, with {@code switchMetrics()} or
+     * {@code -Dwordle.metrics=true}.
+     */
+    static void showMetrics() {
+        System.out.println();
+        if (!Metrics.isEnabled()) {
+            System.out.println("Metrics are off: enter 4 to record them, or run with "
+                               + "-Dwordle.metrics=true.");
         }
+        System.out.print(Metrics.writeText(new StringBuilder()));
+    }
+
+    /**
+     * Turns the recording of the latency {@code Metrics} on if it is off, and off if it is on.
+     * What was recorded so far is kept.
+     */
+    static void switchMetrics() {
+        Metrics.setEnabled(!Metrics.isEnabled());
+        System.out.println(Metrics.isEnabled() ? "Metrics are recorded from now on!"
+                           : "Metrics are no longer recorded!");
     }
 
     /**
      * Gives prompts (on the terminal) to configure the rules of the game.
+     * @param config the rules before configuring
+     * @return the rules after configuring
      */
-    static void configureGame() {
+    static GameConfig configureGame(GameConfig config) {
         System.out.println();
         System.out.println("Word length can be between 4 to 6, or mixed! Playing with a mixed "
                             + "length allows guesses of length 4-6, and a clue will be given on "
@@ -120,42 +290,101 @@ public class GameMaster {
                             + "correct letter but incorrect position. Extra hard!");
         System.out.println("The number of guesses allowed is 8 on a normal game, and 12 on a blind "
                             + "game, regardless of word length.");
+        System.out.println("The solution can be adversarial instead! The game never picks a "
+                            + "solution, and answers every guess so as to keep as many words "
+                            + "possible as it can. You win by leaving it a single word.");
+        System.out.println("You can also play on up to " + GameConfig.MAX_BOARDS + " boards at "
+                            + "once! Every guess is played on each board, and you win by solving "
+                            + "them all. One more guess is allowed per board beyond the third.");
+        System.out.println("Hard mode makes every guess use what the clues revealed: correct "
+                            + "letters stay in place, present letters must be used, and absent "
+                            + "letters cannot be. Only for a single board.");
+        System.out.println("Solutions can be picked by difficulty! Every word is rated on how "
+                            + "many guesses a solver needs and how rare its letters are.");
 
-        while (!exit) {
+        while (true) {
             System.out.println();
             System.out.println("What would you like to do?");
             System.out.println("Enter 4, 5, 6, or mixed to change the word length");
             System.out.println("Enter 1 or 0 to turn on or off blind mode");
+            System.out.println("Enter adversarial or fair to turn on or off adversarial mode");
+            System.out.println("Enter boards to change the number of boards");
+            System.out.println("Enter hard or easy to turn on or off hard mode");
+            System.out.println("Enter difficulty to change the difficulty of the words");
             switch (Keyboard.getInput("Enter anything else to go back: ")) {
                 case "4":
-                    length = 4;
-                    isMixedLength = false;
+                    config = config.withLength(4);
                     System.out.println("Word length changed to 4!");
                     break;
                 case "5":
-                    length = 5;
-                    isMixedLength = false;
+                    config = config.withLength(5);
                     System.out.println("Word length changed to 5!");
                     break;
                 case "6":
-                    length = 6;
-                    isMixedLength = false;
+                    config = config.withLength(6);
                     System.out.println("Word length changed to 6!");
                     break;
                 case "mixed":
-                    isMixedLength = true;
+                    config = config.withMixedLength();
                     System.out.println("Word length changed to mixed!");
                     break;
                 case "1":
-                    isBlind = true;
+                    config = config.withBlind(true);
                     System.out.println("Clue system is now blind!");
                     break;
                 case "0":
-                    isBlind = false;
+                    config = config.withBlind(false);
                     System.out.println("Clue system is now normal!");
                     break;
+                case "adversarial":
+                    config = config.withAdversarial(true);
+                    System.out.println("Solution is now adversarial!");
+                    break;
+                case "fair":
+                    config = config.withAdversarial(false);
+                    System.out.println("Solution is now fixed!");
+                    break;
+                case "hard":
+                    if (config.getBoards() > 1) {
+                        System.out.println("Hard mode is played on a single board: back to one "
+                                           + "board.");
+                    }
+                    config = config.withHardMode(true);
+                    System.out.println("Hard mode is now on!");
+                    break;
+                case "easy":
+                    config = config.withHardMode(false);
+                    System.out.println("Hard mode is now off!");
+                    break;
+                case "boards":
+                    try {
+                        int boards = Integer.parseInt(Keyboard.getInput(
+                                "How many boards? (1 to " + GameConfig.MAX_BOARDS + "): ").trim());
+                        boolean hardMode = config.isHardMode();
+                        config = config.withBoards(boards);
+                        System.out.println("Number of boards changed to " + boards + "!");
+                        if (hardMode && !config.isHardMode()) {
+                            System.out.println("Hard mode is now off, it needs a single board.");
+                        }
+                    } catch (IllegalArgumentException e) {
+                        System.out.println("The number of boards must be between 1 and "
+                                           + GameConfig.MAX_BOARDS + ".");
+                    }
+                    break;
+                case "difficulty":
+                    try {
+                        DifficultyIndex.Level level = DifficultyIndex.Level.valueOf(Keyboard
+                                .getInput("Which words? (easy, medium, hard or any): ")
+                                .trim().toUpperCase());
+                        config = config.withDifficulty(level);
+                        System.out.println("Difficulty changed to " + level.name().toLowerCase()
+                                           + "!");
+                    } catch (IllegalArgumentException e) {
+                        System.out.println("The difficulty must be easy, medium, hard or any.");
+                    }
+                    break;
                 default:
-                    return;
+                    return config;
             }
         }
     }
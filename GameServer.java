@@ -0,0 +1,415 @@
+package wordle;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves Wordle games over HTTP with JSON bodies, so that one JVM can host many players at once.
+ * Built on the JDK's {@code com.sun.net.httpserver}, with no other dependencies. <p>
+ * Endpoints: <p>
+ * > - {@code POST /games} starts a game. The body is optional: {@code {"length": 5,
+ * "mixedLength": false, "blind": false, "hardMode": false}}, with every key optional. Answers 201
+ * with the state of the game, including its {@code id}. <p>
+ * > - {@code GET /games/{id}} returns the state of a game. <p>
+ * > - {@code POST /games/{id}/guesses} makes a guess: {@code {"guess": "SPLAT"}}. Answers with the
+ * state of the game, whose last guess holds the clue; 422 if the guess is invalid (with the reason
+ * if it breaks the hard mode rule), 409 if the game is over. <p>
+ * > - {@code GET /stats} returns the {@code GameStats} of the games played on the server, as
+ * JSON, or as CSV with {@code ?format=csv}. They have no streaks, as the games come from every
+ * player. <p>
+ * > - {@code GET /metrics} returns the latency {@code Metrics} of every stage, as plain text. <p>
+ * The state of a game holds its rules, status, guesses made and remaining, the letters used, and
+ * the clue of every guess (a mark per letter, or the counts for a blind game). The solution and
+ * its explanation are only included once the game is over. Errors answer with
+ * {@code {"error": "..."}}. <p>
+ * Each game is a {@code GameSession} with its own {@code GameConfig}, so nothing is shared between
+ * players but the immutable bank, dictionary and scoring tables. Games are held compactly in a
+ * {@code SessionStore}, which locks a game while a guess is played on it, evicts games idle for
+ * {@code DEFAULT_TTL_MILLIS} or the least recently used when full, and is snapshotted to a file so
+ * that {@code main()} brings the games back after a restart. Every game is also appended to the
+ * {@code GameJournal}. Requests run on a virtual thread each when the JVM has them (Java 21 and
+ * later), and on a fixed pool of platform threads otherwise. Run {@code main()} with an optional
+ * port.
+ * @see GameSession
+ * @see SessionStore
+ * @see GameJournal
+ * @see GameConfig
+ * @see Json
+ */
+public class GameServer {
+    static final int DEFAULT_PORT = 8080;
+    static final int MAX_BODY_BYTES = 4096;
+    static final int DEFAULT_CAPACITY = 100_000;
+    static final long DEFAULT_TTL_MILLIS = 30 * 60 * 1000;
+    static final long SNAPSHOT_MILLIS = 10 * 1000;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final SessionStore sessions;
+    private final Object bankLock = new Object();
+    // every player's games, so without streaks
+    private final GameStats stats = new GameStats(false);
+    private WordBank wordBank;
+
+    /**
+     * Constructor for {@code GameServer}, binding to the address without starting to serve, with
+     * an empty store of the default capacity and TTL.
+     * @param address the address to listen on, port 0 for any free port
+     * @throws IOException if the address cannot be bound
+     */
+    GameServer(InetSocketAddress address) throws IOException {
+        this(address, new SessionStore(DEFAULT_CAPACITY, DEFAULT_TTL_MILLIS));
+    }
+
+    /**
+     * Constructor for {@code GameServer}, binding to the address without starting to serve.
+     * @param address the address to listen on, port 0 for any free port
+     * @param sessions the store holding the games
+     * @throws IOException if the address cannot be bound
+     */
+    GameServer(InetSocketAddress address, SessionStore sessions) throws IOException {
+        this.server = HttpServer.create(address, 0);
+        this.sessions = sessions;
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/games", this::handle);
+        server.createContext("/stats", this::handleStats);
+        server.createContext("/metrics", this::handleMetrics);
+    }
+
+    /**
+     * Returns an executor running every task on a new virtual thread if the JVM supports them,
+     * or a fixed pool of platform threads otherwise. Looked up by reflection, so that the server
+     * still compiles and runs on Java versions without virtual threads.
+     * @return the executor for requests
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newFixedThreadPool(4 * Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /**
+     * Starts serving requests.
+     */
+    void start() {
+        server.start();
+    }
+
+    /**
+     * Stops serving requests, waiting up to a second for the requests in progress.
+     */
+    void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     * @return the port
+     */
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the number of games held by the server.
+     * @return the number of games
+     */
+    int getGameCount() {
+        return sessions.size();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = Metrics.start();
+        try {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            String method = exchange.getRequestMethod();
+            if (path.length == 2) {
+                if (!method.equals("POST")) send(exchange, 405, error("use POST to start a game"));
+                else createGame(exchange);
+            } else if (path.length == 3) {
+                if (!method.equals("GET")) send(exchange, 405, error("use GET to read a game"));
+                else getGame(exchange, path[2]);
+            } else if (path.length == 4 && path[3].equals("guesses")) {
+                if (!method.equals("POST")) send(exchange, 405, error("use POST to make a guess"));
+                else makeGuess(exchange, path[2]);
+            } else {
+                send(exchange, 404, error("no such endpoint"));
+            }
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, error(e.getMessage()));
+        } catch (EmptyWordBankException e) {
+            send(exchange, 503, error(e.getMessage()));
+        } catch (RuntimeException e) {
+            // the details stay in the server log, away from the client
+            System.err.println("Internal error on " + exchange.getRequestMethod() + " "
+                               + exchange.getRequestURI() + ":");
+            e.printStackTrace();
+            send(exchange, 500, error("internal error"));
+        } finally {
+            exchange.close();
+            Metrics.stop(Metrics.Stage.REQUEST, start);
+        }
+    }
+
+    private void createGame(HttpExchange exchange) throws IOException, EmptyWordBankException {
+        String body = readBody(exchange);
+        Map<String,Object> request = body.trim().isEmpty() ? Map.of() : Json.parseObject(body);
+        GameConfig config = GameConfig.DEFAULT;
+        Object length = request.get("length");
+        if (length != null) {
+            if (!(length instanceof Long)) throw new IllegalArgumentException("bad length");
+            config = config.withLength(((Long) length).intValue());
+        }
+        if (Boolean.TRUE.equals(bool(request, "mixedLength"))) config = config.withMixedLength();
+        if (bool(request, "blind") != null) config = config.withBlind(bool(request, "blind"));
+        if (Boolean.TRUE.equals(bool(request, "hardMode"))) config = config.withHardMode(true);
+
+        String solution, explanation;
+        synchronized (bankLock) {
+            if (wordBank == null || wordBank.getSnapshot() != BankSnapshot.current()) {
+                wordBank = new WordBank();
+            }
+            try {
+                solution = wordBank.getSolution(config);
+            } catch (EmptyWordBankException e) {
+                wordBank = new WordBank();
+                solution = wordBank.getSolution(config);
+            }
+            explanation = wordBank.getExplanation(solution);
+        }
+        GuessDictionary dictionary;
+        try {
+            dictionary = GuessDictionary.shared();
+        } catch (IOException e) {
+            dictionary = null;
+        }
+        GameSession session = new GameSession(config, solution, explanation, dictionary);
+        String id = sessions.create(session);
+        send(exchange, 201, state(id, session));
+    }
+
+    private void getGame(HttpExchange exchange, String id) throws IOException {
+        StringBuilder state = sessions.view(id, session -> state(id, session));
+        if (state == null) send(exchange, 404, error("no such game"));
+        else send(exchange, 200, state);
+    }
+
+    private void makeGuess(HttpExchange exchange, String id) throws IOException {
+        Object guess = Json.parseObject(readBody(exchange)).get("guess");
+        if (!(guess instanceof String)) throw new IllegalArgumentException("missing guess");
+        int[] status = new int[1];
+        StringBuilder response = sessions.update(id, session -> {
+            if (session.isOver()) {
+                status[0] = 409;
+                return error("the game is over");
+            } else if (session.play((String) guess) < 0) {
+                status[0] = 422;
+                String violation = session.getHardModeViolation((String) guess);
+                return error(violation != null ? "hard mode: " + violation : "invalid guess");
+            }
+            stats.record(session);
+            status[0] = 200;
+            return state(id, session);
+        });
+        if (response == null) send(exchange, 404, error("no such game"));
+        else send(exchange, status[0], response);
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                send(exchange, 405, error("use GET to read the statistics"));
+            } else if ("format=csv".equals(exchange.getRequestURI().getQuery())) {
+                StringBuilder csv = new StringBuilder();
+                stats.writeCsv(csv);
+                send(exchange, 200, csv, "text/csv; charset=utf-8");
+            } else {
+                send(exchange, 200, stats.writeJson(new StringBuilder()));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                send(exchange, 405, error("use GET to read the metrics"));
+            } else {
+                send(exchange, 200, Metrics.writeText(new StringBuilder()),
+                     "text/plain; charset=utf-8");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static Boolean bool(Map<String,Object> request, String key) {
+        Object value = request.get(key);
+        if (value != null && !(value instanceof Boolean)) {
+            throw new IllegalArgumentException("bad " + key);
+        }
+        return (Boolean) value;
+    }
+
+    /**
+     * Writes the state of a game as JSON. The caller must hold the game, through
+     * {@code SessionStore.update()} or before storing it.
+     */
+    static StringBuilder state(String id, GameSession session) {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"id\":");
+        Json.quote(json, id);
+        json.append(",\"rules\":{\"length\":")
+            .append(session.isMixedLength() ? "null" : session.getSolution().length())
+            .append(",\"mixedLength\":").append(session.isMixedLength())
+            .append(",\"blind\":").append(session.isBlind())
+            .append(",\"hardMode\":").append(session.isHardMode())
+            .append(",\"guessMax\":").append(session.getGuessMax()).append('}');
+        json.append(",\"status\":\"").append(session.getStatus()).append('"');
+        json.append(",\"guessesMade\":").append(session.getGuessesMade());
+        json.append(",\"guessesRemaining\":").append(session.getGuessesRemaining());
+        json.append(",\"usedLetters\":\"");
+        for (int letter = 0; letter < 26; letter++) {
+            if (session.isLetterUsed(letter)) json.append((char) ('A' + letter));
+        }
+        json.append("\",\"guesses\":[");
+        for (int turn = 0; turn < session.getGuessesMade(); turn++) {
+            if (turn > 0) json.append(',');
+            clue(json, session.getGuess(turn), session.getClueCode(turn), session.isBlind());
+        }
+        json.append(']');
+        if (session.isOver()) {
+            json.append(",\"solution\":");
+            Json.quote(json, session.getSolution());
+            json.append(",\"explanation\":");
+            Json.quote(json, session.getExplanation());
+        }
+        return json.append('}');
+    }
+
+    /**
+     * Writes a guess and its clue as JSON: a mark per letter, or only the counts for blind games.
+     */
+    static StringBuilder clue(StringBuilder json, String guess, int code, boolean blind) {
+        json.append('{');
+        return clueFields(json, guess, code, blind).append('}');
+    }
+
+    /**
+     * Writes the members of the JSON object of {@code clue()}, without the braces, so that a
+     * caller can add members of its own.
+     */
+    static StringBuilder clueFields(StringBuilder json, String guess, int code, boolean blind) {
+        json.append("\"guess\":");
+        Json.quote(json, guess);
+        json.append(",\"correctLength\":").append(ClueCode.isCorrectLength(code));
+        if (blind) {
+            json.append(",\"correct\":").append(ClueCode.countCorrectChar(code))
+                .append(",\"present\":").append(ClueCode.countHasChar(code));
+        } else {
+            json.append(",\"marks\":[");
+            for (int pos = 0; pos < guess.length(); pos++) {
+                if (pos > 0) json.append(',');
+                int mark = ClueCode.markAt(code, pos);
+                json.append(mark == ClueCode.CORRECT ? "\"correct\""
+                          : mark == ClueCode.PRESENT ? "\"present\"" : "\"absent\"");
+            }
+            json.append(']');
+        }
+        return json;
+    }
+
+    private static StringBuilder error(String message) {
+        return Json.quote(new StringBuilder("{\"error\":"), message).append('}');
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                body.write(buffer, 0, read);
+                if (body.size() > MAX_BODY_BYTES) {
+                    throw new IllegalArgumentException("request body too large");
+                }
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void send(HttpExchange exchange, int status, CharSequence json)
+            throws IOException {
+        send(exchange, status, json, "application/json; charset=utf-8");
+    }
+
+    private static void send(HttpExchange exchange, int status, CharSequence body,
+                             String contentType) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Starts a game server. Arguments: the port to listen on (8080 by default). The games of the
+     * last snapshot are restored, and the games are snapshotted periodically and on shutdown.
+     * @param args the port, optional
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        BankWatcher.start();
+        SessionStore sessions = new SessionStore(DEFAULT_CAPACITY, DEFAULT_TTL_MILLIS);
+        Path snapshotPath = Paths.get(SessionStore.SNAPSHOT_PATH);
+        if (Files.isRegularFile(snapshotPath)) {
+            try {
+                System.out.println("Restored " + sessions.restore(snapshotPath) + " games");
+            } catch (IOException e) {
+                System.err.println("Could not restore the games: " + e);
+            }
+        }
+        sessions.start(snapshotPath, SNAPSHOT_MILLIS);
+        GameJournal journal = null;
+        try {
+            journal = GameJournal.shared();
+            sessions.setJournal(journal);
+        } catch (IOException e) {
+            System.err.println("Could not open the game journal, games are not journaled: " + e);
+        }
+        GameJournal openJournal = journal;
+        GameServer server = new GameServer(new InetSocketAddress(port), sessions);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            sessions.stop();
+            if (openJournal != null) openJournal.close();
+            try {
+                sessions.snapshot(snapshotPath);
+            } catch (IOException e) {
+                System.err.println("Could not snapshot the games: " + e);
+            }
+        }));
+        server.start();
+        System.out.println("Serving Wordle games on port " + server.getPort());
+    }
+}
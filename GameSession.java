@@ -0,0 +1,403 @@
+package wordle;
+
+/**
+ * The state and rules of one Wordle game, with no console input or output, so that a game can be
+ * driven programmatically, simulated or hosted. Console play ({@code BasicGame}, {@code BlindGame})
+ * is one front end on top of it. <p>
+ * Has the following methods: <p>
+ * > - {@code submitGuess()} plays a guess and returns a {@code GuessResult} with the clue, the
+ * number of guesses remaining and whether the game is won or lost. <p>
+ * > - {@code play()} does the same as {@code submitGuess()} but only returns the feedback code,
+ * allocating nothing. <p>
+ * > - {@code isValidGuess()} checks whether a guess is valid by the rules of the game. <p>
+ * > - {@code getHardModeViolation()} returns why a guess breaks the hard mode rule, if in play. <p>
+ * > - {@code isLetterUsed()} returns whether a letter has been used in any guess. <p>
+ * > - {@code getGuess()}, {@code getClueCode()} return the history of the game. <p>
+ * > - {@code reset()} starts a new game with the same rules, reusing the session. <p>
+ * > - {@code setJournal()} appends every later guess to a {@code GameJournal}. <p>
+ * The history is kept in arrays sized to the maximum number of guesses and used letters in a
+ * bitmask, so a session allocates nothing per guess besides the optional {@code GuessResult}.
+ * @see GuessResult
+ * @see AbstractGame
+ */
+class GameSession {
+
+    /**
+     * Status of a game: in progress, won or lost.
+     */
+    enum Status { IN_PROGRESS, WON, LOST }
+
+    private final int guessMax;
+    private final boolean mixedLength;
+    private final boolean blind;
+    private final GuessDictionary dictionary;
+    private final boolean hardMode;
+    private final String[] guesses;
+    private final int[] clueCodes;
+    private GameJournal journal;
+    private long journalGame;
+    private String solution, explanation;
+    private int guessesMade;
+    private int usedLetters;
+    private Status status;
+    // built from the history the first time a guess is checked, so that a session rebuilt from
+    // its history (see SessionStore) only pays for the rule when a guess is made
+    private HardMode constraints;
+
+    /**
+     * Constructor for {@code GameSession}, starting a game with the specified solution and rules.
+     * @param solution the solution to the game, in uppercase
+     * @param guessMax the maximum number of guesses allowed this game
+     * @param mixedLength whether or not the mixed length rule is in play
+     * @param blind whether or not the game gives blind clues
+     * @param explanation the flavour text for the solution
+     */
+    GameSession(String solution, int guessMax, boolean mixedLength, boolean blind,
+                String explanation) {
+        this(solution, guessMax, mixedLength, blind, explanation, null);
+    }
+
+    /**
+     * Constructor for {@code GameSession}, starting a game with the specified solution and rules,
+     * where guesses must also be words of the dictionary.
+     * @param solution the solution to the game, in uppercase
+     * @param guessMax the maximum number of guesses allowed this game
+     * @param mixedLength whether or not the mixed length rule is in play
+     * @param blind whether or not the game gives blind clues
+     * @param explanation the flavour text for the solution
+     * @param dictionary the words accepted as guesses, or {@code null} to accept any letters
+     */
+    GameSession(String solution, int guessMax, boolean mixedLength, boolean blind,
+                String explanation, GuessDictionary dictionary) {
+        this(solution, guessMax, mixedLength, blind, explanation, dictionary, false);
+    }
+
+    /**
+     * Constructor for {@code GameSession}, starting a game with the specified solution and rules,
+     * where guesses must also be words of the dictionary, and keep to the hard mode rule if it is
+     * in play.
+     * @param solution the solution to the game, in uppercase
+     * @param guessMax the maximum number of guesses allowed this game
+     * @param mixedLength whether or not the mixed length rule is in play
+     * @param blind whether or not the game gives blind clues
+     * @param explanation the flavour text for the solution
+     * @param dictionary the words accepted as guesses, or {@code null} to accept any letters
+     * @param hardMode whether every guess must reuse what the clues so far have revealed
+     * @see HardMode
+     */
+    GameSession(String solution, int guessMax, boolean mixedLength, boolean blind,
+                String explanation, GuessDictionary dictionary, boolean hardMode) {
+        this.guessMax = guessMax;
+        this.mixedLength = mixedLength;
+        this.blind = blind;
+        this.dictionary = dictionary;
+        this.hardMode = hardMode;
+        this.guesses = new String[guessMax];
+        this.clueCodes = new int[guessMax];
+        reset(solution, explanation);
+    }
+
+    /**
+     * Constructor for {@code GameSession}, starting a game with the specified solution, played by
+     * the rules of the configuration.
+     * @param config the rules of the game
+     * @param solution the solution to the game, in uppercase
+     * @param explanation the flavour text for the solution
+     * @param dictionary the words accepted as guesses, or {@code null} to accept any letters
+     */
+    GameSession(GameConfig config, String solution, String explanation,
+                GuessDictionary dictionary) {
+        this(solution, config.getGuessMax(), config.isMixedLength(), config.isBlind(), explanation,
+             dictionary, config.isHardMode());
+    }
+
+    /**
+     * Appends every guess played from now on to the journal, as events of the game with the id.
+     * The start of the game is appended by the caller, with {@code GameJournal.started()}.
+     * @param journal the journal, or {@code null} to stop appending
+     * @param game the id of the game in the journal
+     */
+    void setJournal(GameJournal journal, long game) {
+        this.journal = journal;
+        this.journalGame = game;
+    }
+
+    /**
+     * Starts a new game with the same rules and a new solution, forgetting every guess made. The
+     * new game is not appended to the journal of the old one, if any.
+     * @param solution the solution to the new game, in uppercase
+     * @param explanation the flavour text for the solution
+     */
+    void reset(String solution, String explanation) {
+        this.journal = null;
+        this.solution = solution;
+        this.explanation = explanation;
+        this.guessesMade = 0;
+        this.usedLetters = 0;
+        this.status = Status.IN_PROGRESS;
+        this.constraints = null;
+    }
+
+    /**
+     * Replaces the solution of the game in progress, keeping every guess made. The new solution
+     * must give the same clue as the old one for every guess made so far; used by
+     * {@code AdversarialGame}, which settles the solution as late as the clues allow.
+     * @param solution the new solution, in uppercase
+     * @param explanation the flavour text for the new solution
+     * @throws IllegalStateException if the game is already over
+     */
+    void reviseSolution(String solution, String explanation) {
+        if (status != Status.IN_PROGRESS) throw new IllegalStateException("The game is over.");
+        this.solution = solution;
+        this.explanation = explanation;
+    }
+
+    /**
+     * Plays a guess and returns the result. An invalid guess is not counted, and gives a result
+     * with {@code isValid()} false.
+     * @param guess the guess made, in any case
+     * @return the result of the guess
+     * @throws IllegalStateException if the game is already over
+     * @see GuessResult
+     */
+    GuessResult submitGuess(String guess) {
+        int code = play(guess);
+        if (code < 0) return new GuessResult(guess, -1, guessesMade, getGuessesRemaining(), status);
+        return new GuessResult(guesses[guessesMade - 1], code, guessesMade, getGuessesRemaining(),
+                               status);
+    }
+
+    /**
+     * Plays a guess and returns its feedback code, or -1 if the guess is invalid (in which case it
+     * is not counted). Allocates nothing if the guess is already in uppercase.
+     * @param guess the guess made, in any case
+     * @return the feedback code of the guess, or -1
+     * @throws IllegalStateException if the game is already over
+     * @see ClueCode
+     */
+    int play(String guess) {
+        if (status != Status.IN_PROGRESS) throw new IllegalStateException("The game is over.");
+        if (!isValidGuess(guess)) return -1;
+
+        guess = guess.toUpperCase();
+        long start = Metrics.start();
+        int code = ClueCode.score(guess, solution);
+        Metrics.stop(Metrics.Stage.CLUE, start);
+        record(guess, code);
+        if (journal != null) journal.guessed(journalGame, this);
+        return code;
+    }
+
+    /**
+     * Records a guess that was already checked and scored, without checking or scoring it again.
+     * Used to restore a session from its history (see {@code SessionStore}).
+     * @param guess the guess made, in uppercase
+     * @param code the feedback code of the guess
+     * @throws IllegalStateException if the game is already over
+     */
+    void record(String guess, int code) {
+        if (status != Status.IN_PROGRESS) throw new IllegalStateException("The game is over.");
+        guesses[guessesMade] = guess;
+        clueCodes[guessesMade] = code;
+        guessesMade++;
+        for (int pos = 0; pos < guess.length(); pos++) {
+            usedLetters |= 1 << (guess.charAt(pos) - 'A');
+        }
+        if (constraints != null) constraints.apply(guess, code);
+
+        if (ClueCode.isExactMatch(code, guess.length())) {
+            status = Status.WON;
+        } else if (guessesMade >= guessMax) {
+            status = Status.LOST;
+        }
+    }
+
+    /**
+     * Checks and returns whether the guess made is valid by the rules of the game. <p>
+     * A guess is valid when all characters are alphabetical characters, and the guess is either
+     * the same length as the solution of the game or if it is between 4 and 6 if the game plays
+     * by the mixed length rule. If the session has a dictionary, the guess must also be one of
+     * its words, and with the hard mode rule it must keep to every constraint revealed so far.
+     * @param guess the guess made
+     * @return whether the guess is valid
+     */
+    boolean isValidGuess(String guess) {
+        long start = Metrics.start();
+        boolean valid = checkGuess(guess, solution.length(), mixedLength, dictionary)
+                && (!hardMode || constraints().check(guess) == null);
+        Metrics.stop(Metrics.Stage.VALIDATE, start);
+        return valid;
+    }
+
+    /**
+     * Returns why the guess breaks the hard mode rule, for example "letter 2 must be P", or
+     * {@code null} if it keeps to it, the rule is not in play, or the guess is invalid for another
+     * reason.
+     * @param guess the guess made
+     * @return the reason the guess breaks the hard mode rule, or {@code null}
+     * @see HardMode
+     */
+    String getHardModeViolation(String guess) {
+        if (!hardMode || !checkGuess(guess, solution.length(), mixedLength, dictionary)) {
+            return null;
+        }
+        return constraints().check(guess);
+    }
+
+    private HardMode constraints() {
+        if (constraints == null) {
+            constraints = new HardMode(blind);
+            for (int turn = 0; turn < guessesMade; turn++) {
+                constraints.apply(guesses[turn], clueCodes[turn]);
+            }
+        }
+        return constraints;
+    }
+
+    /**
+     * Checks whether the guess is valid by the rules described in {@code isValidGuess()}, for a
+     * solution of the specified length. Shared with {@code MultiBoardSession}.
+     * @param guess the guess made
+     * @param length the length of the solution
+     * @param mixedLength whether the mixed length rule is in play
+     * @param dictionary the words accepted as guesses, or {@code null} to accept any letters
+     * @return whether the guess is valid
+     */
+    static boolean checkGuess(String guess, int length, boolean mixedLength,
+                              GuessDictionary dictionary) {
+        if ((guess.length() == length)
+        || (mixedLength && (4 <= guess.length()) && (guess.length() <= 6))) {
+            for (int pos = 0; pos < guess.length(); pos++) {
+                if (!('a' <= guess.charAt(pos) && guess.charAt(pos) <= 'z')
+                && !('A' <= guess.charAt(pos) && guess.charAt(pos) <= 'Z')) {
+                    return false;
+                }
+            }
+            return dictionary == null || dictionary.contains(guess);
+        } else return false;
+    }
+
+    /**
+     * Returns the dictionary guesses must be words of, or {@code null} if any letters are accepted.
+     * @return the dictionary of the session, or {@code null}
+     */
+    GuessDictionary getDictionary() {
+        return this.dictionary;
+    }
+
+    /**
+     * Returns whether the letter has been used in any guess so far.
+     * @param letter the letter, from 0 for A to 25 for Z
+     * @return whether the letter has been used
+     */
+    boolean isLetterUsed(int letter) {
+        return (usedLetters & (1 << letter)) != 0;
+    }
+
+    /**
+     * Returns the guess made on the specified turn, in uppercase.
+     * @param turn the turn of the guess, starting from 0
+     * @return the guess made on the turn
+     */
+    String getGuess(int turn) {
+        return guesses[turn];
+    }
+
+    /**
+     * Returns the feedback code received for the guess made on the specified turn.
+     * @param turn the turn of the guess, starting from 0
+     * @return the feedback code of the guess
+     * @see ClueCode
+     */
+    int getClueCode(int turn) {
+        return clueCodes[turn];
+    }
+
+    /**
+     * Returns the number of valid guesses made so far.
+     * @return the number of guesses made
+     */
+    int getGuessesMade() {
+        return this.guessesMade;
+    }
+
+    /**
+     * Returns the number of guesses that can still be made.
+     * @return the number of guesses remaining
+     */
+    int getGuessesRemaining() {
+        return guessMax - guessesMade;
+    }
+
+    /**
+     * Returns the order number of the next guess, starting from 1.
+     * @return the order number of the next guess
+     */
+    int getGuessCount() {
+        return guessesMade + 1;
+    }
+
+    /**
+     * Returns the status of the game.
+     * @return the status of the game
+     */
+    Status getStatus() {
+        return this.status;
+    }
+
+    /**
+     * Returns whether the game is over, ie won or lost.
+     * @return whether the game is over
+     */
+    boolean isOver() {
+        return status != Status.IN_PROGRESS;
+    }
+
+    /**
+     * Returns the solution of the game.
+     * @return the solution of the game
+     */
+    String getSolution() {
+        return this.solution;
+    }
+
+    /**
+     * Returns the flavour text for the solution.
+     * @return the flavour text for the solution
+     */
+    String getExplanation() {
+        return this.explanation;
+    }
+
+    /**
+     * Returns the maximum number of guesses that can be made this game.
+     * @return the max number of guesses this game
+     */
+    int getGuessMax() {
+        return this.guessMax;
+    }
+
+    /**
+     * Returns whether the game plays with the mixed length rule.
+     * @return whether the game plays with the mixed length rule
+     */
+    boolean isMixedLength() {
+        return this.mixedLength;
+    }
+
+    /**
+     * Returns whether the hard mode rule is in play.
+     * @return whether the hard mode rule is in play
+     */
+    boolean isHardMode() {
+        return this.hardMode;
+    }
+
+    /**
+     * Returns whether the game gives blind clues.
+     * @return whether the game gives blind clues
+     */
+    boolean isBlind() {
+        return this.blind;
+    }
+}
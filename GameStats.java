@@ -0,0 +1,352 @@
+package wordle;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live statistics of the games played, split by mode: normal or blind, and length 4, 5, 6 or
+ * mixed. For each mode, it keeps: <p>
+ * > - per solution word, the games won and lost, and the distribution of the number of guesses
+ * of the games won <p>
+ * > - how often each first guess is played <p>
+ * > - the current and best streak of games won in a row, if kept <p>
+ * Every counter is a {@code LongAdder}, which spreads concurrent updates over cells instead of
+ * contending on one value, so any number of games can end at once without waiting on each other;
+ * the counters of a word are created on its first game. Reading sums the cells, so a read never
+ * blocks a game either, and is as consistent as the counters at that moment. <p>
+ * A streak only means something when every game is played by the same player, so streaks are
+ * only kept by {@code shared()}, which holds the statistics of the console games of this JVM. The
+ * game server keeps its own statistics without streaks, since its games come from every player,
+ * and so do the statistics of a journal. {@code writeCsv()} and {@code writeJson()} export the
+ * statistics, one row per word and mode, which shows which words of the {@code bank} are too easy
+ * or too hard. Run {@code main()} to export the statistics of the games in the
+ * {@code GameJournal}.
+ * @see AbstractGame
+ * @see GameServer
+ */
+final class GameStats {
+    static final int MODES = 8;
+    static final int MAX_GUESSES = GameConfig.BLIND_GUESS_MAX;
+    static final int TOP_FIRST_GUESSES = 10;
+
+    private static final GameStats SHARED = new GameStats(true);
+
+    private static final class Counters {
+        final LongAdder wins = new LongAdder();
+        final LongAdder losses = new LongAdder();
+        final LongAdder[] guesses = new LongAdder[MAX_GUESSES + 1];
+
+        Counters() {
+            for (int i = 0; i < guesses.length; i++) guesses[i] = new LongAdder();
+        }
+    }
+
+    private final List<ConcurrentHashMap<String,Counters>> words =
+            new ArrayList<ConcurrentHashMap<String,Counters>>();
+    private final List<ConcurrentHashMap<String,LongAdder>> firstGuesses =
+            new ArrayList<ConcurrentHashMap<String,LongAdder>>();
+    private final AtomicLong[] streaks = new AtomicLong[MODES];
+    private final AtomicLong[] bestStreaks = new AtomicLong[MODES];
+    private final boolean keepsStreaks;
+
+    /**
+     * Constructor for {@code GameStats}, with no games recorded.
+     * @param keepsStreaks whether to keep streaks, only if every game is played by one player
+     */
+    GameStats(boolean keepsStreaks) {
+        this.keepsStreaks = keepsStreaks;
+        for (int mode = 0; mode < MODES; mode++) {
+            words.add(new ConcurrentHashMap<String,Counters>());
+            firstGuesses.add(new ConcurrentHashMap<String,LongAdder>());
+            streaks[mode] = new AtomicLong();
+            bestStreaks[mode] = new AtomicLong();
+        }
+    }
+
+    /**
+     * Returns the statistics of the console games played in this JVM, with streaks.
+     * @return the shared statistics
+     */
+    static GameStats shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the index of a mode, from 0 to {@code MODES - 1}.
+     * @param length the length of the solution, ignored with the mixed length rule
+     * @param mixedLength whether the mixed length rule is in play
+     * @param blind whether the game gives blind clues
+     * @return the index of the mode
+     */
+    static int mode(int length, boolean mixedLength, boolean blind) {
+        return (blind ? 4 : 0) + (mixedLength ? 3 : length - 4);
+    }
+
+    /**
+     * Returns the name of a mode, such as {@code normal-5} or {@code blind-mixed}.
+     * @param mode the index of the mode
+     * @return the name of the mode
+     */
+    static String modeName(int mode) {
+        return (mode >= 4 ? "blind-" : "normal-") + (mode % 4 == 3 ? "mixed" : mode % 4 + 4);
+    }
+
+    /**
+     * Records a game that is over.
+     * @param session the game
+     */
+    void record(GameSession session) {
+        if (!session.isOver()) return;
+        record(session.getSolution(), session.isMixedLength(), session.isBlind(),
+               session.getStatus() == GameSession.Status.WON, session.getGuessesMade(),
+               session.getGuessesMade() > 0 ? session.getGuess(0) : null);
+    }
+
+    /**
+     * Records a game that is over.
+     * @param solution the solution of the game
+     * @param mixedLength whether the mixed length rule was in play
+     * @param blind whether the game gave blind clues
+     * @param won whether the game was won
+     * @param guessesMade the number of guesses made
+     * @param firstGuess the first guess made, or {@code null} if there was none
+     */
+    void record(String solution, boolean mixedLength, boolean blind, boolean won, int guessesMade,
+                String firstGuess) {
+        int mode = mode(solution.length(), mixedLength, blind);
+        Counters counters = words.get(mode).computeIfAbsent(solution, word -> new Counters());
+        if (won) {
+            counters.wins.increment();
+            counters.guesses[Math.min(guessesMade, MAX_GUESSES)].increment();
+            if (keepsStreaks) {
+                long streak = streaks[mode].incrementAndGet();
+                bestStreaks[mode].accumulateAndGet(streak, Math::max);
+            }
+        } else {
+            counters.losses.increment();
+            if (keepsStreaks) streaks[mode].set(0);
+        }
+        if (firstGuess != null) {
+            firstGuesses.get(mode).computeIfAbsent(firstGuess, guess -> new LongAdder())
+                    .increment();
+        }
+    }
+
+    /**
+     * Returns the number of games recorded in a mode.
+     * @param mode the index of the mode
+     * @return the number of games
+     */
+    long getGames(int mode) {
+        long games = 0;
+        for (Counters counters : words.get(mode).values()) {
+            games += counters.wins.sum() + counters.losses.sum();
+        }
+        return games;
+    }
+
+    /**
+     * Returns the number of games won in a row most recently in a mode, 0 if streaks are not
+     * kept.
+     * @param mode the index of the mode
+     * @return the current streak
+     */
+    long getStreak(int mode) {
+        return streaks[mode].get();
+    }
+
+    /**
+     * Returns the most games won in a row in a mode, 0 if streaks are not kept.
+     * @param mode the index of the mode
+     * @return the best streak
+     */
+    long getBestStreak(int mode) {
+        return bestStreaks[mode].get();
+    }
+
+    /**
+     * Returns the most played first guesses of a mode, most played first.
+     * @param mode the index of the mode
+     * @param limit the maximum number of first guesses returned
+     * @return the first guesses and how often each was played
+     */
+    List<Map.Entry<String,Long>> getFirstGuesses(int mode, int limit) {
+        List<Map.Entry<String,Long>> guesses = new ArrayList<Map.Entry<String,Long>>();
+        for (Map.Entry<String,LongAdder> entry : firstGuesses.get(mode).entrySet()) {
+            guesses.add(Map.entry(entry.getKey(), entry.getValue().sum()));
+        }
+        guesses.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        return guesses.subList(0, Math.min(limit, guesses.size()));
+    }
+
+    /**
+     * Writes the statistics as CSV, with a header line and one line per word and mode, sorted by
+     * mode and word. The columns are the mode, the word, the games, wins and losses, the win rate,
+     * the mean number of guesses of the games won, and the number of games won in 1 to
+     * {@code MAX_GUESSES} guesses.
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    void writeCsv(Appendable out) throws IOException {
+        out.append("mode,word,games,wins,losses,winRate,meanGuesses");
+        for (int guesses = 1; guesses <= MAX_GUESSES; guesses++) {
+            out.append(",won").append(String.valueOf(guesses));
+        }
+        out.append('\n');
+        for (int mode = 0; mode < MODES; mode++) {
+            for (Map.Entry<String,long[]> entry : sums(mode).entrySet()) {
+                long[] sums = entry.getValue();
+                out.append(modeName(mode)).append(',').append(entry.getKey());
+                out.append(',').append(String.valueOf(sums[0] + sums[1]))
+                   .append(',').append(String.valueOf(sums[0]))
+                   .append(',').append(String.valueOf(sums[1]))
+                   .append(',').append(decimal(winRate(sums)))
+                   .append(',').append(decimal(meanGuesses(sums)));
+                for (int guesses = 1; guesses <= MAX_GUESSES; guesses++) {
+                    out.append(',').append(String.valueOf(sums[guesses + 1]));
+                }
+                out.append('\n');
+            }
+        }
+    }
+
+    /**
+     * Writes the statistics as a JSON object, with a member per mode that has games. Each mode
+     * holds its games, streaks (if kept), most played first guesses, and an object per word with
+     * the same numbers as the CSV.
+     * @param json where to write
+     * @return {@code json}, for chaining
+     */
+    StringBuilder writeJson(StringBuilder json) {
+        json.append('{');
+        boolean firstMode = true;
+        for (int mode = 0; mode < MODES; mode++) {
+            Map<String,long[]> sums = sums(mode);
+            if (sums.isEmpty()) continue;
+            if (!firstMode) json.append(',');
+            firstMode = false;
+            Json.quote(json, modeName(mode));
+            json.append(":{\"games\":").append(getGames(mode));
+            if (keepsStreaks) {
+                json.append(",\"streak\":").append(getStreak(mode))
+                    .append(",\"bestStreak\":").append(getBestStreak(mode));
+            }
+            json.append(",\"firstGuesses\":{");
+            List<Map.Entry<String,Long>> first = getFirstGuesses(mode, TOP_FIRST_GUESSES);
+            for (int i = 0; i < first.size(); i++) {
+                if (i > 0) json.append(',');
+                Json.quote(json, first.get(i).getKey()).append(':').append(first.get(i).getValue());
+            }
+            json.append("},\"words\":{");
+            boolean firstWord = true;
+            for (Map.Entry<String,long[]> entry : sums.entrySet()) {
+                long[] word = entry.getValue();
+                if (!firstWord) json.append(',');
+                firstWord = false;
+                Json.quote(json, entry.getKey());
+                json.append(":{\"wins\":").append(word[0]).append(",\"losses\":").append(word[1])
+                    .append(",\"winRate\":").append(decimal(winRate(word)))
+                    .append(",\"meanGuesses\":").append(decimal(meanGuesses(word)))
+                    .append(",\"won\":[");
+                for (int guesses = 1; guesses <= MAX_GUESSES; guesses++) {
+                    if (guesses > 1) json.append(',');
+                    json.append(word[guesses + 1]);
+                }
+                json.append("]}");
+            }
+            json.append("}}");
+        }
+        return json.append('}');
+    }
+
+    /**
+     * Sums the counters of every word of a mode, sorted by word: wins, losses, then the games won
+     * in 1 to {@code MAX_GUESSES} guesses.
+     */
+    private Map<String,long[]> sums(int mode) {
+        Map<String,long[]> sums = new TreeMap<String,long[]>();
+        for (Map.Entry<String,Counters> entry : words.get(mode).entrySet()) {
+            Counters counters = entry.getValue();
+            long[] word = new long[MAX_GUESSES + 2];
+            word[0] = counters.wins.sum();
+            word[1] = counters.losses.sum();
+            for (int guesses = 1; guesses <= MAX_GUESSES; guesses++) {
+                word[guesses + 1] = counters.guesses[guesses].sum();
+            }
+            sums.put(entry.getKey(), word);
+        }
+        return sums;
+    }
+
+    private static double winRate(long[] word) {
+        long games = word[0] + word[1];
+        return games == 0 ? 0 : (double) word[0] / games;
+    }
+
+    private static double meanGuesses(long[] word) {
+        long total = 0;
+        for (int guesses = 1; guesses <= MAX_GUESSES; guesses++) {
+            total += guesses * word[guesses + 1];
+        }
+        return word[0] == 0 ? 0 : (double) total / word[0];
+    }
+
+    private static String decimal(double value) {
+        return String.format(Locale.ROOT, "%.4f", value);
+    }
+
+    /**
+     * Returns the statistics of the games that ended in a journal. Games compacted out of the
+     * journal, and games abandoned before they ended, are not counted.
+     * @param directory the journal directory
+     * @return the statistics
+     * @throws IOException if the journal cannot be read
+     */
+    static GameStats fromJournal(Path directory) throws IOException {
+        GameStats stats = new GameStats(false);
+        Map<Long,GameJournal.Event> starts = new HashMap<Long,GameJournal.Event>();
+        Map<Long,String> firsts = new HashMap<Long,String>();
+        GameJournal.replay(directory, event -> {
+            if (event.type == GameJournal.START) {
+                starts.putIfAbsent(event.game, event);
+            } else if (event.type == GameJournal.GUESS && event.detail == 0) {
+                firsts.putIfAbsent(event.game, event.word);
+            } else if (event.type == GameJournal.END) {
+                GameJournal.Event start = starts.remove(event.game);
+                String first = firsts.remove(event.game);
+                // an abandoned game was neither won nor lost
+                if (start == null || event.detail == GameSession.Status.IN_PROGRESS.ordinal()) {
+                    return;
+                }
+                stats.record(start.word, start.isMixedLength(), start.isBlind(),
+                             event.detail == GameSession.Status.WON.ordinal(), event.value, first);
+            }
+        });
+        return stats;
+    }
+
+    /**
+     * Prints the statistics of the games in the journal. Arguments: {@code csv} or {@code json}
+     * ({@code csv} by default), and the journal directory ({@code GameJournal.JOURNAL_PATH} by
+     * default).
+     * @param args the format and the journal directory, both optional
+     * @throws IOException if the journal cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        boolean json = args.length > 0 && args[0].equals("json");
+        Path directory = Paths.get(args.length > 1 ? args[1] : GameJournal.JOURNAL_PATH);
+        GameStats stats = fromJournal(directory);
+        if (json) System.out.println(stats.writeJson(new StringBuilder()));
+        else stats.writeCsv(System.out);
+    }
+}
@@ -0,0 +1,215 @@
+package wordle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The words accepted as guesses, on top of the words of the bank. Read from the optional file
+ * {@code dictionary}, which holds one word per line; lines that are not a word of 4 to 6 letters
+ * are ignored. Without that file, any letters are accepted as before. No dictionary is shipped
+ * with the game: any word list will do, for example the public domain ENABLE list, or the words
+ * of a Unix system dictionary, taken with
+ * {@code grep -E '^[A-Za-z]{4,6}$' /usr/share/dict/words > src/wordle/dictionary}. <p>
+ * Every word of 6 letters or less packs into 30 bits (see {@code PackedWord}), so the dictionary
+ * is stored as a sorted array of {@code int}s, and a lookup is a binary search over it: about 20
+ * steps for a million words, at 4 bytes per word and no objects per word. <p>
+ * The sorted array is compiled into a cache file next to {@code dictionary}, with a header
+ * (magic number, {@code VERSION}, a hash of the dictionary and the bank it was compiled with, and
+ * the number of words), and memory-mapped by later runs. It is rebuilt whenever the header does
+ * not match. <p>
+ * Has the following methods: <p>
+ * > - {@code shared()} returns the dictionary for the current bank, or {@code null} if there is no
+ * file {@code dictionary}. <p>
+ * > - {@code load()} returns the dictionary of any word list together with a bank snapshot. <p>
+ * > - {@code contains()} returns whether a guess, in any case, is in the dictionary.
+ * @see GameSession
+ * @see PackedWord
+ */
+final class GuessDictionary {
+    static final String DICTIONARY_PATH = "src/wordle/dictionary";
+    static final String CACHE_SUFFIX = ".bin";
+    static final int VERSION = 1;
+
+    private static final int MAGIC = 0x53574744;
+    private static final int HEADER_SIZE = 24;
+
+    private static volatile Shared shared;
+
+    private final IntBuffer words;
+    private final int size;
+
+    private GuessDictionary(IntBuffer words) {
+        this.words = words;
+        this.size = words.limit();
+    }
+
+    /**
+     * The shared dictionary, or {@code null} if there is no file {@code dictionary}, and the bank
+     * snapshot it was loaded for.
+     */
+    private static final class Shared {
+        final BankSnapshot snapshot;
+        final GuessDictionary dictionary;
+
+        Shared(BankSnapshot snapshot, GuessDictionary dictionary) {
+            this.snapshot = snapshot;
+            this.dictionary = dictionary;
+        }
+    }
+
+    /**
+     * Returns the dictionary of the file {@code dictionary} together with the words of the
+     * current bank, loaded with {@code load()} the first time this is called and shared by every
+     * later caller, until the bank is reloaded. Returns {@code null} if there is no file
+     * {@code dictionary}, in which case any letters are accepted as guesses. <p>
+     * Whether there is a file is only checked again once the bank is reloaded, so a call for the
+     * same snapshot reads one {@code volatile} field and takes no lock; only loading locks.
+     * @return the shared dictionary, or {@code null}
+     * @throws IOException if a file cannot be read
+     */
+    static GuessDictionary shared() throws IOException {
+        BankSnapshot snapshot = BankSnapshot.current();
+        Shared current = shared;
+        if (current != null && current.snapshot == snapshot) return current.dictionary;
+        synchronized (GuessDictionary.class) {
+            current = shared;
+            if (current == null || current.snapshot != snapshot) {
+                Path path = Paths.get(DICTIONARY_PATH);
+                current = new Shared(snapshot,
+                                     Files.isRegularFile(path) ? load(path, snapshot) : null);
+                shared = current;
+            }
+            return current.dictionary;
+        }
+    }
+
+    /**
+     * Returns the dictionary of the word list together with the words of the bank snapshot. If
+     * the cache file next to the word list was compiled from the same word list and bank with the
+     * same {@code VERSION}, it is memory-mapped. Otherwise the dictionary is compiled and written
+     * to the cache file for the next run; failing to write it is not an error.
+     * @param path the word list, one word per line
+     * @param snapshot the bank whose words are accepted too
+     * @return the dictionary
+     * @throws IOException if the word list or the cache file cannot be read
+     */
+    static GuessDictionary load(Path path, BankSnapshot snapshot) throws IOException {
+        byte[] contents = Files.readAllBytes(path);
+        long hash = FeedbackMatrix.hash(contents) ^ snapshot.getHash();
+        Path cachePath = Paths.get(path + CACHE_SUFFIX);
+
+        if (Files.isRegularFile(cachePath)) {
+            try (FileChannel channel = FileChannel.open(cachePath, StandardOpenOption.READ)) {
+                if (channel.size() >= HEADER_SIZE) {
+                    ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                    int size = (header.getInt() == MAGIC && header.getInt() == VERSION
+                                && header.getLong() == hash) ? header.getInt() : -1;
+                    if (size >= 0 && channel.size() == HEADER_SIZE + 4L * size) {
+                        return new GuessDictionary(channel.map(FileChannel.MapMode.READ_ONLY,
+                                HEADER_SIZE, 4L * size).asIntBuffer());
+                    }
+                }
+            }
+        }
+
+        int[] packed = compile(new String(contents, StandardCharsets.UTF_8), snapshot);
+        try {
+            write(cachePath, hash, packed);
+        } catch (IOException e) {
+            // the cache is only an optimisation, the next run will try again
+        }
+        return new GuessDictionary(IntBuffer.wrap(packed));
+    }
+
+    /**
+     * Packs every word of the word list and the bank, and returns them sorted without duplicates.
+     */
+    private static int[] compile(String wordList, BankSnapshot snapshot) {
+        String[] lines = wordList.split("\r?\n");
+        int[] packed = new int[lines.length + snapshot.getAllWords().size()];
+        int count = 0;
+        for (String line : lines) {
+            int word = pack(line.trim());
+            if (word >= 0) packed[count++] = word;
+        }
+        for (String line : snapshot.getAllWords()) {
+            int word = pack(line);
+            if (word >= 0) packed[count++] = word;
+        }
+        Arrays.sort(packed, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || packed[distinct - 1] != packed[i]) packed[distinct++] = packed[i];
+        }
+        return Arrays.copyOf(packed, distinct);
+    }
+
+    /**
+     * Writes the dictionary to the cache file, through a temporary file so that a concurrent
+     * reader never sees a partially written dictionary.
+     */
+    private static void write(Path cachePath, long hash, int[] packed) throws IOException {
+        Path tempPath = cachePath.resolveSibling(cachePath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4 * packed.length);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(hash).putInt(packed.length).putInt(0);
+            buffer.asIntBuffer().put(packed);
+            buffer.rewind();
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+        Files.move(tempPath, cachePath, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Packs a word of 4 to 6 letters in any case as {@code PackedWord.pack()} would its uppercase,
+     * or returns -1 if it is anything else.
+     */
+    private static int pack(CharSequence word) {
+        if (word.length() < 4 || word.length() > ClueCode.MAX_LENGTH) return -1;
+        int packed = 0;
+        for (int pos = 0; pos < word.length(); pos++) {
+            int letter = (word.charAt(pos) | 0x20) - 'a';
+            if (letter < 0 || letter >= 26) return -1;
+            packed |= (letter + 1) << (PackedWord.BITS_PER_LETTER * pos);
+        }
+        return packed;
+    }
+
+    /**
+     * Returns whether the guess is in the dictionary, in any case.
+     * @param guess the guess made
+     * @return whether the guess is a word of the dictionary
+     */
+    boolean contains(CharSequence guess) {
+        int key = pack(guess);
+        if (key < 0) return false;
+        int low = 0, high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int word = words.get(mid);
+            if (word < key) low = mid + 1;
+            else if (word > key) high = mid - 1;
+            else return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of words in the dictionary, including the words of the bank.
+     * @return the number of words
+     */
+    int size() {
+        return this.size;
+    }
+}
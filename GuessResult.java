@@ -0,0 +1,110 @@
+package wordle;
+
+/**
+ * The result of submitting a guess to a {@code GameSession}. Has the following methods: <p>
+ * > - {@code isValid()} returns whether the guess was valid, and so counted. <p>
+ * > - {@code getGuess()} returns the guess, in uppercase if it was valid. <p>
+ * > - {@code getCode()} and {@code getClue()} return the clue for the guess. <p>
+ * > - {@code getGuessNumber()} returns the order number of the guess, starting from 1. <p>
+ * > - {@code getGuessesRemaining()} returns the number of guesses that can still be made. <p>
+ * > - {@code getStatus()}, {@code isWon()}, {@code isLost()} return the status of the game after
+ * the guess.
+ * @see GameSession
+ */
+final class GuessResult {
+    private final String guess;
+    private final int code;
+    private final int guessNumber;
+    private final int guessesRemaining;
+    private final GameSession.Status status;
+
+    /**
+     * Constructor for {@code GuessResult}.
+     * @param guess the guess made
+     * @param code the feedback code of the guess, or -1 if the guess was invalid
+     * @param guessNumber the order number of the guess (or of the last valid guess if invalid)
+     * @param guessesRemaining the number of guesses that can still be made
+     * @param status the status of the game after the guess
+     */
+    GuessResult(String guess, int code, int guessNumber, int guessesRemaining,
+                GameSession.Status status) {
+        this.guess = guess;
+        this.code = code;
+        this.guessNumber = guessNumber;
+        this.guessesRemaining = guessesRemaining;
+        this.status = status;
+    }
+
+    /**
+     * Returns whether the guess was valid. Invalid guesses are not counted and give no clue.
+     * @return whether the guess was valid
+     */
+    boolean isValid() {
+        return code >= 0;
+    }
+
+    /**
+     * Returns the guess, in uppercase if it was valid.
+     * @return the guess
+     */
+    String getGuess() {
+        return this.guess;
+    }
+
+    /**
+     * Returns the feedback code of the guess, or -1 if the guess was invalid.
+     * @return the feedback code of the guess
+     * @see ClueCode
+     */
+    int getCode() {
+        return this.code;
+    }
+
+    /**
+     * Returns a {@code Clue} view of the feedback code, or {@code null} if the guess was invalid.
+     * @return the clue for the guess
+     */
+    Clue getClue() {
+        return isValid() ? new Clue(code, guess.length()) : null;
+    }
+
+    /**
+     * Returns the order number of the guess, starting from 1.
+     * @return the order number of the guess
+     */
+    int getGuessNumber() {
+        return this.guessNumber;
+    }
+
+    /**
+     * Returns the number of guesses that can still be made.
+     * @return the number of guesses remaining
+     */
+    int getGuessesRemaining() {
+        return this.guessesRemaining;
+    }
+
+    /**
+     * Returns the status of the game after the guess.
+     * @return the status of the game
+     */
+    GameSession.Status getStatus() {
+        return this.status;
+    }
+
+    /**
+     * Returns whether the guess won the game.
+     * @return whether the game is won
+     */
+    boolean isWon() {
+        return status == GameSession.Status.WON;
+    }
+
+    /**
+     * Returns whether the guess used up the last guess without winning.
+     * @return whether the game is lost
+     */
+    boolean isLost() {
+        return status == GameSession.Status.LOST;
+    }
+}
@@ -0,0 +1,125 @@
+package wordle;
+
+/**
+ * The hard mode rule of a game: every guess must reuse what the clues so far have revealed. A
+ * guess must: <p>
+ * > - keep every letter marked correct at its position <p>
+ * > - contain every letter marked present, as many times as it was marked correct or present in
+ * one guess <p>
+ * > - not contain a letter revealed absent from the solution <p>
+ * > - with the mixed length rule, be of the length revealed correct, or not of a length revealed
+ * incorrect <p>
+ * Rather than replaying every clue on each check, the revealed constraints are kept as a running
+ * state, updated by {@code apply()} after each guess: the fixed letter of every position, the
+ * minimum count of every letter, a bitmask of the excluded letters and a bitmask of the lengths
+ * still allowed. {@code check()} then reads the letters of the guess once, so a check takes time
+ * in the length of the guess, however many guesses were made. <p>
+ * The rules hold whether or not the guess was of the correct length: a letter marked correct in a
+ * guess of the wrong length is still at that position in the solution, which then has to be long
+ * enough to hold it. Blind clues reveal no letter, so in a blind game only the length is held to.
+ * @see GameSession
+ * @see CandidateSet
+ */
+final class HardMode {
+    private static final int ALL_LENGTHS = (1 << 4) | (1 << 5) | (1 << 6);
+
+    private final boolean blind;
+    // the letter (1 for A up to 26 for Z) revealed at every position, or 0
+    private final byte[] fixed = new byte[ClueCode.MAX_LENGTH];
+    private final byte[] minCount = new byte[26];
+    private int required;
+    private int excluded;
+    private int lengths = ALL_LENGTHS;
+
+    /**
+     * Constructor for {@code HardMode}, with nothing revealed yet.
+     * @param blind whether the game gives blind clues
+     */
+    HardMode(boolean blind) {
+        this.blind = blind;
+    }
+
+    /**
+     * Adds the constraints revealed by the feedback code of a guess.
+     * @param guess the guess made, in uppercase
+     * @param code the feedback code received for the guess
+     * @see ClueCode
+     */
+    void apply(String guess, int code) {
+        if (ClueCode.isCorrectLength(code)) {
+            lengths = 1 << guess.length();
+        } else {
+            lengths &= ~(1 << guess.length());
+        }
+        if (blind) return;
+
+        int absentLetters = 0;
+        int marked = 0;
+        byte[] counts = new byte[26];
+        for (int pos = 0; pos < guess.length(); pos++) {
+            int letter = guess.charAt(pos) - 'A';
+            int mark = ClueCode.markAt(code, pos);
+            if (mark == ClueCode.ABSENT) {
+                absentLetters |= 1 << letter;
+                continue;
+            }
+            if (mark == ClueCode.CORRECT) fixed[pos] = (byte) (letter + 1);
+            counts[letter]++;
+            marked |= 1 << letter;
+        }
+        for (int rest = marked; rest != 0; rest &= rest - 1) {
+            int letter = Integer.numberOfTrailingZeros(rest);
+            if (counts[letter] > minCount[letter]) minCount[letter] = counts[letter];
+        }
+        required |= marked;
+        excluded |= absentLetters & ~required;
+    }
+
+    /**
+     * Checks the guess against every constraint revealed so far, and returns why it breaks one, or
+     * {@code null} if it keeps to them all.
+     * @param guess the guess, of alphabetical characters in any case
+     * @return the reason the guess is rejected, or {@code null}
+     */
+    String check(String guess) {
+        int length = guess.length();
+        if ((lengths & (1 << length)) == 0) {
+            if (Integer.bitCount(lengths) == 1) {
+                return "guess must be " + Integer.numberOfTrailingZeros(lengths) + " letters long";
+            }
+            return "a guess of " + length + " letters was revealed to be the wrong length";
+        }
+
+        // the count of every letter of the guess, 4 bits per letter as in ClueCode.score()
+        long countsLow = 0, countsHigh = 0;
+        int letters = 0;
+        for (int pos = 0; pos < length; pos++) {
+            int letter = Character.toUpperCase(guess.charAt(pos)) - 'A';
+            if (letter < 16) countsLow += 1L << (letter << 2);
+            else countsHigh += 1L << ((letter - 16) << 2);
+            letters |= 1 << letter;
+        }
+
+        for (int pos = 0; pos < fixed.length; pos++) {
+            if (fixed[pos] == 0) continue;
+            char letter = (char) ('A' + fixed[pos] - 1);
+            if (pos >= length || Character.toUpperCase(guess.charAt(pos)) != letter) {
+                return "letter " + (pos + 1) + " must be " + letter;
+            }
+        }
+        for (int rest = required; rest != 0; rest &= rest - 1) {
+            int letter = Integer.numberOfTrailingZeros(rest);
+            long count = letter < 16 ? (countsLow >>> (letter << 2)) & 0xF
+                                     : (countsHigh >>> ((letter - 16) << 2)) & 0xF;
+            if (count < minCount[letter]) {
+                return "guess must contain " + (char) ('A' + letter)
+                       + (minCount[letter] == 1 ? "" : " " + minCount[letter] + " times");
+            }
+        }
+        if ((letters & excluded) != 0) {
+            return "guess must not contain "
+                   + (char) ('A' + Integer.numberOfTrailingZeros(letters & excluded));
+        }
+        return null;
+    }
+}
@@ -0,0 +1,199 @@
+package wordle;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough JSON for the game server and batch mode, without any library. <p>
+ * {@code parse()} reads any JSON value into plain Java objects: a {@code Map<String,Object>} (in
+ * key order) for an object, a {@code List<Object>} for an array, a {@code String}, a {@code Long}
+ * for an integer, a {@code Double} for any other number, a {@code Boolean}, or {@code null}.
+ * Malformed input throws {@code IllegalArgumentException}. <p>
+ * {@code quote()} writes a string as a JSON string literal; everything else is written directly
+ * with a {@code StringBuilder} by the caller.
+ * @see GameServer
+ */
+final class Json {
+    private final String text;
+    private int pos;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parses a JSON value.
+     * @param text the JSON text
+     * @return the value, as described in the class comment
+     * @throws IllegalArgumentException if the text is not valid JSON
+     */
+    static Object parse(String text) {
+        Json json = new Json(text);
+        Object value = json.value();
+        json.skipWhitespace();
+        if (json.pos != text.length()) throw json.error("unexpected text after the value");
+        return value;
+    }
+
+    /**
+     * Parses a JSON object.
+     * @param text the JSON text
+     * @return the object, as a map from key to value
+     * @throws IllegalArgumentException if the text is not a valid JSON object
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String,Object> parseObject(String text) {
+        Object value = parse(text);
+        if (!(value instanceof Map)) throw new IllegalArgumentException("expected a JSON object");
+        return (Map<String,Object>) value;
+    }
+
+    /**
+     * Appends the string as a JSON string literal, with quotes and escapes.
+     * @param json the JSON being written
+     * @param string the string, or {@code null} to write {@code null}
+     * @return {@code json}, for chaining
+     */
+    static StringBuilder quote(StringBuilder json, String string) {
+        if (string == null) return json.append("null");
+        json.append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '"': json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20) json.append(String.format("\\u%04x", (int) c));
+                    else json.append(c);
+            }
+        }
+        return json.append('"');
+    }
+
+    private Object value() {
+        skipWhitespace();
+        if (pos >= text.length()) throw error("unexpected end of input");
+        char c = text.charAt(pos);
+        switch (c) {
+            case '{': return object();
+            case '[': return array();
+            case '"': return string();
+            case 't': return literal("true", Boolean.TRUE);
+            case 'f': return literal("false", Boolean.FALSE);
+            case 'n': return literal("null", null);
+            default:
+                if (c == '-' || ('0' <= c && c <= '9')) return number();
+                throw error("unexpected character '" + c + "'");
+        }
+    }
+
+    private Map<String,Object> object() {
+        Map<String,Object> object = new LinkedHashMap<String,Object>();
+        pos++;
+        skipWhitespace();
+        if (peek('}')) return object;
+        do {
+            skipWhitespace();
+            if (pos >= text.length() || text.charAt(pos) != '"') throw error("expected a key");
+            String key = string();
+            skipWhitespace();
+            expect(':');
+            object.put(key, value());
+            skipWhitespace();
+        } while (peek(','));
+        expect('}');
+        return object;
+    }
+
+    private List<Object> array() {
+        List<Object> array = new ArrayList<Object>();
+        pos++;
+        skipWhitespace();
+        if (peek(']')) return array;
+        do {
+            array.add(value());
+            skipWhitespace();
+        } while (peek(','));
+        expect(']');
+        return array;
+    }
+
+    private String string() {
+        StringBuilder string = new StringBuilder();
+        pos++;
+        while (true) {
+            if (pos >= text.length()) throw error("unterminated string");
+            char c = text.charAt(pos++);
+            if (c == '"') return string.toString();
+            if (c != '\\') {
+                string.append(c);
+                continue;
+            }
+            if (pos >= text.length()) throw error("unterminated string");
+            char escape = text.charAt(pos++);
+            switch (escape) {
+                case '"': case '\\': case '/': string.append(escape); break;
+                case 'b': string.append('\b'); break;
+                case 'f': string.append('\f'); break;
+                case 'n': string.append('\n'); break;
+                case 'r': string.append('\r'); break;
+                case 't': string.append('\t'); break;
+                case 'u':
+                    if (pos + 4 > text.length()) throw error("bad unicode escape");
+                    try {
+                        string.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("bad unicode escape");
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    throw error("bad escape '\\" + escape + "'");
+            }
+        }
+    }
+
+    private Object number() {
+        int start = pos;
+        if (text.charAt(pos) == '-') pos++;
+        while (pos < text.length() && "0123456789.eE+-".indexOf(text.charAt(pos)) >= 0) pos++;
+        String number = text.substring(start, pos);
+        try {
+            if (number.matches("-?\\d+")) return Long.parseLong(number);
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            throw error("bad number '" + number + "'");
+        }
+    }
+
+    private Object literal(String literal, Object value) {
+        if (!text.startsWith(literal, pos)) throw error("unexpected character");
+        pos += literal.length();
+        return value;
+    }
+
+    private void skipWhitespace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+    }
+
+    private boolean peek(char c) {
+        if (pos < text.length() && text.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!peek(c)) throw error("expected '" + c + "'");
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("invalid JSON at " + pos + ": " + message);
+    }
+}
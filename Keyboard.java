@@ -1,22 +1,49 @@
 package wordle;
-import java.util.Scanner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.NoSuchElementException;
 
 /**
  * Utility for receiving inputs from the terminal, using the static method {@code getInput()}. <p>
- * Code example: {@code String input = Keyboard.getInput("Enter a message. ")} 
+ * Code example: {@code String input = Keyboard.getInput("Enter a message. ")} <p>
+ * Every call reads from one shared {@code BufferedReader} over {@code System.in}, so input read
+ * ahead by one call is kept for the next, and a script piped through the standard input is read
+ * in full, one word per input.
  */
 public class Keyboard {
+    private static final BufferedReader IN = new BufferedReader(new InputStreamReader(System.in));
+    private static final String[] NO_WORDS = new String[0];
+
+    private static String[] words = NO_WORDS;
+    private static int next;
 
     /**
-     * Prints the message included, then reads and returns the string on inputs until the next line.
+     * Prints the message included, then reads and returns the next word of input, waiting for
+     * a line if the last one has no words left.
      * @param msg the message included
-     * @return string of inputs until the next line
+     * @return the next word of input
+     * @throws NoSuchElementException if the input has ended
      */
-    public static String getInput(String msg) {
-        @SuppressWarnings("resource")
-        Scanner keyboard = new Scanner(System.in);
+    public static synchronized String getInput(String msg) {
         System.out.print(msg);
-        String input = keyboard.next();
-        return input;
+        System.out.flush();
+        long start = Metrics.start();
+        try {
+            while (next >= words.length) {
+                String line = IN.readLine();
+                if (line == null) throw new NoSuchElementException("The input has ended.");
+                line = line.trim();
+                words = line.isEmpty() ? NO_WORDS : line.split("\\s+");
+                next = 0;
+            }
+            return words[next++];
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            Metrics.stop(Metrics.Stage.KEYBOARD, start);
+        }
     }
 }
@@ -0,0 +1,217 @@
+package wordle;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Latency instrumentation of the stages of a game: loading the bank, scoring a clue, validating a
+ * guess, rendering a clue, waiting on the keyboard, and serving a request. Each stage records
+ * into a latency histogram, and emits a {@code wordle.Stage} JFR event when a flight recording
+ * has it enabled. A stage is timed with: <p>
+ * {@code long start = Metrics.start(); ... Metrics.stop(Metrics.Stage.CLUE, start);} <p>
+ * The histograms are HDR-style: each power of two of nanoseconds is split into
+ * {@code SUB_BUCKETS} buckets, so a value is recorded within about 3% of its size over the whole
+ * range, in a fixed array of counters updated with one atomic add and no lock. <p>
+ * Metrics are off unless the JVM runs with {@code -Dwordle.metrics=true} or they are turned on
+ * with {@code setEnabled()}. When off, {@code start()} reads one field and returns 0, and
+ * {@code stop()} returns at once, so the instrumentation stays in place at next to no cost.
+ * {@code writeText()} writes a snapshot of every stage as plain text, shown by the
+ * {@code GameMaster} menu and by {@code GET /metrics} on the {@code GameServer}.
+ * @see GameMaster
+ * @see GameServer
+ */
+final class Metrics {
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private static volatile boolean enabled = Boolean.getBoolean("wordle.metrics");
+
+    /**
+     * The stages timed.
+     */
+    enum Stage {
+        BANK_LOAD("bank load"),
+        CLUE("clue scoring"),
+        VALIDATE("guess validation"),
+        RENDER("clue rendering"),
+        KEYBOARD("keyboard wait"),
+        REQUEST("server request");
+
+        final String label;
+        final Histogram histogram = new Histogram();
+
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * A latency histogram in nanoseconds, as described in the class comment.
+     */
+    static final class Histogram {
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        /**
+         * Records a latency.
+         * @param nanos the latency, in nanoseconds
+         */
+        void record(long nanos) {
+            counts.incrementAndGet(bucket(Math.max(0, nanos)));
+        }
+
+        /**
+         * Returns the number of latencies recorded.
+         * @return the number of latencies
+         */
+        long count() {
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) count += counts.get(i);
+            return count;
+        }
+
+        /**
+         * Returns a copy of the counts of every bucket, which a snapshot is computed from.
+         * @return the counts by bucket
+         */
+        long[] snapshot() {
+            long[] snapshot = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) snapshot[i] = counts.get(i);
+            return snapshot;
+        }
+
+        /**
+         * Forgets every latency recorded.
+         */
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        }
+
+        static int bucket(long nanos) {
+            if (nanos < 2 * SUB_BUCKETS) return (int) nanos;
+            int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+            return (shift + 1) * SUB_BUCKETS + (int) (nanos >>> shift) - SUB_BUCKETS;
+        }
+
+        static long lowerBound(int bucket) {
+            if (bucket < 2 * SUB_BUCKETS) return bucket;
+            int shift = bucket / SUB_BUCKETS - 1;
+            return (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        }
+    }
+
+    /**
+     * The JFR event of a stage, enabled like any other event in a flight recording settings file.
+     */
+    @Name("wordle.Stage")
+    @Label("Wordle Stage")
+    @Category("Wordle")
+    @Description("A timed stage of a Wordle game")
+    static final class StageEvent extends Event {
+        @Label("Stage")
+        String stage;
+
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns whether metrics are recorded.
+     * @return whether metrics are on
+     */
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns metrics on or off.
+     * @param on whether metrics are recorded
+     */
+    static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * Returns the start time of a stage, or 0 if metrics are off.
+     * @return the start time, to give to {@code stop()}
+     */
+    static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the latency of a stage since its start, unless metrics were off at its start.
+     * @param stage the stage
+     * @param start the start time returned by {@code start()}
+     */
+    static void stop(Stage stage, long start) {
+        if (start == 0) return;
+        long latency = System.nanoTime() - start;
+        stage.histogram.record(latency);
+        StageEvent event = new StageEvent();
+        if (event.shouldCommit()) {
+            event.stage = stage.label;
+            event.latency = latency;
+            event.commit();
+        }
+    }
+
+    /**
+     * Forgets every latency recorded.
+     */
+    static void reset() {
+        for (Stage stage : Stage.values()) stage.histogram.reset();
+    }
+
+    /**
+     * Writes a snapshot of every stage as plain text: one line per stage with its count, mean,
+     * median, 90th, 99th and 99.9th percentiles and maximum, in microseconds.
+     * @param text where to write
+     * @return {@code text}, for chaining
+     */
+    static StringBuilder writeText(StringBuilder text) {
+        text.append(String.format(Locale.ROOT, "%-17s %10s %10s %10s %10s %10s %10s %10s%n",
+                "stage (us)", "count", "mean", "p50", "p90", "p99", "p99.9", "max"));
+        for (Stage stage : Stage.values()) {
+            long[] counts = stage.histogram.snapshot();
+            long count = 0, total = 0;
+            int max = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                count += counts[i];
+                total += counts[i] * Histogram.lowerBound(i);
+                if (counts[i] > 0) max = i;
+            }
+            text.append(String.format(Locale.ROOT, "%-17s %10d", stage.label, count));
+            if (count == 0) {
+                text.append(System.lineSeparator());
+                continue;
+            }
+            text.append(String.format(Locale.ROOT,
+                    " %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n", total / 1e3 / count,
+                    percentile(counts, count, 0.5) / 1e3, percentile(counts, count, 0.9) / 1e3,
+                    percentile(counts, count, 0.99) / 1e3, percentile(counts, count, 0.999) / 1e3,
+                    Histogram.lowerBound(max) / 1e3));
+        }
+        return text;
+    }
+
+    private static long percentile(long[] counts, long count, double fraction) {
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Histogram.lowerBound(i);
+        }
+        return Histogram.lowerBound(BUCKETS - 1);
+    }
+}
@@ -0,0 +1,152 @@
+package wordle;
+
+/**
+ * Console front end for a multi-board Wordle game, played on top of a {@code MultiBoardSession}:
+ * every guess is played against all the boards not yet solved, and the game is won once every
+ * board is solved. <p>
+ * Each turn, every board is written as one line of the turn output: <p>
+ * > - a board not yet solved shows the clue of the guess, with a correct letter in uppercase, a
+ * present letter in lowercase and an absent letter as a dash (or the number of correct and
+ * present letters with blind clues), whether the length is correct with the mixed length rule,
+ * and the letters not yet used on that board. <p>
+ * > - a solved board shows its solution and the guess that solved it. <p>
+ * The whole turn is built in one {@code StringBuilder}, reused every turn, and printed with a
+ * single write, however many boards there are. Multi-board games are not recorded in
+ * {@code GameStats}, which keeps statistics per solution of single-board games.
+ * @see MultiBoardSession
+ * @see AbstractGame
+ */
+class MultiBoardGame {
+    private final MultiBoardSession session;
+    private final StringBuilder turnOutput;
+
+    /**
+     * Runs a multi-board game of Wordle on the terminal, played on the specified
+     * {@code MultiBoardSession}. See {@code play()} for the steps of the game.
+     * @param session the session to play the game on
+     * @see MultiBoardSession
+     */
+    MultiBoardGame(MultiBoardSession session) {
+        this.session = session;
+        this.turnOutput = new StringBuilder(96 * session.getBoards());
+        play();
+    }
+
+    /**
+     * Runs the game on the terminal. The game takes the following steps: <p>
+     * > 1. The player is prompted to make a guess, which is played on every board not yet solved.
+     * <p>
+     * > 2. If the guess is invalid, the player is prompted again. <p>
+     * > 3. If every board is solved, inform the player that the game is won. <p>
+     * > 4. If not, write every board to the turn output and print it in one write. <p>
+     * > 5. Repeat from step 1 until the player either wins by solving every board, or loses by
+     * running out of guesses.
+     */
+    void play() {
+        System.out.println();
+        System.out.println("--------------------- GAME START ---------------------");
+        System.out.println("Solve all " + session.getBoards() + " boards! Every guess is played "
+                           + "on each board not yet solved.");
+        System.out.println();
+        while (!session.isOver()) {
+            System.out.println("Guess " + session.getGuessCount() + " of "
+                               + session.getGuessMax());
+            int solved = playGuess();
+            if (session.getStatus() == GameSession.Status.WON) {
+                System.out.println("That is correct! Every board is solved!");
+                System.out.println("You got them all in " + session.getGuessesMade()
+                                   + " guesses.");
+                System.out.println();
+                System.out.println("--------------------- GAME OVER ---------------------");
+                System.out.println();
+                return;
+            }
+            long start = Metrics.start();
+            if (solved > 0) {
+                turnOutput.append("Solved ").append(solved)
+                          .append(solved == 1 ? " board! " : " boards! ")
+                          .append(session.getSolvedCount()).append(" of ")
+                          .append(session.getBoards()).append(" done.")
+                          .append(AbstractGame.NEWLINE);
+            }
+            writeBoards();
+            turnOutput.append(AbstractGame.NEWLINE);
+            System.out.append(turnOutput);
+            System.out.flush();
+            turnOutput.setLength(0);
+            Metrics.stop(Metrics.Stage.RENDER, start);
+        }
+        System.out.println("You ran out of guesses! Better luck next time.");
+        System.out.println("You solved " + session.getSolvedCount() + " of "
+                           + session.getBoards() + " boards.");
+        for (int board = 0; board < session.getBoards(); board++) {
+            if (session.isSolved(board)) continue;
+            System.out.println("Board " + (board + 1) + ": the solution is "
+                               + session.getSolution(board) + ". "
+                               + session.getExplanation(board));
+        }
+        System.out.println();
+        System.out.println("--------------------- GAME OVER ---------------------");
+        System.out.println();
+    }
+
+    /**
+     * Prompts the player to make a guess and plays it, until a valid guess is made. The guess is
+     * only checked by {@code MultiBoardSession.play()}, once.
+     * @return the number of boards solved by the guess
+     */
+    int playGuess() {
+        while (true) {
+            String guess = Keyboard.getInput("Enter your guess: ");
+            if (guess.equals(AbstractGame.HINT_COMMAND)) {
+                System.out.println("Hints are only given on a single board.");
+                continue;
+            }
+            int solved = session.play(guess);
+            if (solved >= 0) return solved;
+            System.out.println("The guess is invalid.");
+            System.out.println("Check if the input is of the correct length "
+                               + "and of only alphabetical characters.");
+        }
+    }
+
+    /**
+     * Writes one line per board to the turn output, for the guess just made.
+     */
+    void writeBoards() {
+        int turn = session.getGuessesMade() - 1;
+        String guess = session.getGuess(turn);
+        for (int board = 0; board < session.getBoards(); board++) {
+            turnOutput.append("Board ");
+            if (board < 9) turnOutput.append(' ');
+            turnOutput.append(board + 1).append(":  ");
+            if (session.isSolved(board)) {
+                turnOutput.append(session.getSolution(board)).append(", solved on guess ")
+                          .append(session.getSolvedAt(board)).append(AbstractGame.NEWLINE);
+                continue;
+            }
+            int code = session.getClueCode(turn, board);
+            if (session.isBlind()) {
+                turnOutput.append(ClueCode.countCorrectChar(code)).append(" correct, ")
+                          .append(ClueCode.countHasChar(code)).append(" present");
+            } else {
+                for (int pos = 0; pos < guess.length(); pos++) {
+                    char letter = guess.charAt(pos);
+                    if (ClueCode.isCorrectChar(code, pos)) turnOutput.append(letter);
+                    else if (ClueCode.hasChar(code, pos)) turnOutput.append((char) (letter + 32));
+                    else turnOutput.append('-');
+                }
+                for (int pos = guess.length(); pos < 6; pos++) turnOutput.append(' ');
+            }
+            if (session.isMixedLength()) {
+                turnOutput.append(ClueCode.isCorrectLength(code) ? "  length ok   "
+                                                                  : "  wrong length");
+            }
+            turnOutput.append("  unused: ");
+            for (int letter = 0; letter < 26; letter++) {
+                turnOutput.append(session.isLetterUsed(board, letter) ? '-' : (char) (letter + 97));
+            }
+            turnOutput.append(AbstractGame.NEWLINE);
+        }
+    }
+}
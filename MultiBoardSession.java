@@ -0,0 +1,293 @@
+package wordle;
+
+import java.util.Arrays;
+
+/**
+ * The state and rules of a multi-board Wordle game (as in Quordle or Octordle), where every guess
+ * is played against several solutions at once, with no console input or output. Each solution
+ * has a board of its own, which is solved once a guess matches it exactly and then takes no more
+ * guesses; the game is won once every board is solved. {@code MultiBoardGame} is the console
+ * front end on top of it. <p>
+ * Has the following methods: <p>
+ * > - {@code play()} plays a guess on every board not yet solved, and returns how many boards it
+ * solved. <p>
+ * > - {@code isValidGuess()} checks whether a guess is valid by the rules of the game. <p>
+ * > - {@code isSolved()}, {@code getSolvedAt()} return the solved state of a board. <p>
+ * > - {@code isLetterUsed()} returns whether a letter has been used in a guess on a board. <p>
+ * > - {@code getGuess()}, {@code getClueCode()} return the history of the game. <p>
+ * Every guess is scored against all the boards left with one call to {@code ClueCode.scoreAll()}:
+ * the solutions of the boards left are kept packed, with their letter counts, at the front of two
+ * arrays, so the letters of the guess are decoded once per turn rather than once per board, and
+ * no {@code Clue} is created. The history is kept in one array of codes, a row per guess and a
+ * column per board, and the used letters of each board in a bitmask.
+ * @see MultiBoardGame
+ * @see ClueCode
+ */
+class MultiBoardSession {
+    /**
+     * The feedback code kept for a board on the turns after it was solved.
+     */
+    static final short SOLVED = -1;
+
+    private final int boards;
+    private final int guessMax;
+    private final boolean mixedLength;
+    private final boolean blind;
+    private final GuessDictionary dictionary;
+    private final String[] solutions;
+    private final String[] explanations;
+    private final String[] guesses;
+    private final short[] clueCodes;
+    private final int[] solvedAt;
+    private final int[] usedLetters;
+    // the boards not yet solved, in order, with their packed solutions and letter counts
+    private final int[] liveBoards;
+    private final long[] liveWords;
+    private final long[] liveCounts;
+    private final short[] turnCodes;
+    private int liveCount;
+    private int guessesMade;
+    private GameSession.Status status = GameSession.Status.IN_PROGRESS;
+
+    /**
+     * Constructor for {@code MultiBoardSession}, starting a game with the specified solutions,
+     * played by the rules of the configuration.
+     * @param config the rules of the game
+     * @param solutions the solutions, one per board, in uppercase
+     * @param explanations the flavour text for each solution
+     * @param dictionary the words accepted as guesses, or {@code null} to accept any letters
+     * @throws IllegalArgumentException if there is not one solution and one explanation per board
+     */
+    MultiBoardSession(GameConfig config, String[] solutions, String[] explanations,
+                      GuessDictionary dictionary) {
+        if (solutions.length != config.getBoards() || explanations.length != solutions.length) {
+            throw new IllegalArgumentException("expected " + config.getBoards() + " solutions");
+        }
+        this.boards = solutions.length;
+        this.guessMax = config.getGuessMax();
+        this.mixedLength = config.isMixedLength();
+        this.blind = config.isBlind();
+        this.dictionary = dictionary;
+        this.solutions = solutions.clone();
+        this.explanations = explanations.clone();
+        this.guesses = new String[guessMax];
+        this.clueCodes = new short[guessMax * boards];
+        this.solvedAt = new int[boards];
+        this.usedLetters = new int[boards];
+        this.liveBoards = new int[boards];
+        this.liveWords = new long[boards];
+        this.turnCodes = new short[boards];
+        for (int board = 0; board < boards; board++) {
+            liveBoards[board] = board;
+            liveWords[board] = PackedWord.pack(solutions[board]);
+        }
+        this.liveCounts = ClueCode.letterCounts(liveWords);
+        this.liveCount = boards;
+    }
+
+    /**
+     * Plays a guess on every board not yet solved, and returns how many boards the guess solved,
+     * or -1 if the guess is invalid (in which case it is not counted).
+     * @param guess the guess made, in any case
+     * @return the number of boards solved by the guess, or -1
+     * @throws IllegalStateException if the game is already over
+     */
+    int play(String guess) {
+        if (isOver()) throw new IllegalStateException("The game is over.");
+        if (!isValidGuess(guess)) return -1;
+
+        guess = guess.toUpperCase();
+        long packed = PackedWord.pack(guess);
+        long start = Metrics.start();
+        ClueCode.scoreAll(packed, liveWords, liveCounts, 0, liveCount, turnCodes, 0);
+        Metrics.stop(Metrics.Stage.CLUE, start);
+
+        int turn = guessesMade++;
+        guesses[turn] = guess;
+        int letters = 0;
+        for (int pos = 0; pos < guess.length(); pos++) letters |= 1 << (guess.charAt(pos) - 'A');
+        int exact = ClueCode.exactMatch(guess.length());
+        int row = turn * boards;
+        Arrays.fill(clueCodes, row, row + boards, SOLVED);
+
+        int kept = 0;
+        for (int i = 0; i < liveCount; i++) {
+            int board = liveBoards[i];
+            clueCodes[row + board] = turnCodes[i];
+            usedLetters[board] |= letters;
+            if (turnCodes[i] == exact) {
+                solvedAt[board] = turn + 1;
+                continue;
+            }
+            liveBoards[kept] = board;
+            liveWords[kept] = liveWords[i];
+            liveCounts[2 * kept] = liveCounts[2 * i];
+            liveCounts[2 * kept + 1] = liveCounts[2 * i + 1];
+            kept++;
+        }
+        int solved = liveCount - kept;
+        liveCount = kept;
+
+        if (liveCount == 0) {
+            status = GameSession.Status.WON;
+        } else if (guessesMade >= guessMax) {
+            status = GameSession.Status.LOST;
+        }
+        return solved;
+    }
+
+    /**
+     * Checks and returns whether the guess made is valid by the rules of the game, the same as
+     * for a single board (see {@code GameSession.isValidGuess()}). Without the mixed length rule,
+     * every solution is of the same length.
+     * @param guess the guess made
+     * @return whether the guess is valid
+     */
+    boolean isValidGuess(String guess) {
+        long start = Metrics.start();
+        boolean valid = GameSession.checkGuess(guess, solutions[0].length(), mixedLength,
+                                               dictionary);
+        Metrics.stop(Metrics.Stage.VALIDATE, start);
+        return valid;
+    }
+
+    /**
+     * Returns the number of boards.
+     * @return the number of boards
+     */
+    int getBoards() {
+        return this.boards;
+    }
+
+    /**
+     * Returns the number of boards solved so far.
+     * @return the number of boards solved
+     */
+    int getSolvedCount() {
+        return boards - liveCount;
+    }
+
+    /**
+     * Returns whether the board has been solved.
+     * @param board the board, starting from 0
+     * @return whether the board has been solved
+     */
+    boolean isSolved(int board) {
+        return solvedAt[board] != 0;
+    }
+
+    /**
+     * Returns the order number of the guess that solved the board, or 0 if it is not solved.
+     * @param board the board, starting from 0
+     * @return the order number of the guess that solved the board, or 0
+     */
+    int getSolvedAt(int board) {
+        return solvedAt[board];
+    }
+
+    /**
+     * Returns whether the letter has been used in any guess played on the board, that is before
+     * it was solved.
+     * @param board the board, starting from 0
+     * @param letter the letter, from 0 for A to 25 for Z
+     * @return whether the letter has been used on the board
+     */
+    boolean isLetterUsed(int board, int letter) {
+        return (usedLetters[board] & (1 << letter)) != 0;
+    }
+
+    /**
+     * Returns the guess made on the specified turn, in uppercase.
+     * @param turn the turn of the guess, starting from 0
+     * @return the guess made on the turn
+     */
+    String getGuess(int turn) {
+        return guesses[turn];
+    }
+
+    /**
+     * Returns the feedback code the guess made on the specified turn received on the board, or
+     * {@code SOLVED} if the board was solved before that turn.
+     * @param turn the turn of the guess, starting from 0
+     * @param board the board, starting from 0
+     * @return the feedback code of the guess on the board, or {@code SOLVED}
+     * @see ClueCode
+     */
+    int getClueCode(int turn, int board) {
+        return clueCodes[turn * boards + board];
+    }
+
+    /**
+     * Returns the solution of the board.
+     * @param board the board, starting from 0
+     * @return the solution of the board
+     */
+    String getSolution(int board) {
+        return solutions[board];
+    }
+
+    /**
+     * Returns the flavour text for the solution of the board.
+     * @param board the board, starting from 0
+     * @return the flavour text for the solution of the board
+     */
+    String getExplanation(int board) {
+        return explanations[board];
+    }
+
+    /**
+     * Returns the number of valid guesses made so far.
+     * @return the number of guesses made
+     */
+    int getGuessesMade() {
+        return this.guessesMade;
+    }
+
+    /**
+     * Returns the order number of the next guess, starting from 1.
+     * @return the order number of the next guess
+     */
+    int getGuessCount() {
+        return guessesMade + 1;
+    }
+
+    /**
+     * Returns the maximum number of guesses that can be made this game.
+     * @return the max number of guesses this game
+     */
+    int getGuessMax() {
+        return this.guessMax;
+    }
+
+    /**
+     * Returns the status of the game: won once every board is solved.
+     * @return the status of the game
+     */
+    GameSession.Status getStatus() {
+        return this.status;
+    }
+
+    /**
+     * Returns whether the game is over, ie won or lost.
+     * @return whether the game is over
+     */
+    boolean isOver() {
+        return status != GameSession.Status.IN_PROGRESS;
+    }
+
+    /**
+     * Returns whether the game plays with the mixed length rule.
+     * @return whether the game plays with the mixed length rule
+     */
+    boolean isMixedLength() {
+        return this.mixedLength;
+    }
+
+    /**
+     * Returns whether the game gives blind clues.
+     * @return whether the game gives blind clues
+     */
+    boolean isBlind() {
+        return this.blind;
+    }
+}
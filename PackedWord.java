@@ -0,0 +1,101 @@
+package wordle;
+
+/**
+ * Packs an uppercase word into a single {@code long}, 5 bits per letter, so that words can be
+ * stored and compared without any {@code String} objects. <p>
+ * Letter {@code i} of the word takes bits {@code 5i} to {@code 5i + 4}, holding 1 for 'A' up to 26
+ * for 'Z'. Unused positions hold 0, so the length of a packed word is the number of non-zero
+ * letters and two words are equal exactly when their packed values are. Words of up to
+ * {@code MAX_LETTERS} letters fit. <p>
+ * Has the following methods: <p>
+ * > - {@code pack()} packs a word, or returns {@code INVALID} if it cannot be packed. <p>
+ * > - {@code unpack()} turns a packed word back into a {@code String}. <p>
+ * > - {@code length()}, {@code letterAt()} read a packed word. <p>
+ * > - {@code letterLanes()}, {@code equalLanes()} compare every letter of packed words at once,
+ * see {@code ClueCode.score(long, long)}.
+ * @see BankCompiler
+ */
+final class PackedWord {
+    static final int BITS_PER_LETTER = 5;
+    static final int MAX_LETTERS = Long.SIZE / BITS_PER_LETTER;
+    static final long INVALID = -1;
+
+    private static final long LETTER_MASK = (1L << BITS_PER_LETTER) - 1;
+    // the lowest bit of every letter
+    private static final long LANE_LOW = 0x0084210842108421L;
+
+    private PackedWord() {
+    }
+
+    /**
+     * Packs the word, or returns {@code INVALID} if it is longer than {@code MAX_LETTERS} letters
+     * or has anything other than the letters A to Z.
+     * @param word the word, in uppercase
+     * @return the packed word, or {@code INVALID}
+     */
+    static long pack(CharSequence word) {
+        if (word.length() > MAX_LETTERS) return INVALID;
+        long packed = 0;
+        for (int pos = 0; pos < word.length(); pos++) {
+            char letter = word.charAt(pos);
+            if (letter < 'A' || letter > 'Z') return INVALID;
+            packed |= (long) (letter - 'A' + 1) << (BITS_PER_LETTER * pos);
+        }
+        return packed;
+    }
+
+    /**
+     * Returns the word a packed value stands for.
+     * @param packed the packed word
+     * @return the word, in uppercase
+     */
+    static String unpack(long packed) {
+        char[] letters = new char[length(packed)];
+        for (int pos = 0; pos < letters.length; pos++) {
+            letters[pos] = (char) ('A' + letterAt(packed, pos));
+        }
+        return new String(letters);
+    }
+
+    /**
+     * Returns the number of letters of a packed word.
+     * @param packed the packed word
+     * @return the length of the word
+     */
+    static int length(long packed) {
+        return Long.bitCount(letterLanes(packed));
+    }
+
+    /**
+     * Returns a mask with the lowest bit of every letter of a packed word set, ie bit {@code 5i}
+     * for every position {@code i} of the word. Folds the 5 bits of every letter into its lowest
+     * bit with a few shifts, rather than testing the letters one by one.
+     * @param packed the packed word
+     * @return the mask of the letters of the word
+     */
+    static long letterLanes(long packed) {
+        return (packed | packed >>> 1 | packed >>> 2 | packed >>> 3 | packed >>> 4) & LANE_LOW;
+    }
+
+    /**
+     * Returns a mask with the lowest bit of every position set where both packed words have the
+     * same letter, or neither has a letter. Found from the {@code XOR} of the two words, which is
+     * zero exactly at those positions.
+     * @param a the first packed word
+     * @param b the second packed word
+     * @return the mask of the positions where the words agree
+     */
+    static long equalLanes(long a, long b) {
+        return ~letterLanes(a ^ b) & LANE_LOW;
+    }
+
+    /**
+     * Returns the letter at the position of a packed word.
+     * @param packed the packed word
+     * @param pos the position, starting from 0
+     * @return the letter, from 0 for A to 25 for Z
+     */
+    static int letterAt(long packed, int pos) {
+        return (int) ((packed >>> (BITS_PER_LETTER * pos)) & LETTER_MASK) - 1;
+    }
+}
@@ -0,0 +1,38 @@
+package wordle;
+
+import java.util.SplittableRandom;
+
+/**
+ * Plays a random word among the remaining candidates, as a baseline to compare other strategies
+ * against. The candidates of each game are kept by a {@code CandidateTracker}, and narrowed by
+ * the newest clue on every turn.
+ * @see CandidateTracker
+ */
+final class RandomStrategy implements Strategy {
+    private final FeedbackMatrix matrix;
+    private final CandidateTracker tracker;
+
+    /**
+     * Constructor for {@code RandomStrategy}.
+     * @param matrix the feedback matrix of the word bank
+     * @param index the candidate index over the same words as the matrix
+     */
+    RandomStrategy(FeedbackMatrix matrix, CandidateIndex index) {
+        this.matrix = matrix;
+        this.tracker = new CandidateTracker(matrix, index);
+    }
+
+    @Override
+    public String nextGuess(GameSession session, SplittableRandom random) {
+        int[] candidates = tracker.candidates(session);
+        if (candidates.length == 0) {
+            return Strategy.fallbackGuess(matrix, session.getSolution().length());
+        }
+        return matrix.getWord(candidates[random.nextInt(candidates.length)]);
+    }
+
+    @Override
+    public String getName() {
+        return "random";
+    }
+}
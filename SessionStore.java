@@ -0,0 +1,442 @@
+package wordle;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Holds the games in progress of a {@code GameServer}, up to a fixed number of them, each as a
+ * fixed-size record of {@code RECORD_LONGS} {@code long}s in one shared array rather than as a
+ * {@code GameSession} with its strings and arrays. A record holds: <p>
+ * > - the id of the game (128 random bits) <p>
+ * > - the solution, packed with {@code PackedWord} <p>
+ * > - the rules and the number of guesses made, packed into one {@code long} <p>
+ * > - the time of the last access, for eviction <p>
+ * > - every guess packed with {@code PackedWord}, and every feedback code in 16 bits <p>
+ * which comes to 160 bytes per game, plus one map entry from the id to the record. The used
+ * letters, the status and the guess count follow from the history, so a {@code GameSession} is
+ * rebuilt from the record with {@code GameSession.record()} whenever a game is accessed, and
+ * written back after an {@code update()} (a {@code view()} only reads it). The hard mode
+ * constraints are only replayed if a guess is checked. The dictionary of the current bank is
+ * looked up once per bank snapshot, outside the stripe locks, and the explanation is read from
+ * that snapshot. <p>
+ * Records are locked in {@code STRIPES} stripes, so games on different stripes never wait on
+ * each other. Games idle for longer than the TTL are evicted by a background sweep, and when the
+ * store is full the least recently used of a few sampled games makes room for the new one. <p>
+ * {@code snapshot()} copies every record to a file one stripe lock at a time, so it never stops
+ * the store, and {@code restore()} brings the games of a snapshot back after a restart; both can
+ * run periodically with {@code start()}.
+ * @see GameServer
+ * @see GameSession
+ */
+final class SessionStore {
+    static final String SNAPSHOT_PATH = "src/wordle/sessions.snapshot";
+    static final int MAX_GUESSES = GameConfig.BLIND_GUESS_MAX;
+    static final int RECORD_LONGS = 5 + MAX_GUESSES + MAX_GUESSES / 4;
+    static final int STRIPES = 64;
+    static final int EVICTION_SAMPLES = 8;
+
+    private static final int MAGIC = 0x53575353;
+    private static final int VERSION = 1;
+    // offsets of the fields in a record
+    private static final int ID_HIGH = 0;
+    private static final int ID_LOW = 1;
+    private static final int SOLUTION = 2;
+    private static final int RULES = 3;
+    private static final int LAST_ACCESS = 4;
+    private static final int GUESSES = 5;
+    private static final int CODES = GUESSES + MAX_GUESSES;
+    // bits of the rules field
+    private static final long OCCUPIED = 1, MIXED_LENGTH = 2, BLIND = 4, HARD_MODE = 8;
+    private static final int GUESS_MAX_SHIFT = 4, GUESSES_MADE_SHIFT = 8;
+
+    private final int capacity;
+    private final long ttlMillis;
+    private final long[] records;
+    private final Object[] locks = new Object[STRIPES];
+    private final ConcurrentHashMap<Long,Integer> slots = new ConcurrentHashMap<Long,Integer>();
+    private final SecureRandom idRandom = new SecureRandom();
+    // guarded by this
+    private final int[] freeSlots;
+    private int freeCount;
+    private final SplittableRandom sampleRandom = new SplittableRandom();
+    private ScheduledExecutorService scheduler;
+    private volatile GameJournal journal;
+    private volatile Resolved resolved;
+
+    /**
+     * The bank snapshot and dictionary games are rebuilt with, looked up once per snapshot.
+     */
+    private static final class Resolved {
+        final BankSnapshot snapshot;
+        final GuessDictionary dictionary;
+
+        Resolved(BankSnapshot snapshot, GuessDictionary dictionary) {
+            this.snapshot = snapshot;
+            this.dictionary = dictionary;
+        }
+    }
+
+    /**
+     * Constructor for {@code SessionStore}, empty.
+     * @param capacity the maximum number of games held
+     * @param ttlMillis how long a game may go without being accessed before it is evicted
+     */
+    SessionStore(int capacity, long ttlMillis) {
+        this.capacity = capacity;
+        this.ttlMillis = ttlMillis;
+        this.records = new long[capacity * RECORD_LONGS];
+        this.freeSlots = new int[capacity];
+        for (int slot = capacity - 1; slot >= 0; slot--) freeSlots[freeCount++] = slot;
+        for (int stripe = 0; stripe < STRIPES; stripe++) locks[stripe] = new Object();
+    }
+
+    private Object lock(int slot) {
+        return locks[slot & (STRIPES - 1)];
+    }
+
+    /**
+     * Stores a game and returns its new id, evicting the least recently used of a few sampled
+     * games if the store is full.
+     * @param session the game, whose solution and guesses must be at most {@code MAX_GUESSES}
+     * words of the letters A to Z
+     * @return the id of the game, 32 hexadecimal digits
+     */
+    String create(GameSession session) {
+        long high, low;
+        do {
+            high = idRandom.nextLong();
+            low = idRandom.nextLong();
+        } while (slots.containsKey(high));
+        int slot = allocate();
+        synchronized (lock(slot)) {
+            int base = slot * RECORD_LONGS;
+            records[base + ID_HIGH] = high;
+            records[base + ID_LOW] = low;
+            encode(session, base);
+            records[base + LAST_ACCESS] = System.currentTimeMillis();
+            slots.put(high, slot);
+        }
+        GameJournal journal = this.journal;
+        if (journal != null) journal.started(high, session);
+        return String.format("%016x%016x", high, low);
+    }
+
+    /**
+     * Runs the action on the game with the id, and writes the game back after. The game is
+     * locked while the action runs, so it sees and leaves the game consistent.
+     * @param id the id of the game
+     * @param action what to do with the game, must not return {@code null}
+     * @param <T> the type of the result of the action
+     * @return the result of the action, or {@code null} if there is no game with the id
+     */
+    <T> T update(String id, Function<GameSession,T> action) {
+        return access(id, action, true);
+    }
+
+    /**
+     * Runs the action on the game with the id, without writing the game back: the action must
+     * not change the game. The game is locked while the action runs, and counts as accessed.
+     * @param id the id of the game
+     * @param action what to read from the game, must not return {@code null}
+     * @param <T> the type of the result of the action
+     * @return the result of the action, or {@code null} if there is no game with the id
+     */
+    <T> T view(String id, Function<GameSession,T> action) {
+        return access(id, action, false);
+    }
+
+    private <T> T access(String id, Function<GameSession,T> action, boolean writeBack) {
+        if (id.length() != 32) return null;
+        long high, low;
+        try {
+            high = Long.parseUnsignedLong(id.substring(0, 16), 16);
+            low = Long.parseUnsignedLong(id.substring(16), 16);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        Integer slot = slots.get(high);
+        if (slot == null) return null;
+        Resolved resolved = resolve();
+        synchronized (lock(slot)) {
+            int base = slot * RECORD_LONGS;
+            if ((records[base + RULES] & OCCUPIED) == 0 || records[base + ID_HIGH] != high
+                || records[base + ID_LOW] != low) {
+                return null;
+            }
+            GameSession session = decode(base, resolved, writeBack);
+            T result = action.apply(session);
+            if (writeBack) encode(session, base);
+            records[base + LAST_ACCESS] = System.currentTimeMillis();
+            return result;
+        }
+    }
+
+    /**
+     * Appends the start of every game created from now on, and every guess played on a game, to
+     * the journal, as events of the game whose id starts with the first 64 bits of its id.
+     * @param journal the journal, or {@code null} to stop appending
+     */
+    void setJournal(GameJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Returns the number of games held.
+     * @return the number of games
+     */
+    int size() {
+        return slots.size();
+    }
+
+    /**
+     * Returns the maximum number of games held.
+     * @return the capacity of the store
+     */
+    int getCapacity() {
+        return this.capacity;
+    }
+
+    private synchronized int allocate() {
+        while (freeCount == 0) {
+            int oldest = -1;
+            long oldestAccess = Long.MAX_VALUE;
+            for (int sample = 0; sample < EVICTION_SAMPLES; sample++) {
+                int slot = sampleRandom.nextInt(capacity);
+                synchronized (lock(slot)) {
+                    int base = slot * RECORD_LONGS;
+                    if ((records[base + RULES] & OCCUPIED) != 0
+                        && records[base + LAST_ACCESS] < oldestAccess) {
+                        oldest = slot;
+                        oldestAccess = records[base + LAST_ACCESS];
+                    }
+                }
+            }
+            if (oldest >= 0) evict(oldest, Long.MAX_VALUE);
+        }
+        return freeSlots[--freeCount];
+    }
+
+    /**
+     * Evicts the game in the slot if it was last accessed before the cutoff, journaling its end
+     * as abandoned if it was not finished. Must be called while holding the lock of the store,
+     * which is always taken before a stripe lock.
+     */
+    private boolean evict(int slot, long cutoff) {
+        long id;
+        int unfinished;
+        synchronized (lock(slot)) {
+            int base = slot * RECORD_LONGS;
+            long rules = records[base + RULES];
+            if ((rules & OCCUPIED) == 0 || records[base + LAST_ACCESS] >= cutoff) return false;
+            id = records[base + ID_HIGH];
+            int guessesMade = (int) (rules >>> GUESSES_MADE_SHIFT) & 0xF;
+            boolean over = guessesMade == ((int) (rules >>> GUESS_MAX_SHIFT) & 0xF)
+                    || guessesMade > 0
+                       && records[base + GUESSES + guessesMade - 1] == records[base + SOLUTION];
+            unfinished = over ? -1 : guessesMade;
+            records[base + RULES] = 0;
+            slots.remove(id, slot);
+        }
+        freeSlots[freeCount++] = slot;
+        // a finished game already has its end in the journal
+        GameJournal journal = this.journal;
+        if (journal != null && unfinished >= 0) journal.abandoned(id, unfinished);
+        return true;
+    }
+
+    /**
+     * Evicts every game idle for longer than the TTL.
+     * @return the number of games evicted
+     */
+    int evictIdle() {
+        long cutoff = System.currentTimeMillis() - ttlMillis;
+        int evicted = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            boolean idle;
+            synchronized (lock(slot)) {
+                int base = slot * RECORD_LONGS;
+                idle = (records[base + RULES] & OCCUPIED) != 0
+                       && records[base + LAST_ACCESS] < cutoff;
+            }
+            if (idle) {
+                synchronized (this) {
+                    if (evict(slot, cutoff)) evicted++;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    private void encode(GameSession session, int base) {
+        int guessesMade = session.getGuessesMade();
+        records[base + SOLUTION] = PackedWord.pack(session.getSolution());
+        records[base + RULES] = OCCUPIED
+                | (session.isMixedLength() ? MIXED_LENGTH : 0) | (session.isBlind() ? BLIND : 0)
+                | (session.isHardMode() ? HARD_MODE : 0)
+                | (long) session.getGuessMax() << GUESS_MAX_SHIFT
+                | (long) guessesMade << GUESSES_MADE_SHIFT;
+        for (int turn = 0; turn < MAX_GUESSES / 4; turn++) records[base + CODES + turn] = 0;
+        for (int turn = 0; turn < guessesMade; turn++) {
+            records[base + GUESSES + turn] = PackedWord.pack(session.getGuess(turn));
+            records[base + CODES + turn / 4] |=
+                    (long) session.getClueCode(turn) << (16 * (turn % 4));
+        }
+    }
+
+    /**
+     * Returns the current bank snapshot and its dictionary, looking the dictionary up again only
+     * when the snapshot changed. Called outside the stripe locks.
+     */
+    private Resolved resolve() {
+        Resolved resolved = this.resolved;
+        BankSnapshot snapshot;
+        try {
+            snapshot = BankSnapshot.current();
+        } catch (IOException e) {
+            return resolved != null ? resolved : new Resolved(null, null);
+        }
+        if (resolved == null || resolved.snapshot != snapshot) {
+            GuessDictionary dictionary = null;
+            try {
+                dictionary = GuessDictionary.shared();
+            } catch (IOException e) {
+                // any letters are accepted, as the server does when it starts a game
+            }
+            resolved = new Resolved(snapshot, dictionary);
+            this.resolved = resolved;
+        }
+        return resolved;
+    }
+
+    private GameSession decode(int base, Resolved resolved, boolean journaled) {
+        long rules = records[base + RULES];
+        String solution = PackedWord.unpack(records[base + SOLUTION]);
+        String explanation = resolved.snapshot == null ? null
+                : resolved.snapshot.getExplanation(solution);
+        GameSession session = new GameSession(solution, (int) (rules >>> GUESS_MAX_SHIFT) & 0xF,
+                (rules & MIXED_LENGTH) != 0, (rules & BLIND) != 0, explanation,
+                resolved.dictionary, (rules & HARD_MODE) != 0);
+        int guessesMade = (int) (rules >>> GUESSES_MADE_SHIFT) & 0xF;
+        for (int turn = 0; turn < guessesMade; turn++) {
+            int code = (int) (records[base + CODES + turn / 4] >>> (16 * (turn % 4))) & 0xFFFF;
+            session.record(PackedWord.unpack(records[base + GUESSES + turn]), code);
+        }
+        if (journaled && journal != null) session.setJournal(journal, records[base + ID_HIGH]);
+        return session;
+    }
+
+    /**
+     * Writes every game to the file, through a temporary file so that a crash never leaves a
+     * partially written snapshot. Each record is copied under its own stripe lock, so games keep
+     * being played while the snapshot is taken.
+     * @param path the snapshot file
+     * @return the number of games written
+     * @throws IOException if the file cannot be written
+     */
+    int snapshot(Path path) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        long[] record = new long[RECORD_LONGS];
+        int written = 0;
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(RECORD_LONGS);
+            for (int slot = 0; slot < capacity; slot++) {
+                int base = slot * RECORD_LONGS;
+                synchronized (lock(slot)) {
+                    if ((records[base + RULES] & OCCUPIED) == 0) continue;
+                    System.arraycopy(records, base, record, 0, RECORD_LONGS);
+                }
+                for (long value : record) out.writeLong(value);
+                written++;
+            }
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        return written;
+    }
+
+    /**
+     * Adds the games of a snapshot file to the store, keeping their ids. Games idle for longer
+     * than the TTL are left out, and so are games beyond the capacity of the store.
+     * @param path the snapshot file
+     * @return the number of games restored
+     * @throws IOException if the file cannot be read, or is not a snapshot
+     */
+    int restore(Path path) throws IOException {
+        long cutoff = System.currentTimeMillis() - ttlMillis;
+        int restored = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != RECORD_LONGS) {
+                throw new IOException(path + " is not a session snapshot of this version");
+            }
+            long[] record = new long[RECORD_LONGS];
+            while (true) {
+                try {
+                    for (int i = 0; i < RECORD_LONGS; i++) record[i] = in.readLong();
+                } catch (EOFException e) {
+                    return restored;
+                }
+                if (record[LAST_ACCESS] < cutoff || slots.containsKey(record[ID_HIGH])) continue;
+                synchronized (this) {
+                    if (freeCount == 0) return restored;
+                    int slot = freeSlots[--freeCount];
+                    synchronized (lock(slot)) {
+                        System.arraycopy(record, 0, records, slot * RECORD_LONGS, RECORD_LONGS);
+                        slots.put(record[ID_HIGH], slot);
+                    }
+                }
+                restored++;
+            }
+        }
+    }
+
+    /**
+     * Starts evicting idle games and writing snapshots to the file periodically, on a daemon
+     * thread.
+     * @param path the snapshot file
+     * @param snapshotMillis the time between snapshots
+     */
+    synchronized void start(Path path, long snapshotMillis) {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "session-store");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepMillis = Math.max(1000, ttlMillis / 4);
+        scheduler.scheduleWithFixedDelay(this::evictIdle, sweepMillis, sweepMillis,
+                                         TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot(path);
+            } catch (IOException e) {
+                System.err.println("Could not snapshot the sessions: " + e);
+            }
+        }, snapshotMillis, snapshotMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic work started with {@code start()}, if any.
+     */
+    synchronized void stop() {
+        if (scheduler != null) scheduler.shutdownNow();
+        scheduler = null;
+    }
+}
@@ -0,0 +1,184 @@
+package wordle;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Plays a {@code Strategy} against every solution in the word bank, for every configuration that
+ * {@code GameMaster} offers (normal or blind clues, word length 4, 5, 6 or mixed, with 8 or 12
+ * guesses allowed), and reports how it did. Used to check changes to the word bank or the rules
+ * before shipping them. <p>
+ * Games are played in parallel on the fork-join common pool, each on its own {@code GameSession}.
+ * Each game gets a {@code SplittableRandom} split off in solution order from one seeded at the
+ * start of the run, so a run is reproducible from its seed no matter how the games are scheduled.
+ * <p>
+ * Each {@code Report} has the win rate, the histogram of guesses needed, the hardest words and the
+ * throughput in games per second. Run {@code main()} with an optional strategy name
+ * ({@code entropy} or {@code random}) and seed.
+ * @see Strategy
+ * @see GameSession
+ */
+public class Simulator {
+    static final int WORST_WORDS_SHOWN = 5;
+
+    /**
+     * The outcome of playing every solution of a configuration.
+     */
+    static final class Report {
+        final GameConfig configuration;
+        final String strategy;
+        final int games;
+        final int wins;
+        final int[] histogram;
+        final List<String> worstWords;
+        final double gamesPerSecond;
+
+        Report(GameConfig configuration, String strategy, int games, int wins, int[] histogram,
+               List<String> worstWords, double gamesPerSecond) {
+            this.configuration = configuration;
+            this.strategy = strategy;
+            this.games = games;
+            this.wins = wins;
+            this.histogram = histogram;
+            this.worstWords = worstWords;
+            this.gamesPerSecond = gamesPerSecond;
+        }
+
+        /**
+         * Returns the proportion of games won.
+         * @return the win rate, between 0 and 1
+         */
+        double winRate() {
+            return games == 0 ? 0 : (double) wins / games;
+        }
+
+        /**
+         * Returns the average number of guesses needed in the games won.
+         * @return the average number of guesses of won games
+         */
+        double averageGuesses() {
+            long total = 0;
+            for (int guesses = 1; guesses < histogram.length; guesses++) {
+                total += (long) guesses * histogram[guesses];
+            }
+            return wins == 0 ? 0 : (double) total / wins;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder();
+            report.append(configuration).append(" (").append(strategy).append(")\n");
+            report.append(String.format("  games %d, won %.2f%%, average %.3f guesses, "
+                    + "%.0f games/s%n", games, 100 * winRate(), averageGuesses(), gamesPerSecond));
+            report.append("  guesses:");
+            for (int guesses = 1; guesses < histogram.length; guesses++) {
+                report.append(' ').append(guesses).append('=').append(histogram[guesses]);
+            }
+            report.append(" lost=").append(games - wins).append('\n');
+            report.append("  hardest: ").append(String.join(", ", worstWords)).append('\n');
+            return report.toString();
+        }
+    }
+
+    /**
+     * Returns every configuration {@code GameMaster} offers.
+     * @return every configuration
+     */
+    static List<GameConfig> allConfigurations() {
+        List<GameConfig> configurations = new ArrayList<GameConfig>();
+        for (boolean blind : new boolean[] {false, true}) {
+            for (int length = 4; length <= 6; length++) {
+                configurations.add(GameConfig.DEFAULT.withLength(length).withBlind(blind));
+            }
+            configurations.add(GameConfig.DEFAULT.withMixedLength().withBlind(blind));
+        }
+        return configurations;
+    }
+
+    /**
+     * Plays the strategy against every solution of the configuration in parallel, and returns
+     * the report.
+     * @param configuration the rules to play with
+     * @param strategy the strategy to play
+     * @param matrix the feedback matrix of the word bank, whose words are the solutions
+     * @param seed the seed for the randomness given to the strategy
+     * @return the report of the games
+     */
+    static Report run(GameConfig configuration, Strategy strategy, FeedbackMatrix matrix,
+                      long seed) {
+        int start = configuration.isMixedLength() ? matrix.startIndex(4)
+                                                  : matrix.startIndex(configuration.getLength());
+        int end = configuration.isMixedLength() ? matrix.endIndex(6)
+                                                : matrix.endIndex(configuration.getLength());
+        int games = end - start;
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[games];
+        for (int game = 0; game < games; game++) {
+            randoms[game] = root.split();
+        }
+
+        // guesses needed per game, or guessMax + 1 if lost
+        int[] guessesNeeded = new int[games];
+        long startTime = System.nanoTime();
+        IntStream.range(0, games).parallel().forEach(game -> {
+            String solution = matrix.getWord(start + game);
+            GameSession session = new GameSession(configuration, solution, null, null);
+            while (!session.isOver()) {
+                if (session.play(strategy.nextGuess(session, randoms[game])) < 0) {
+                    throw new IllegalStateException(strategy.getName()
+                            + " made an invalid guess against " + solution);
+                }
+            }
+            guessesNeeded[game] = (session.getStatus() == GameSession.Status.WON)
+                    ? session.getGuessesMade() : configuration.getGuessMax() + 1;
+        });
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+
+        int wins = 0;
+        int[] histogram = new int[configuration.getGuessMax() + 1];
+        for (int guesses : guessesNeeded) {
+            if (guesses <= configuration.getGuessMax()) {
+                wins++;
+                histogram[guesses]++;
+            }
+        }
+        Integer[] order = new Integer[games];
+        for (int game = 0; game < games; game++) order[game] = game;
+        Arrays.sort(order, Comparator.comparingInt((Integer game) -> -guessesNeeded[game])
+                                     .thenComparing(game -> matrix.getWord(start + game)));
+        List<String> worstWords = new ArrayList<String>();
+        int guessMax = configuration.getGuessMax();
+        for (int i = 0; i < Math.min(WORST_WORDS_SHOWN, games); i++) {
+            int game = order[i];
+            worstWords.add(matrix.getWord(start + game) + " ("
+                    + (guessesNeeded[game] > guessMax ? "lost" : guessesNeeded[game]) + ")");
+        }
+        return new Report(configuration, strategy.getName(), games, wins, histogram, worstWords,
+                          games / seconds);
+    }
+
+    /**
+     * Plays a strategy against every solution in the word bank for every configuration, and
+     * prints the reports. Arguments: the strategy name ({@code entropy} by default, or
+     * {@code random}), then the seed (0 by default).
+     * @param args the strategy name and the seed, both optional
+     * @throws IOException if the file {@code bank} cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        CandidateIndex index = CandidateIndex.shared();
+        FeedbackMatrix matrix = index.getMatrix();
+        String name = args.length > 0 ? args[0] : "entropy";
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        Strategy strategy = name.equals("random") ? new RandomStrategy(matrix, index)
+                : new EntropyStrategy(matrix, index, Solver.NO_BUDGET);
+
+        for (GameConfig configuration : allConfigurations()) {
+            System.out.println(run(configuration, strategy, matrix, seed));
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package wordle;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Recommends the next guess of a game, by looking for the bank word that gives the most expected
+ * information about the solution. Built on a {@code FeedbackMatrix}, so every clue between two bank
+ * words is a single lookup. <p>
+ * Has the following methods: <p>
+ * > - {@code recommend()} returns the index of the guess that maximises the expected information
+ * (entropy of the clue it would give) over the remaining candidates, as kept by a
+ * {@code CandidateSet}. <p>
+ * Guesses are evaluated in parallel with fork-join. Every evaluation checks a deadline, so a
+ * recommendation always comes back within the time budget given, even if not every guess could be
+ * evaluated. Remaining candidates are evaluated first, so a recommendation cut short by the budget
+ * is still a sensible one. Without a budget ({@code NO_BUDGET}), every guess is evaluated and the
+ * same candidates always give the same recommendation.
+ * @see FeedbackMatrix
+ * @see CandidateSet
+ */
+final class Solver {
+    static final long DEFAULT_BUDGET_MILLIS = 100;
+    static final long NO_BUDGET = Long.MAX_VALUE;
+
+    private static final int GUESSES_PER_TASK = 32;
+
+    private final FeedbackMatrix matrix;
+    private final boolean blind;
+
+    /**
+     * Constructor for {@code Solver}, recommending guesses among the words of the matrix for a
+     * game with normal clues.
+     * @param matrix the feedback matrix of the word bank
+     */
+    Solver(FeedbackMatrix matrix) {
+        this(matrix, false);
+    }
+
+    /**
+     * Constructor for {@code Solver}, recommending guesses among the words of the matrix. With
+     * blind clues, guesses are scored on how well they split the candidates by blind code (see
+     * {@code ClueCode.blindCode()}) rather than by full feedback code.
+     * @param matrix the feedback matrix of the word bank
+     * @param blind whether the game gives blind clues
+     */
+    Solver(FeedbackMatrix matrix, boolean blind) {
+        this.matrix = matrix;
+        this.blind = blind;
+    }
+
+    /**
+     * Returns the feedback matrix this solver is built on.
+     * @return the feedback matrix
+     */
+    FeedbackMatrix getMatrix() {
+        return this.matrix;
+    }
+
+    /**
+     * Returns the index of the guess that maximises the expected information over the remaining
+     * candidates, among the bank words of the solution length (or of any length with the mixed
+     * length rule). Ties are broken in favour of guesses that could be the solution. <p>
+     * Returns -1 if there are no candidates left, and the only candidate if there is one.
+     * @param candidates the indices of the remaining candidates, from {@code CandidateSet}
+     * @param length the length of the solution, ignored with the mixed length rule
+     * @param mixedLength whether the mixed length rule is in play
+     * @param budgetMillis the time budget for the recommendation, in milliseconds, or
+     * {@code NO_BUDGET} to evaluate every guess (which makes the recommendation deterministic)
+     * @return the index of the recommended guess, or -1
+     */
+    int recommend(int[] candidates, int length, boolean mixedLength, long budgetMillis) {
+        if (candidates.length <= 1) return candidates.length == 0 ? -1 : candidates[0];
+
+        int start = mixedLength ? matrix.startIndex(4) : matrix.startIndex(length);
+        int end = mixedLength ? matrix.endIndex(6) : matrix.endIndex(length);
+        boolean[] isCandidate = new boolean[matrix.size()];
+        for (int candidate : candidates) isCandidate[candidate] = true;
+
+        // candidates first, then every other allowed guess
+        int[] pool = new int[candidates.length + (end - start)];
+        int poolSize = 0;
+        for (int candidate : candidates) pool[poolSize++] = candidate;
+        for (int guess = start; guess < end; guess++) {
+            if (!isCandidate[guess]) pool[poolSize++] = guess;
+        }
+
+        long deadline = (budgetMillis == NO_BUDGET) ? NO_BUDGET
+                                                    : System.nanoTime() + budgetMillis * 1_000_000L;
+        Evaluation best = new EvaluateTask(pool, 0, poolSize, candidates, isCandidate, deadline)
+                .invoke();
+        return best == null ? candidates[0] : best.guess;
+    }
+
+    /**
+     * Returns the expected information (in bits) gained by making the guess, ie the entropy of the
+     * distribution of feedback codes (or blind codes, for blind clues) it gives over the
+     * candidates.
+     * @param guess the index of the guess
+     * @param candidates the indices of the remaining candidates
+     * @param histogram a zeroed array of size {@code ClueCode.CODE_SPACE}, zeroed again on return
+     * @return the expected information of the guess
+     */
+    double entropy(int guess, int[] candidates, int[] histogram) {
+        for (int candidate : candidates) {
+            histogram[feedback(guess, candidate)]++;
+        }
+        double sumCountLogCount = 0;
+        for (int candidate : candidates) {
+            int code = feedback(guess, candidate);
+            int count = histogram[code];
+            if (count != 0) {
+                sumCountLogCount += count * Math.log(count);
+                histogram[code] = 0;
+            }
+        }
+        double total = candidates.length;
+        return (Math.log(total) - sumCountLogCount / total) / Math.log(2);
+    }
+
+    private int feedback(int guess, int solution) {
+        int code = matrix.code(guess, solution);
+        return blind ? ClueCode.blindCode(code) : code;
+    }
+
+    /**
+     * The best guess found by a task, and its score.
+     */
+    private static final class Evaluation {
+        final int guess;
+        final double entropy;
+        final boolean isCandidate;
+
+        Evaluation(int guess, double entropy, boolean isCandidate) {
+            this.guess = guess;
+            this.entropy = entropy;
+            this.isCandidate = isCandidate;
+        }
+
+        boolean isBetterThan(Evaluation other) {
+            if (other == null) return true;
+            if (this.entropy != other.entropy) return this.entropy > other.entropy;
+            return this.isCandidate && !other.isCandidate;
+        }
+    }
+
+    /**
+     * Evaluates a range of the guess pool, splitting it in halves until it is small enough.
+     */
+    private final class EvaluateTask extends RecursiveTask<Evaluation> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] pool;
+        private final int from, to;
+        private final int[] candidates;
+        private final boolean[] isCandidate;
+        private final long deadline;
+
+        EvaluateTask(int[] pool, int from, int to, int[] candidates, boolean[] isCandidate,
+                long deadline) {
+            this.pool = pool;
+            this.from = from;
+            this.to = to;
+            this.candidates = candidates;
+            this.isCandidate = isCandidate;
+            this.deadline = deadline;
+        }
+
+        private boolean isBeforeDeadline() {
+            return deadline == NO_BUDGET || System.nanoTime() - deadline < 0;
+        }
+
+        @Override
+        protected Evaluation compute() {
+            if (to - from > GUESSES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                EvaluateTask left = new EvaluateTask(pool, from, middle, candidates, isCandidate,
+                        deadline);
+                EvaluateTask right = new EvaluateTask(pool, middle, to, candidates, isCandidate,
+                        deadline);
+                left.fork();
+                Evaluation rightBest = right.compute();
+                Evaluation leftBest = left.join();
+                if (leftBest == null) return rightBest;
+                boolean rightIsBetter = (rightBest != null && rightBest.isBetterThan(leftBest));
+                return rightIsBetter ? rightBest : leftBest;
+            }
+
+            int[] histogram = new int[ClueCode.CODE_SPACE];
+            Evaluation best = null;
+            for (int i = from; i < to && isBeforeDeadline(); i++) {
+                int guess = pool[i];
+                Evaluation evaluation = new Evaluation(guess, entropy(guess, candidates, histogram),
+                        isCandidate[guess]);
+                if (evaluation.isBetterThan(best)) best = evaluation;
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package wordle;
+
+import java.util.SplittableRandom;
+
+/**
+ * A way of playing Wordle without a player, used by {@code Simulator} to play whole banks of games.
+ * A strategy only looks at the {@code GameSession} it is given, so one strategy object can play
+ * many games at once on different threads.
+ * @see Simulator
+ * @see EntropyStrategy
+ * @see RandomStrategy
+ */
+interface Strategy {
+
+    /**
+     * Returns the next guess to make in the game.
+     * @param session the game being played, with its history so far
+     * @param random a source of randomness seeded for this game, so that runs are reproducible
+     * @return the next guess, in uppercase
+     */
+    String nextGuess(GameSession session, SplittableRandom random);
+
+    /**
+     * Returns the name of the strategy, as shown in reports.
+     * @return the name of the strategy
+     */
+    String getName();
+
+    /**
+     * Returns the guess to make when no word of the bank fits the clues so far, which happens when
+     * the solution is not a bank word: the first bank word of the length of the solution, a valid
+     * guess on any turn.
+     * @param matrix the feedback matrix of the word bank
+     * @param length the length of the solution
+     * @return the guess, in uppercase
+     * @throws IllegalStateException if the bank has no word of the length
+     */
+    static String fallbackGuess(FeedbackMatrix matrix, int length) {
+        int start = matrix.startIndex(length);
+        if (start == matrix.endIndex(length)) {
+            throw new IllegalStateException("the word bank has no word of length " + length);
+        }
+        return matrix.getWord(start);
+    }
+}
@@ -2,15 +2,30 @@ package wordle;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.Scanner;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
 
 /**
  * Represents a word bank, which stores the list of words that the wordle games can use as 
  * solutions. After initialising with {@code WordBank()}, take a random word with 
  * {@code getLength4()}, {@code getLength5()}, {@code getLength6()} or {@code getAny()}. <p>
- * Scans the file {@code bank} and adds each word found to their respective lists: <p>
+ * The words come from the file {@code bank}, parsed once into a {@code BankSnapshot} shared by
+ * every word bank; a word bank only holds its own draw state on top of it, a shuffled
+ * {@code Deck} for each word length, so creating one is cheap and every draw takes constant time.
+ * The file {@code bank} must be formatted as follows: <p>
  * > Each word comes with its explanation - some flavour text shown to the player at the end of
  * each game. For example: <p>
  * > > SPLAT : You SPLAT opponents by dealing enough damage to them with your weapon. <p>
@@ -19,16 +34,45 @@ import java.util.Scanner;
  * > > - the word must be of the proper word length (4, 5 or 6) <p>
  * > > - the word must precede its explanation, and the two must be separated by " : " <p>
  * > Lines that do not follow this format are ignored. <p>
+ * The order words are dealt in is decided by the seed alone, so the deal can be saved with
+ * {@code save()} and picked up again with {@code restore()}, for example so that a restarted
+ * process does not repeat solutions. <p>
+ * Solutions of a difficulty (see {@code DifficultyIndex}) are dealt from a deck of their own per
+ * mode and difficulty, over the words the index rates so, which is worked out the first time it
+ * is dealt from. Every word dealt by any deck is marked in one bitset, and every deck passes over
+ * the words marked, so whichever decks deal it, no word is dealt twice before every word of a
+ * deck it is in has been dealt. {@code getSolution()} shuffles a deck again once it runs out,
+ * clearing the marks of its words only, so the other decks carry on where they were.
+ * @see BankSnapshot
+ * @see Deck
+ * @see DifficultyIndex
  */
 class WordBank {
-    private ArrayList<String> wordLength4 = new ArrayList<String>();
-    private ArrayList<String> wordLength5 = new ArrayList<String>();
-    private ArrayList<String> wordLength6 = new ArrayList<String>();
-    private HashMap<String,String> wordExplanation = new HashMap<String,String>();
+    static final String BANK_PATH = "src/wordle/bank";
+    static final String DEAL_PATH = BANK_PATH + ".deal";
+
+    private final BankSnapshot snapshot;
+    private final long seed;
+    private final Deck[] decks = new Deck[ClueCode.MAX_LENGTH + 1];
+    private final long[] deckSeeds = new long[ClueCode.MAX_LENGTH + 1];
+    private final long mixedSeed;
+    private final long levelSeed;
+    private final int[] offsets = new int[ClueCode.MAX_LENGTH + 1];
+    private final int[] shuffles = new int[ClueCode.MAX_LENGTH + 1];
+    // every word dealt since its deck was last shuffled, by its index in getAllWords()
+    private final BitSet dealt = new BitSet();
+    private int mixedDraws;
+    // per mode and difficulty (mode * 4 + level): the words rated so (by their index in
+    // getAllWords()), their deck, how many times it was shuffled again, and the cursor of a
+    // restored deck not dealt from yet
+    private final Map<Integer,int[]> levelWords = new HashMap<Integer,int[]>();
+    private final Map<Integer,Deck> levelDecks = new HashMap<Integer,Deck>();
+    private final Map<Integer,Integer> levelShuffles = new HashMap<Integer,Integer>();
+    private final Map<Integer,Integer> levelCursors = new HashMap<Integer,Integer>();
     
     /**
-     * Constructor for {@code WordBank} object. Scans the file {@code bank} and adds each word 
-     * found to their respective lists. <p>
+     * Constructor for {@code WordBank} object, drawing from the current snapshot of the file
+     * {@code bank} (parsed the first time a word bank is created, see {@code BankSnapshot}). <p>
      * Each word comes with its explanation - some flavour text shown to the player at the end of
      * each game. For example: <p>
      * > SPLAT : You SPLAT opponents by dealing enough damage to them with your weapon. <p>
@@ -42,87 +86,332 @@ class WordBank {
      * @throws FileNotFoundException if the file(s) cannot be found (likely not downloaded properly)
      */
     WordBank() throws FileNotFoundException {
-        try (Scanner sc = new Scanner(new File("src/wordle/bank"))) {
-            while (sc.hasNextLine()) {
-                String[] line = sc.nextLine().split(" : ");
-                if (line.length == 2) {
-                    switch (line[0].length()) {
-                        case 4:
-                            wordLength4.add(line[0].toUpperCase());
-                            wordExplanation.put(line[0].toUpperCase(), line[1]);
-                            break;
-                        case 5:
-                            wordLength5.add(line[0].toUpperCase());
-                            wordExplanation.put(line[0].toUpperCase(), line[1]);
-                            break;
-                        case 6:
-                            wordLength6.add(line[0].toUpperCase());
-                            wordExplanation.put(line[0].toUpperCase(), line[1]);
-                            break;
+        this(BankSnapshot.current(), new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Constructor for {@code WordBank} object, same as {@code WordBank()} except that words are
+     * taken in an order decided by the seed, so the same seed always gives the same words.
+     * @param seed the seed for the random selection of words
+     * @throws FileNotFoundException if the file(s) cannot be found (likely not downloaded properly)
+     */
+    WordBank(long seed) throws FileNotFoundException {
+        this(BankSnapshot.current(), seed);
+    }
+
+    /**
+     * Constructor for {@code WordBank} object, same as {@code WordBank(seed)} except that the
+     * words are parsed from the specified file rather than {@code bank}, for example a synthetic
+     * bank used for benchmarking.
+     * @param bankFile the file to parse, in the same format as {@code bank}
+     * @param seed the seed for the random selection of words
+     * @throws FileNotFoundException if the file cannot be found
+     */
+    WordBank(File bankFile, long seed) throws FileNotFoundException {
+        this(BankSnapshot.load(bankFile.toPath()), seed);
+    }
+
+    /**
+     * Constructor for {@code WordBank} object, drawing from the specified snapshot in an order
+     * decided by the seed.
+     * @param snapshot the snapshot of the bank to draw from
+     * @param seed the seed for the random selection of words
+     */
+    WordBank(BankSnapshot snapshot, long seed) {
+        this.snapshot = snapshot;
+        this.seed = seed;
+        SplittableRandom root = new SplittableRandom(seed);
+        for (int length = 4; length <= 6; length++) {
+            deckSeeds[length] = root.nextLong();
+        }
+        this.mixedSeed = root.nextLong();
+        this.levelSeed = root.nextLong();
+        for (int length = 5; length <= 6; length++) {
+            offsets[length] = offsets[length - 1] + snapshot.getWords(length - 1).size();
+        }
+    }
+
+    /**
+     * Returns a word bank over the current snapshot of {@code bank} that carries on the deal
+     * saved in the file by {@code save()}, so that no word dealt before is dealt again. A new deal
+     * is started instead if there is no saved deal, it cannot be read, or it was made for
+     * different bank contents.
+     * @param dealFile the file the deal was saved to
+     * @return the word bank carrying on the saved deal
+     * @throws FileNotFoundException if the file {@code bank} cannot be found
+     */
+    static WordBank restore(Path dealFile) throws FileNotFoundException {
+        BankSnapshot snapshot = BankSnapshot.current();
+        Properties deal = new Properties();
+        try (InputStream in = Files.newInputStream(dealFile)) {
+            deal.load(in);
+            if (Long.parseLong(deal.getProperty("hash")) == snapshot.getHash()) {
+                long seed = Long.parseLong(deal.getProperty("seed"));
+                WordBank wordBank = new WordBank(snapshot, seed);
+                for (int length = 4; length <= 6; length++) {
+                    int cursor = Integer.parseInt(deal.getProperty("cursor" + length));
+                    wordBank.shuffles[length] =
+                            Integer.parseInt(deal.getProperty("shuffles" + length, "0"));
+                    wordBank.decks[length] = new Deck(snapshot.getWords(length).size(),
+                            reshuffledSeed(wordBank.deckSeeds[length], wordBank.shuffles[length]),
+                            cursor);
+                }
+                wordBank.mixedDraws = Integer.parseInt(deal.getProperty("mixed"));
+                wordBank.dealt.or(BitSet.valueOf(
+                        Base64.getDecoder().decode(deal.getProperty("dealt", ""))));
+                for (String name : deal.stringPropertyNames()) {
+                    if (name.matches("level\\d+")) {
+                        wordBank.levelCursors.put(Integer.parseInt(name.substring(5)),
+                                                  Integer.parseInt(deal.getProperty(name)));
+                    } else if (name.matches("levelShuffles\\d+")) {
+                        wordBank.levelShuffles.put(Integer.parseInt(name.substring(13)),
+                                                   Integer.parseInt(deal.getProperty(name)));
                     }
                 }
+                return wordBank;
             }
+        } catch (IOException | RuntimeException e) {
+            // no usable saved deal, start a new one
         }
+        return new WordBank(snapshot, new SplittableRandom().nextLong());
     }
 
     /**
-     * Selects and returns a random word in the list of length 4 words, then removes it from the 
-     * list. Throws {@code EmptyWordBankException} instead if the list is empty.
-     * @return a random word selected (and then removed) in the list of length 4 words
-     * @throws EmptyWordBankException if the list is empty
+     * Saves the deal (the seed and how far each deck has been dealt) to the file, through a
+     * temporary file so that a crash never leaves a partially written deal.
+     * @param dealFile the file to save the deal to
+     * @throws IOException if the file cannot be written
+     */
+    void save(Path dealFile) throws IOException {
+        Properties deal = new Properties();
+        deal.setProperty("hash", Long.toString(snapshot.getHash()));
+        deal.setProperty("seed", Long.toString(seed));
+        for (int length = 4; length <= 6; length++) {
+            deal.setProperty("cursor" + length, Integer.toString(deck(length).getCursor()));
+            deal.setProperty("shuffles" + length, Integer.toString(shuffles[length]));
+        }
+        deal.setProperty("mixed", Integer.toString(mixedDraws));
+        deal.setProperty("dealt", Base64.getEncoder().encodeToString(dealt.toByteArray()));
+        for (Map.Entry<Integer,Integer> count : levelShuffles.entrySet()) {
+            deal.setProperty("levelShuffles" + count.getKey(), Integer.toString(count.getValue()));
+        }
+        for (Map.Entry<Integer,Integer> cursor : levelCursors.entrySet()) {
+            deal.setProperty("level" + cursor.getKey(), Integer.toString(cursor.getValue()));
+        }
+        for (Map.Entry<Integer,Deck> deck : levelDecks.entrySet()) {
+            deal.setProperty("level" + deck.getKey(),
+                             Integer.toString(deck.getValue().getCursor()));
+        }
+        Path tempPath = dealFile.resolveSibling(dealFile.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tempPath)) {
+            deal.store(out, "word bank deal, see WordBank.save()");
+        }
+        Files.move(tempPath, dealFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the default file deals are saved to, next to {@code bank}.
+     * @return the path of the deal file
+     */
+    static Path dealPath() {
+        return Paths.get(DEAL_PATH);
+    }
+
+    private Deck deck(int length) {
+        if (decks[length] == null) {
+            decks[length] = new Deck(snapshot.getWords(length).size(),
+                                     reshuffledSeed(deckSeeds[length], shuffles[length]));
+        }
+        return decks[length];
+    }
+
+    private String draw(int length) throws EmptyWordBankException {
+        while (true) {
+            int word = offsets[length] + deck(length).draw();
+            if (!dealt.get(word)) {
+                dealt.set(word);
+                return snapshot.getAllWords().get(word);
+            }
+        }
+    }
+
+    private void reshuffle(int length) {
+        shuffles[length]++;
+        int size = snapshot.getWords(length).size();
+        decks[length] = new Deck(size, reshuffledSeed(deckSeeds[length], shuffles[length]));
+        dealt.clear(offsets[length], offsets[length] + size);
+    }
+
+    private static long reshuffledSeed(long deckSeed, int shuffles) {
+        return shuffles == 0 ? deckSeed : new SplittableRandom(deckSeed + shuffles).nextLong();
+    }
+
+    /**
+     * Returns the snapshot of the bank this word bank draws from.
+     * @return the snapshot of the bank
+     */
+    BankSnapshot getSnapshot() {
+        return this.snapshot;
+    }
+
+    /**
+     * Returns every word found in the bank, grouped by length (all length 4 words, then length 5,
+     * then length 6) and otherwise in the order they appear in the file. Words taken with the
+     * other methods are not removed from this list.
+     * @return an unmodifiable list of every word in the bank
+     */
+    List<String> getAllWords() {
+        return snapshot.getAllWords();
+    }
+
+    /**
+     * Selects and returns a random length 4 word that has not been taken yet, by this method or
+     * any other (the same goes for every method below). Throws
+     * {@code EmptyWordBankException} instead if every length 4 word has been taken.
+     * @return a random length 4 word not taken before
+     * @throws EmptyWordBankException if every length 4 word has been taken
      */
     String getLength4() throws EmptyWordBankException {
-        if (wordLength4.size() == 0) throw new EmptyWordBankException();
-        return wordLength4.remove((int) Math.floor(Math.random() * wordLength4.size()));
+        return draw(4);
     }
 
     /**
-     * Selects and returns a random word in the list of length 5 words, then removes it from the 
-     * list. Throws {@code EmptyWordBankException} instead if the list is empty.
-     * @return a random word selected (and then removed) in the list of length 5 words
-     * @throws EmptyWordBankException if the list is empty
+     * Selects and returns a random length 5 word that has not been taken yet. Throws
+     * {@code EmptyWordBankException} instead if every length 5 word has been taken.
+     * @return a random length 5 word not taken before
+     * @throws EmptyWordBankException if every length 5 word has been taken
      */  
     String getLength5() throws EmptyWordBankException {
-        if (wordLength5.size() == 0) throw new EmptyWordBankException();
-        return wordLength5.remove((int) Math.floor(Math.random() * wordLength5.size()));
+        return draw(5);
     }
 
     /**
-     * Selects and returns a random word in the list of length 6 words, then removes it from the 
-     * list. Throws {@code EmptyWordBankException} instead if the list is empty.
-     * @return a random word selected (and then removed) in the list of length 6 words
-     * @throws EmptyWordBankException if the list is empty
+     * Selects and returns a random length 6 word that has not been taken yet. Throws
+     * {@code EmptyWordBankException} instead if every length 6 word has been taken.
+     * @return a random length 6 word not taken before
+     * @throws EmptyWordBankException if every length 6 word has been taken
      */
     String getLength6() throws EmptyWordBankException {
-        if (wordLength6.size() == 0) throw new EmptyWordBankException();
-        return wordLength6.remove((int) Math.floor(Math.random() * wordLength6.size()));
+        return draw(6);
     }
 
     /**
-     * Selects a word length randomly between 4-6, then returns and removes a random word from the
-     * corresponding list. Throws {@code EmptyWordBankException} instead if the selected list is 
-     * empty. <p>
-     * Note: this selects a random list then calls its corresponding method, so there is an equal
-     * likelyhood for each list to be selected, regardless of how many words are in each list. 
-     * It is also possible for any one list to be exhausted and become empty before others do, and
-     * thus causing an {@code EmptyWordBankException} while other lists are not empty.
-     * @return a random word selected (and then removed) from a random list
-     * @throws EmptyWordBankException if the randomly selected list is empty
+     * Selects and returns a random word of length 4-6 that has not been taken yet. Throws
+     * {@code EmptyWordBankException} instead if every word has been taken. <p>
+     * The length is picked with a weight of how many words of each length are left in its deck,
+     * so every word left is equally likely (but for the words dealt by a difficulty, which are
+     * passed over), and no length runs out before the others because of this method.
+     * Words taken here are not taken again by {@code getLength4()}, {@code getLength5()} or
+     * {@code getLength6()}, and the other way round.
+     * @return a random word not taken before
+     * @throws EmptyWordBankException if every word has been taken
      */
     String getAny() throws EmptyWordBankException {
-        int i = (int) Math.floor(Math.random() * 3) + 4;
-        switch (i) {
-            case 4:
-                return getLength4();
-            case 5: 
-                return getLength5();
-            case 6:
-                return getLength6();
+        while (true) {
+            int left = deck(4).remaining() + deck(5).remaining() + deck(6).remaining();
+            if (left == 0) throw new EmptyWordBankException();
+            // a fresh generator per draw, so that restoring a deal only needs the number of draws
+            int pick = new SplittableRandom(mixedSeed + mixedDraws).nextInt(left);
+            mixedDraws++;
+            int length = 4;
+            while (pick >= deck(length).remaining()) pick -= deck(length++).remaining();
+            try {
+                return draw(length);
+            } catch (EmptyWordBankException e) {
+                // the rest of the deck was dealt by a difficulty, pick again from the others
+            }
+        }
+    }
+
+    /**
+     * Selects and returns a random word that has not been taken yet, of the length given by the
+     * rules, or of any length with the mixed length rule. Once every word of the length (or of
+     * every length) has been taken, that deck is shuffled again and dealt from the start, and the
+     * other decks are left as they are.
+     * @param config the rules of the game the word is for
+     * @return a random word not taken since its deck was last shuffled
+     * @throws EmptyWordBankException if the bank has no word of the length
+     */
+    String getSolution(GameConfig config) throws EmptyWordBankException {
+        try {
+            return config.isMixedLength() ? getAny() : draw(config.getLength());
+        } catch (EmptyWordBankException e) {
+            if (!config.isMixedLength()) {
+                reshuffle(config.getLength());
+                return draw(config.getLength());
+            }
+            for (int length = 4; length <= 6; length++) reshuffle(length);
+            return getAny();
+        }
+    }
+
+    /**
+     * Selects and returns a random word that has not been taken yet, as {@code getSolution()},
+     * of the difficulty of the rules in the index. The difficulty is ignored if there is no
+     * index, or it rates no word of the length that difficulty. Once every word of the difficulty
+     * has been taken, its deck alone is shuffled again.
+     * @param config the rules of the game the word is for
+     * @param index the difficulty index of the bank, or {@code null}
+     * @return a random word not taken since its deck was last shuffled
+     * @throws EmptyWordBankException if the bank has no word of the length
+     */
+    String getSolution(GameConfig config, DifficultyIndex index) throws EmptyWordBankException {
+        DifficultyIndex.Level level = config.getDifficulty();
+        if (index == null || level == DifficultyIndex.Level.ANY) return getSolution(config);
+        int key = GameStats.mode(config.getLength(), config.isMixedLength(), config.isBlind()) * 4
+                + level.ordinal();
+        int[] words = levelWords.get(key);
+        if (words == null) {
+            words = levelWords(config, index);
+            levelWords.put(key, words);
+        }
+        if (words.length == 0) return getSolution(config);
+        try {
+            return drawLevel(key, words);
+        } catch (EmptyWordBankException e) {
+            levelShuffles.merge(key, 1, Integer::sum);
+            levelDecks.remove(key);
+            for (int word : words) dealt.clear(word);
+            return drawLevel(key, words);
+        }
+    }
+
+    private int[] levelWords(GameConfig config, DifficultyIndex index) {
+        List<String> allWords = snapshot.getAllWords();
+        int start = config.isMixedLength() ? 0 : offsets[config.getLength()];
+        int end = config.isMixedLength() ? allWords.size()
+                : start + snapshot.getWords(config.getLength()).size();
+        int[] words = new int[end - start];
+        int count = 0;
+        for (int word = start; word < end; word++) {
+            if (index.getLevel(allWords.get(word), config) == config.getDifficulty()) {
+                words[count++] = word;
+            }
+        }
+        return Arrays.copyOf(words, count);
+    }
+
+    private String drawLevel(int key, int[] words) throws EmptyWordBankException {
+        Deck deck = levelDecks.get(key);
+        if (deck == null) {
+            long deckSeed = reshuffledSeed(new SplittableRandom(levelSeed + key).nextLong(),
+                                           levelShuffles.getOrDefault(key, 0));
+            Integer cursor = levelCursors.remove(key);
+            deck = cursor == null ? new Deck(words.length, deckSeed)
+                                  : new Deck(words.length, deckSeed, cursor);
+            levelDecks.put(key, deck);
+        }
+        while (true) {
+            int word = words[deck.draw()];
+            if (!dealt.get(word)) {
+                dealt.set(word);
+                return snapshot.getAllWords().get(word);
+            }
         }
-        return ""; // unreachable, this is only to "ensure" return type is String
     }
 
     String getExplanation(String solution) {
-        return wordExplanation.get(solution);
+        return snapshot.getExplanation(solution);
     }
 }
@@ -0,0 +1,78 @@
+package wordle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of scoring a guess: {@code Clue} construction, next to the allocation-free
+ * {@code ClueCode.score()} on strings and on packed words, and counting the letters of a blind
+ * clue. The guesses are: <p>
+ * > - {@code exact}: the guess matches the solution <p>
+ * > - {@code repeated}: guesses with repeated letters, some also repeated in the solution <p>
+ * > - {@code mixed}: guesses of a different length than the solution (mixed length rule) <p>
+ * Each operation scores one guess, cycling through three pairs so that branch prediction does
+ * not learn a single pair.
+ * @see Clue
+ * @see ClueCode
+ */
+@State(Scope.Thread)
+public class ClueBenchmark {
+    private static final String[][] EXACT = {{"SPLAT", "SPLAT"}, {"INKS", "INKS"},
+                                             {"SQUIDS", "SQUIDS"}};
+    private static final String[][] REPEATED = {{"SPILL", "SPLAT"}, {"LLAMA", "SALAD"},
+                                                {"EEEEE", "GEESE"}};
+    private static final String[][] MIXED = {{"INKS", "SPLAT"}, {"SQUIDS", "INKS"},
+                                             {"SPLAT", "SQUIDS"}};
+
+    @Param({"exact", "repeated", "mixed"})
+    String guesses;
+
+    private String[][] pairs;
+    private long[][] packedPairs;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        pairs = guesses.equals("exact") ? EXACT : guesses.equals("repeated") ? REPEATED : MIXED;
+        packedPairs = new long[pairs.length][2];
+        for (int i = 0; i < pairs.length; i++) {
+            packedPairs[i][0] = PackedWord.pack(pairs[i][0]);
+            packedPairs[i][1] = PackedWord.pack(pairs[i][1]);
+        }
+    }
+
+    private int nextPair() {
+        next = next == pairs.length - 1 ? 0 : next + 1;
+        return next;
+    }
+
+    @Benchmark
+    public Clue clue() {
+        String[] pair = pairs[nextPair()];
+        return new Clue(pair[0], pair[1]);
+    }
+
+    @Benchmark
+    public int scoreStrings() {
+        String[] pair = pairs[nextPair()];
+        return ClueCode.score(pair[0], pair[1]);
+    }
+
+    @Benchmark
+    public int scorePacked() {
+        long[] pair = packedPairs[nextPair()];
+        return ClueCode.score(pair[0], pair[1]);
+    }
+
+    @Benchmark
+    public void blindCounting(Blackhole blackhole) {
+        String[] pair = pairs[nextPair()];
+        Clue clue = new Clue(ClueCode.score(pair[0], pair[1]), pair[1].length());
+        blackhole.consume(clue.countCorrectChar());
+        blackhole.consume(clue.countHasChar());
+    }
+}
@@ -0,0 +1,57 @@
+package wordle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * The banks the benchmarks run on: the real {@code bank} (whose path is given by the system
+ * property {@code wordle.bank}, set by the build), or a synthetic bank of random words of length
+ * 4 to 6, in the format of {@code bank}, written to a temporary file.
+ * @see WordBankBenchmark
+ */
+final class SyntheticBank {
+    static final String REAL = "bank";
+
+    private SyntheticBank() {
+    }
+
+    /**
+     * Returns the bank file for a benchmark parameter: {@code REAL} for the real bank, or a number
+     * of words for a synthetic bank.
+     * @param bank the benchmark parameter
+     * @return the bank file
+     * @throws IOException if the synthetic bank cannot be written
+     */
+    static File of(String bank) throws IOException {
+        if (bank.equals(REAL)) return new File(System.getProperty("wordle.bank", WordBank.BANK_PATH));
+        int size = Integer.parseInt(bank);
+        return write(size, size);
+    }
+
+    /**
+     * Writes a synthetic bank of random words of length 4 to 6 to a temporary file deleted on
+     * exit.
+     * @param size the number of words
+     * @param seed the seed for the random words
+     * @return the synthetic bank file
+     * @throws IOException if the file cannot be written
+     */
+    static File write(int size, long seed) throws IOException {
+        File file = File.createTempFile("bank-" + size + "-", ".txt");
+        file.deleteOnExit();
+        Random random = new Random(seed);
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+            for (int i = 0; i < size; i++) {
+                int length = 4 + (i % 3);
+                StringBuilder word = new StringBuilder(length);
+                for (int pos = 0; pos < length; pos++) {
+                    word.append((char) ('A' + random.nextInt(26)));
+                }
+                writer.println(word + " : Synthetic word number " + i + ", used for benchmarking.");
+            }
+        }
+        return file;
+    }
+}
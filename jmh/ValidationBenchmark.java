@@ -0,0 +1,51 @@
+package wordle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark of {@code AbstractGame.isValidGuess()}, on a game that is never played on the
+ * terminal, with and without the mixed length rule. Each operation checks one guess, cycling
+ * through valid and invalid guesses (wrong length, not alphabetical, mixed case).
+ * @see AbstractGame
+ * @see GameSession
+ */
+@State(Scope.Thread)
+public class ValidationBenchmark {
+    private static final String[] GUESSES = {"SQUID", "inkling", "CRAB", "sp1at", "Tower",
+                                             "OCTOPI"};
+
+    /**
+     * A game over a session, with nothing printed: the constructor does not call {@code play()}.
+     */
+    static final class SilentGame extends AbstractGame {
+        SilentGame(GameSession session) {
+            this.session = session;
+        }
+
+        @Override
+        void giveClue(Clue clue) {
+        }
+    }
+
+    @Param({"false", "true"})
+    boolean mixedLength;
+
+    private AbstractGame game;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        game = new SilentGame(new GameSession("SPLAT", GameConfig.NORMAL_GUESS_MAX, mixedLength,
+                                              false, null));
+    }
+
+    @Benchmark
+    public boolean isValidGuess() {
+        next = next == GUESSES.length - 1 ? 0 : next + 1;
+        return game.isValidGuess(GUESSES[next]);
+    }
+}
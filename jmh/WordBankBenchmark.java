@@ -0,0 +1,81 @@
+package wordle;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the {@code WordBank}, on the real {@code bank} and on synthetic banks of 10 000
+ * and 100 000 words: <p>
+ * > - {@code construct}: parsing the bank file into a new word bank. <p>
+ * > - {@code drainTenth}: the draws of one tenth of the length 5 words with
+ * {@code getLength5()}, after the tenths before it were drawn (outside the measurement), so
+ * that the cost of a draw can be compared from the full list to the nearly drained one. This one
+ * reports the average time of the tenth, and needs a fresh word bank per operation.
+ * @see WordBank
+ * @see Deck
+ */
+@State(Scope.Thread)
+public class WordBankBenchmark {
+    @Param({SyntheticBank.REAL, "10000", "100000"})
+    String bank;
+
+    private File bankFile;
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        bankFile = SyntheticBank.of(bank);
+    }
+
+    @Benchmark
+    public WordBank construct() throws IOException {
+        return new WordBank(bankFile, seed++);
+    }
+
+    /**
+     * A word bank drawn up to the start of a tenth of its length 5 words, made again before every
+     * operation.
+     */
+    @State(Scope.Thread)
+    public static class Drain {
+        @Param({"0", "5", "9"})
+        int tenth;
+
+        BankSnapshot snapshot;
+        WordBank wordBank;
+        int draws;
+        private long seed;
+
+        @Setup(Level.Trial)
+        public void setUp(WordBankBenchmark benchmark) throws IOException {
+            snapshot = BankSnapshot.load(benchmark.bankFile.toPath());
+            int size = snapshot.getWords(5).size();
+            draws = (tenth + 1) * size / 10 - tenth * size / 10;
+        }
+
+        @Setup(Level.Invocation)
+        public void drawTenthsBefore() throws EmptyWordBankException {
+            wordBank = new WordBank(snapshot, seed++);
+            int drawn = tenth * snapshot.getWords(5).size() / 10;
+            for (int i = 0; i < drawn; i++) wordBank.getLength5();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void drainTenth(Drain drain, Blackhole blackhole) throws EmptyWordBankException {
+        for (int i = 0; i < drain.draws; i++) blackhole.consume(drain.wordBank.getLength5());
+    }
+}
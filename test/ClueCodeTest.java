@@ -0,0 +1,141 @@
+package wordle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.FileNotFoundException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that every way of scoring a guess gives the same feedback code as the original
+ * {@code Clue} algorithm, kept here as the reference: {@code ClueCode.score()} on strings and on
+ * packed words, and the batch kernel {@code ClueCode.scoreAll()}. The pairs are: <p>
+ * > - the examples of the repeated letter rule, such as SPILL against SPLAT <p>
+ * > - random pairs of any letters and of lengths 4 to 6 <p>
+ * > - random pairs of only four letters, so that most letters are repeated <p>
+ * > - random batches of both, scored with {@code scoreAll()} <p>
+ * > - every pair of words of the bank (whose path is given by the system property
+ * {@code wordle.bank}, set by the build)
+ * @see ClueCode
+ * @see Clue
+ */
+class ClueCodeTest {
+    private static final int RANDOM_PAIRS = 1_000_000;
+    private static final long SEED = 0x53504C4154L;
+
+    /**
+     * Scores the guess against the solution the way the original {@code Clue} constructor did:
+     * correct letters first, then each other letter of the guess, from left to right, takes the
+     * first unmatched copy of itself in the solution.
+     */
+    private static int reference(String guess, String solution) {
+        boolean[] correct = new boolean[guess.length()];
+        boolean[] present = new boolean[guess.length()];
+        boolean[] taken = new boolean[solution.length()];
+        for (int pos = 0; pos < guess.length() && pos < solution.length(); pos++) {
+            correct[pos] = guess.charAt(pos) == solution.charAt(pos);
+            taken[pos] = correct[pos];
+        }
+        for (int pos = 0; pos < guess.length(); pos++) {
+            if (correct[pos]) continue;
+            for (int posSol = 0; posSol < solution.length(); posSol++) {
+                if (!present[pos] && !taken[posSol]) {
+                    present[pos] = guess.charAt(pos) == solution.charAt(posSol);
+                    taken[posSol] = present[pos];
+                }
+            }
+        }
+        int code = guess.length() == solution.length() ? ClueCode.TRIT_SPACE : 0;
+        for (int pos = guess.length() - 1; pos >= 0; pos--) {
+            code += (correct[pos] ? ClueCode.CORRECT : present[pos] ? ClueCode.PRESENT
+                                                                      : ClueCode.ABSENT)
+                    * (int) Math.pow(3, pos);
+        }
+        return code;
+    }
+
+    private static void check(String guess, String solution) {
+        int expected = reference(guess, solution);
+        assertEquals(expected, ClueCode.score(guess, solution), guess + " against " + solution);
+        assertEquals(expected, ClueCode.score(PackedWord.pack(guess), PackedWord.pack(solution)),
+                     guess + " against " + solution + ", packed");
+    }
+
+    private static String randomWord(SplittableRandom random, int letters) {
+        char[] word = new char[4 + random.nextInt(3)];
+        for (int pos = 0; pos < word.length; pos++) {
+            word[pos] = (char) ('A' + random.nextInt(letters));
+        }
+        return new String(word);
+    }
+
+    @Test
+    void repeatedLetterExamples() {
+        String[][] pairs = {{"SPILL", "SPLAT"}, {"LLAMA", "SALAD"}, {"EEEEE", "GEESE"},
+                            {"GEESE", "EEEEE"}, {"SPLAT", "SPLAT"}, {"INKS", "SPLAT"},
+                            {"SQUIDS", "INKS"}, {"ALLEE", "EAGLE"}, {"ABBB", "BAAA"}};
+        for (String[] pair : pairs) check(pair[0], pair[1]);
+        assertEquals(ClueCode.exactMatch(5), ClueCode.score("SPLAT", "SPLAT"));
+    }
+
+    @Test
+    void randomPairs() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int pair = 0; pair < RANDOM_PAIRS; pair++) {
+            check(randomWord(random, 26), randomWord(random, 26));
+        }
+    }
+
+    @Test
+    void repeatedLetterPairs() {
+        SplittableRandom random = new SplittableRandom(SEED + 1);
+        for (int pair = 0; pair < RANDOM_PAIRS; pair++) {
+            check(randomWord(random, 4), randomWord(random, 4));
+        }
+    }
+
+    @Test
+    void randomBatches() {
+        SplittableRandom random = new SplittableRandom(SEED + 2);
+        String[] words = new String[1000];
+        long[] packed = new long[words.length];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = randomWord(random, i % 2 == 0 ? 26 : 4);
+            packed[i] = PackedWord.pack(words[i]);
+        }
+        long[] counts = ClueCode.letterCounts(packed);
+        short[] codes = new short[words.length];
+        for (int guess = 0; guess < words.length; guess++) {
+            ClueCode.scoreAll(packed[guess], packed, counts, 0, words.length, codes, 0);
+            for (int solution = 0; solution < words.length; solution++) {
+                assertEquals(reference(words[guess], words[solution]), codes[solution],
+                             words[guess] + " against " + words[solution] + ", batch");
+            }
+        }
+    }
+
+    @Test
+    void everyBankPair() throws FileNotFoundException {
+        List<String> words = BankSnapshot.load(Paths.get(System.getProperty("wordle.bank",
+                WordBank.BANK_PATH))).getAllWords();
+        long[] packed = new long[words.size()];
+        for (int i = 0; i < packed.length; i++) packed[i] = PackedWord.pack(words.get(i));
+        long[] counts = ClueCode.letterCounts(packed);
+        short[] codes = new short[packed.length];
+        for (int guess = 0; guess < packed.length; guess++) {
+            ClueCode.scoreAll(packed[guess], packed, counts, 0, packed.length, codes, 0);
+            for (int solution = 0; solution < packed.length; solution++) {
+                String pair = words.get(guess) + " against " + words.get(solution);
+                int expected = reference(words.get(guess), words.get(solution));
+                assertEquals(expected, ClueCode.score(words.get(guess), words.get(solution)),
+                             pair);
+                assertEquals(expected, ClueCode.score(packed[guess], packed[solution]),
+                             pair + ", packed");
+                assertEquals(expected, codes[solution], pair + ", batch");
+            }
+        }
+    }
+}